@@ -0,0 +1,88 @@
+package org.eclipse.microprofile.jwt.wfswarm.bench;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import io.undertow.security.api.AuthenticationMechanism;
+import io.undertow.security.impl.SecurityContextImpl;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+import org.eclipse.microprofile.jwt.principal.JWTCallerPrincipal;
+import org.eclipse.microprofile.jwt.wfswarm.JWTAuthMechanism;
+import org.eclipse.microprofile.jwt.wfswarm.RoleMapper;
+import org.eclipse.microprofile.jwt.wfswarm.TokenCache;
+import org.eclipse.microprofile.jwt.wfswarm.TokenValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures JWTAuthMechanism.authenticate in the direct authentication mode against a stub exchange and security
+ * context. The tokens are drawn from a small hot pool that stays in the token cache and a larger cold pool that
+ * cycles through it, so cacheHitPercent approximates the token cache hit ratio of the run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthenticateBenchmark {
+    private static final int HOT_TOKENS = 16;
+    private static final int COLD_TOKENS = 1024;
+    private static final int CACHE_SIZE = 256;
+
+    @Param({"2048", "4096"})
+    int keySize;
+    @Param({"4", "64"})
+    int groupCount;
+    @Param({"0", "4096"})
+    int paddingBytes;
+    @Param({"0", "90", "100"})
+    int cacheHitPercent;
+
+    private JWTAuthMechanism mechanism;
+    private String[] hotHeaders;
+    private String[] coldHeaders;
+
+    @Setup
+    public void setup() throws Exception {
+        TokenFixtures fixtures = new TokenFixtures(keySize);
+        TokenCache<JWTCallerPrincipal> tokenCache = cacheHitPercent > 0 ? new TokenCache<>(CACHE_SIZE) : null;
+        TokenValidator validator = new TokenValidator(fixtures.getAuthContextInfo(), tokenCache);
+        mechanism = new JWTAuthMechanism(validator, RoleMapper.identity(), false);
+        hotHeaders = toHeaders(fixtures.generateTokens("hot-", HOT_TOKENS, groupCount, paddingBytes));
+        coldHeaders = toHeaders(fixtures.generateTokens("cold-", COLD_TOKENS, groupCount, paddingBytes));
+    }
+
+    @Benchmark
+    public AuthenticationMechanism.AuthenticationMechanismOutcome authenticate() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String header;
+        if(random.nextInt(100) < cacheHitPercent) {
+            header = hotHeaders[random.nextInt(HOT_TOKENS)];
+        } else {
+            header = coldHeaders[random.nextInt(COLD_TOKENS)];
+        }
+        HttpServerExchange exchange = new HttpServerExchange(null);
+        exchange.getRequestHeaders().put(Headers.AUTHORIZATION, header);
+        SecurityContextImpl securityContext = new SecurityContextImpl(exchange, null);
+        return mechanism.authenticate(exchange, securityContext);
+    }
+
+    private static String[] toHeaders(String[] tokens) {
+        String[] headers = new String[tokens.length];
+        for(int n = 0; n < tokens.length; n ++) {
+            headers[n] = "Bearer " + tokens[n];
+        }
+        return headers;
+    }
+}
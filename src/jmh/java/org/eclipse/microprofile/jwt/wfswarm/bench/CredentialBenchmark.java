@@ -0,0 +1,54 @@
+package org.eclipse.microprofile.jwt.wfswarm.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.microprofile.jwt.wfswarm.TokenValidator;
+import org.eclipse.microprofile.jwt.wfswarm.jaas.JWTCredential;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the unverified decode of a bearer token by JWTCredential.getName, which every request performs before the
+ * token is validated, and the SHA-256 digest used as the token cache key.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CredentialBenchmark {
+    @Param({"4", "64"})
+    int groupCount;
+    @Param({"0", "4096"})
+    int paddingBytes;
+
+    private TokenValidator validator;
+    private String token;
+
+    @Setup
+    public void setup() throws Exception {
+        TokenFixtures fixtures = new TokenFixtures(2048);
+        validator = new TokenValidator(fixtures.getAuthContextInfo(), null);
+        token = fixtures.generateToken("credential", groupCount, paddingBytes);
+    }
+
+    @Benchmark
+    public String getName() {
+        return new JWTCredential(token, validator).getName();
+    }
+
+    @Benchmark
+    public String getTokenDigest() {
+        return new JWTCredential(token, validator).getTokenDigest();
+    }
+}
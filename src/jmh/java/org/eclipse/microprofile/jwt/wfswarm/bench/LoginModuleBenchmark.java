@@ -0,0 +1,76 @@
+package org.eclipse.microprofile.jwt.wfswarm.bench;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.security.auth.Subject;
+import javax.security.auth.callback.Callback;
+import javax.security.auth.callback.CallbackHandler;
+import javax.security.auth.login.LoginException;
+
+import org.eclipse.microprofile.jwt.principal.JWTCallerPrincipal;
+import org.eclipse.microprofile.jwt.wfswarm.TokenCache;
+import org.eclipse.microprofile.jwt.wfswarm.TokenValidator;
+import org.eclipse.microprofile.jwt.wfswarm.jaas.JWTCredential;
+import org.eclipse.microprofile.jwt.wfswarm.jaas.JWTLoginModule;
+import org.jboss.security.auth.callback.SecurityAssociationCallback;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the JWTLoginModule login (token validation) and commit (role mapping) phases with the same
+ * rolesProperties module option as the project-defaults.yml security domain.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoginModuleBenchmark {
+    @Param({"4", "64"})
+    int groupCount;
+    @Param({"false", "true"})
+    boolean tokenCache;
+
+    private TokenValidator validator;
+    private String token;
+    private HashMap<String, Object> options;
+
+    @Setup
+    public void setup() throws Exception {
+        TokenFixtures fixtures = new TokenFixtures(2048);
+        TokenCache<JWTCallerPrincipal> cache = tokenCache ? new TokenCache<>(16) : null;
+        validator = new TokenValidator(fixtures.getAuthContextInfo(), cache);
+        token = fixtures.generateToken("login-module", groupCount, 0);
+        options = new HashMap<>();
+        options.put("rolesProperties", "jwt-roles.properties");
+    }
+
+    @Benchmark
+    public Subject loginAndCommit() throws LoginException {
+        JWTCredential credential = new JWTCredential(token, validator);
+        CallbackHandler handler = callbacks -> {
+            for(Callback callback : callbacks) {
+                if(callback instanceof SecurityAssociationCallback) {
+                    ((SecurityAssociationCallback) callback).setCredential(credential);
+                }
+            }
+        };
+        Subject subject = new Subject();
+        JWTLoginModule loginModule = new JWTLoginModule();
+        loginModule.initialize(subject, handler, new HashMap<>(), options);
+        loginModule.login();
+        loginModule.commit();
+        return subject;
+    }
+}
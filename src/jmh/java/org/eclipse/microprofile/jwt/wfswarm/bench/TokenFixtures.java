@@ -0,0 +1,119 @@
+package org.eclipse.microprofile.jwt.wfswarm.bench;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.interfaces.RSAPublicKey;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.microprofile.jwt.Claims;
+import org.eclipse.microprofile.jwt.principal.JWTAuthContextInfo;
+import org.eclipse.microprofile.jwt.test.util.TestTokens;
+import org.eclipse.microprofile.jwt.wfswarm.KeyUtils;
+import org.jose4j.jwt.JwtClaims;
+import org.jose4j.jwt.NumericDate;
+
+/**
+ * Signed bearer tokens for the benchmarks, generated from the /RolesEndpoint.json claim set used by the TCK tests.
+ * The 2048 bit key pair is the /privateKey.pem, /publicKey.pem pair of the tests, other key sizes are generated.
+ */
+public class TokenFixtures {
+    public static final String CLAIMS_RESOURCE = "/RolesEndpoint.json";
+    public static final String KEY_ID = "/privateKey.pem";
+
+    private final KeyPair keyPair;
+    private final String claimsJson;
+
+    /**
+     *
+     * @param keySize - the RSA key size in bits
+     * @throws Exception - on failure to load or generate the key pair
+     */
+    public TokenFixtures(int keySize) throws Exception {
+        if(keySize == 2048) {
+            keyPair = new KeyPair(TestTokens.publicKey(), TestTokens.privateKey());
+        } else {
+            keyPair = KeyUtils.generateKeyPair(keySize);
+        }
+        claimsJson = readResource(CLAIMS_RESOURCE);
+    }
+
+    /**
+     * @return the validation information for tokens signed by the fixture key
+     * @throws Exception - on failure to parse the issuer from the claim set
+     */
+    public JWTAuthContextInfo getAuthContextInfo() throws Exception {
+        JWTAuthContextInfo contextInfo = new JWTAuthContextInfo();
+        contextInfo.setIssuedBy(JwtClaims.parse(claimsJson).getIssuer());
+        contextInfo.setSignerKey((RSAPublicKey) keyPair.getPublic());
+        return contextInfo;
+    }
+
+    /**
+     * Generate a token from the base claim set that expires in one hour
+     * @param jti - the unique token id, which makes the tokens of a pool distinct cache entries
+     * @param groupCount - the number of groups; the base groups are extended with generated group names
+     * @param paddingBytes - the size of an additional string claim used to vary the token size
+     * @return the compact serialization of the signed token
+     * @throws Exception - on failure to sign the token
+     */
+    public String generateToken(String jti, int groupCount, int paddingBytes) throws Exception {
+        JwtClaims claims = JwtClaims.parse(claimsJson);
+        long now = System.currentTimeMillis() / 1000;
+        claims.setIssuedAt(NumericDate.fromSeconds(now));
+        claims.setClaim(Claims.auth_time.name(), now);
+        claims.setExpirationTime(NumericDate.fromSeconds(now + 3600));
+        claims.setJwtId(jti);
+        List<String> groups = new ArrayList<>(claims.getStringListClaimValue(Claims.groups.name()));
+        while(groups.size() > groupCount) {
+            groups.remove(groups.size() - 1);
+        }
+        for(int n = groups.size(); n < groupCount; n ++) {
+            groups.add("group-"+n);
+        }
+        claims.setStringListClaim(Claims.groups.name(), groups);
+        if(paddingBytes > 0) {
+            StringBuilder padding = new StringBuilder(paddingBytes);
+            for(int n = 0; n < paddingBytes; n ++) {
+                padding.append((char) ('a' + n % 26));
+            }
+            claims.setClaim("padding", padding.toString());
+        }
+
+        return TestTokens.sign(claims, keyPair.getPrivate(), KEY_ID);
+    }
+
+    /**
+     * Generate a pool of distinct tokens
+     * @param prefix - the jti prefix of the pool
+     * @param count - the number of tokens
+     * @param groupCount - the number of groups in each token
+     * @param paddingBytes - the size of the padding claim
+     * @return the tokens
+     * @throws Exception - on failure to sign a token
+     */
+    public String[] generateTokens(String prefix, int count, int groupCount, int paddingBytes) throws Exception {
+        String[] tokens = new String[count];
+        for(int n = 0; n < count; n ++) {
+            tokens[n] = generateToken(prefix+n, groupCount, paddingBytes);
+        }
+        return tokens;
+    }
+
+    public static String readResource(String name) throws Exception {
+        try(InputStream is = TokenFixtures.class.getResourceAsStream(name)) {
+            if(is == null) {
+                throw new IllegalStateException("Failed to find resource: "+name);
+            }
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int length;
+            while((length = is.read(buffer)) > 0) {
+                content.write(buffer, 0, length);
+            }
+            return new String(content.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package org.eclipse.microprofile.jwt.wfswarm.cdi;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.json.JsonValue;
+
+import org.eclipse.microprofile.jwt.impl.DefaultJWTCallerPrincipal;
+import org.eclipse.microprofile.jwt.wfswarm.bench.TokenFixtures;
+import org.jose4j.jwt.JwtClaims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the JSON-P conversion of the /RolesEndpoint.json claim values by MPJWTProducer.wrapValue, and the
+ * lookup of an already converted value through the per token TokenClaimValues.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WrapValueBenchmark {
+    private JwtClaims claims;
+    private TokenClaimValues claimValues;
+
+    @Setup
+    public void setup() throws Exception {
+        claims = JwtClaims.parse(TokenFixtures.readResource(TokenFixtures.CLAIMS_RESOURCE));
+        DefaultJWTCallerPrincipal principal = new DefaultJWTCallerPrincipal("token", "JWT", claims, "jdoe@example.com");
+        claimValues = new TokenClaimValues(principal);
+    }
+
+    @Benchmark
+    public JsonValue wrapString() {
+        return MPJWTProducer.wrapValue(claims.getClaimValue("customString"));
+    }
+
+    @Benchmark
+    public JsonValue wrapInteger() {
+        return MPJWTProducer.wrapValue(claims.getClaimValue("customInteger"));
+    }
+
+    @Benchmark
+    public JsonValue wrapDoubleArray() {
+        return MPJWTProducer.wrapValue(claims.getClaimValue("customDoubleArray"));
+    }
+
+    @Benchmark
+    public JsonValue wrapObject() {
+        return MPJWTProducer.wrapValue(claims.getClaimValue("customObject"));
+    }
+
+    @Benchmark
+    public JsonValue memoizedObject() {
+        return claimValues.getJsonValue("customObject");
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2016-2017 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file(s) distributed with this work for additional
+ *  information regarding copyright ownership.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  You may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.eclipse.microprofile.jwt.wfswarm;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * A sampled record of a bearer token authentication attempt passed to an {@link AuthAuditListener}. The raw token is
+ * never included, only a fingerprint derived from its digest.
+ */
+public class AuthAuditEvent {
+    public enum Outcome {
+        AUTHENTICATED,
+        NOT_AUTHENTICATED
+    }
+
+    private final Outcome outcome;
+    private final String caller;
+    private final String path;
+    private final String tokenFingerprint;
+    private final Set<String> roles;
+    private final String reason;
+    private final long timestamp;
+
+    public AuthAuditEvent(Outcome outcome, String caller, String path, String tokenFingerprint, Set<String> roles,
+                          String reason) {
+        this.outcome = outcome;
+        this.caller = caller;
+        this.path = path;
+        this.tokenFingerprint = tokenFingerprint;
+        this.roles = roles != null ? roles : Collections.emptySet();
+        this.reason = reason;
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * @return the caller principal name, INVALID_TOKEN_NAME if the token could not be parsed
+     */
+    public String getCaller() {
+        return caller;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * @return a short prefix of the base64url SHA-256 digest of the bearer token
+     */
+    public String getTokenFingerprint() {
+        return tokenFingerprint;
+    }
+
+    public Set<String> getRoles() {
+        return roles;
+    }
+
+    /**
+     * @return the failure reason for a NOT_AUTHENTICATED outcome, null otherwise
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "AuthAuditEvent{" +
+                "outcome=" + outcome +
+                ", caller=" + caller +
+                ", path=" + path +
+                ", token=" + tokenFingerprint +
+                ", roles=" + roles +
+                ", reason=" + reason +
+                '}';
+    }
+}
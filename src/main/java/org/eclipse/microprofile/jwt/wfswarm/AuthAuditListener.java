@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2016-2017 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file(s) distributed with this work for additional
+ *  information regarding copyright ownership.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  You may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.eclipse.microprofile.jwt.wfswarm;
+
+/**
+ * A receiver of the sampled authentication events of the JWTAuthMechanism. An implementation can be configured with
+ * the auditListener auth-method parameter, and must have a public no-arg constructor.
+ */
+public interface AuthAuditListener {
+    /**
+     * Called on the request thread for each sampled authentication attempt
+     * @param event - the authentication event
+     */
+    void onEvent(AuthAuditEvent event);
+}
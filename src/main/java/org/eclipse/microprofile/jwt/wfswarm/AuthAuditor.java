@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2016-2017 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file(s) distributed with this work for additional
+ *  information regarding copyright ownership.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  You may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.eclipse.microprofile.jwt.wfswarm;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jboss.logging.Logger;
+
+/**
+ * Decides which authentication attempts are passed to the AuthAuditListener. An attempt is sampled with a
+ * probability of 1 in sampleRate, and the sampled events are further limited to maxPerSecond events per second. A
+ * sampleRate of 0 disables auditing, so the mechanism does no work for it beyond a field check.
+ */
+public class AuthAuditor {
+    /** The length of the token digest prefix used as the token fingerprint */
+    public static final int FINGERPRINT_LENGTH = 12;
+    /** An auditor that never samples */
+    public static final AuthAuditor DISABLED = new AuthAuditor(0, 0, null);
+
+    private final int sampleRate;
+    private final int maxPerSecond;
+    private final AuthAuditListener listener;
+    /** The current one second rate limit window, as the window second in the high 32 bits and its event count */
+    private final AtomicLong window = new AtomicLong();
+
+    /**
+     *
+     * @param sampleRate - audit 1 in sampleRate attempts, 0 to disable
+     * @param maxPerSecond - the maximum number of audited events per second, 0 for no limit
+     * @param listener - the receiver of the events
+     */
+    public AuthAuditor(int sampleRate, int maxPerSecond, AuthAuditListener listener) {
+        this.sampleRate = sampleRate;
+        this.maxPerSecond = maxPerSecond;
+        this.listener = listener;
+    }
+
+    /**
+     * @return an AuthAuditListener that logs the events under the org.eclipse.microprofile.jwt.wfswarm.audit category
+     */
+    public static AuthAuditListener loggingListener() {
+        return new LoggingListener();
+    }
+
+    /**
+     * Derive the fingerprint of a token from its digest
+     * @param tokenDigest - the digest from {@link TokenCache#digest(String)}
+     * @return the fingerprint
+     */
+    public static String fingerprint(String tokenDigest) {
+        return tokenDigest.substring(0, FINGERPRINT_LENGTH);
+    }
+
+    /**
+     * Decide whether the current attempt should be audited. This is checked before the event is built so that the
+     * unsampled attempts allocate nothing.
+     * @return true if an event should be passed to {@link #audit(AuthAuditEvent)}
+     */
+    public boolean sample() {
+        if(sampleRate <= 0) {
+            return false;
+        }
+        if(sampleRate > 1 && ThreadLocalRandom.current().nextInt(sampleRate) != 0) {
+            return false;
+        }
+        if(maxPerSecond > 0) {
+            long second = (System.currentTimeMillis() / 1000) & 0xFFFFFFFFL;
+            while(true) {
+                long current = window.get();
+                long next;
+                if(current >>> 32 != second) {
+                    // Start the new window with this event, a single CAS so that only one caller resets it
+                    next = (second << 32) | 1;
+                } else if((current & 0xFFFFFFFFL) >= maxPerSecond) {
+                    return false;
+                } else {
+                    next = current + 1;
+                }
+                if(window.compareAndSet(current, next)) {
+                    return true;
+                }
+            }
+        }
+        return true;
+    }
+
+    public void audit(AuthAuditEvent event) {
+        listener.onEvent(event);
+    }
+
+    private static class LoggingListener implements AuthAuditListener {
+        private static Logger log = Logger.getLogger("org.eclipse.microprofile.jwt.wfswarm.audit");
+
+        @Override
+        public void onEvent(AuthAuditEvent event) {
+            if(event.getOutcome() == AuthAuditEvent.Outcome.AUTHENTICATED) {
+                log.infof("Authenticated caller(%s) for path(%s) with roles: %s, token: %s", event.getCaller(),
+                          event.getPath(), event.getRoles(), event.getTokenFingerprint());
+            } else {
+                log.infof("Failed to authenticate caller(%s) for path(%s), token: %s, reason: %s", event.getCaller(),
+                          event.getPath(), event.getTokenFingerprint(), event.getReason());
+            }
+        }
+    }
+}
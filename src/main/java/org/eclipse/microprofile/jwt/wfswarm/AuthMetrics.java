@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2016-2017 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file(s) distributed with this work for additional
+ *  information regarding copyright ownership.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  You may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.eclipse.microprofile.jwt.wfswarm;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.undertow.security.api.AuthenticationMechanism.AuthenticationMechanismOutcome;
+
+/**
+ * The authentication outcome counts, failure reason counts, stage latencies and cache hit ratios of the MP-JWT
+ * mechanism of a deployment. The counters are LongAdders and the latencies lock free histograms, so recording costs
+ * a couple of System.nanoTime calls per stage. The DISABLED instance records nothing.
+ */
+public class AuthMetrics implements AuthMetricsMXBean {
+    /**
+     * The timed stages of an authentication
+     */
+    public enum Stage {
+        /** Parsing the token */
+        PARSE,
+        /** Verifying the token signature */
+        SIGNATURE,
+        /** Validating the token claims */
+        CLAIMS,
+        /** The login through the IdentityManager and JAAS login modules */
+        LOGIN,
+        /** Mapping the token groups to roles in direct authentication */
+        ROLE_MAPPING,
+        /** The whole authentication of a request with a token */
+        TOTAL
+    }
+
+    /** The failure reason of a token rejected by the rejected token cache */
+    public static final String CACHED_REJECTION = "CACHED_REJECTION";
+    /** The failure reason of a valid token for which the IdentityManager returned no account */
+    public static final String NO_ACCOUNT = "NO_ACCOUNT";
+    /** The failure reason of a valid token whose login failed with an exception */
+    public static final String LOGIN_ERROR = "LOGIN_ERROR";
+    /** Metrics that record nothing */
+    public static final AuthMetrics DISABLED = new AuthMetrics(false);
+
+    private final boolean enabled;
+    private final LongAdder[] outcomes = new LongAdder[AuthenticationMechanismOutcome.values().length];
+    private final ConcurrentHashMap<String, LongAdder> failures = new ConcurrentHashMap<>();
+    private final LatencyHistogram[] latencies = new LatencyHistogram[Stage.values().length];
+    private final Map<String, TokenCache<?>> caches = new ConcurrentSkipListMap<>();
+
+    public AuthMetrics() {
+        this(true);
+    }
+
+    private AuthMetrics(boolean enabled) {
+        this.enabled = enabled;
+        for(int n = 0; n < outcomes.length; n ++) {
+            outcomes[n] = new LongAdder();
+        }
+        for(int n = 0; n < latencies.length; n ++) {
+            latencies[n] = new LatencyHistogram();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the start time to pass to {@link #record(Stage, long)}
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Record the latency of a stage
+     * @param stage - the completed stage
+     * @param start - the stage start time from {@link #start()}
+     */
+    public void record(Stage stage, long start) {
+        if(enabled) {
+            latencies[stage.ordinal()].record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Count an authentication outcome
+     * @param outcome - the outcome of the mechanism
+     */
+    public void outcome(AuthenticationMechanismOutcome outcome) {
+        if(enabled) {
+            outcomes[outcome.ordinal()].increment();
+        }
+    }
+
+    /**
+     * Count the failure reason of a rejected token
+     * @param reason - a ValidationResult.Status name or one of the reasons of this class
+     */
+    public void failure(String reason) {
+        if(enabled) {
+            LongAdder counter = failures.get(reason);
+            if(counter == null) {
+                counter = failures.computeIfAbsent(reason, r -> new LongAdder());
+            }
+            counter.increment();
+        }
+    }
+
+    /**
+     * Report the hit ratio of a cache
+     * @param name - the cache name
+     * @param cache - the cache
+     */
+    public void addCache(String name, TokenCache<?> cache) {
+        caches.put(name, cache);
+    }
+
+    public LatencyHistogram getLatency(Stage stage) {
+        return latencies[stage.ordinal()];
+    }
+
+    @Override
+    public long getAuthenticatedCount() {
+        return outcomes[AuthenticationMechanismOutcome.AUTHENTICATED.ordinal()].sum();
+    }
+
+    @Override
+    public long getNotAuthenticatedCount() {
+        return outcomes[AuthenticationMechanismOutcome.NOT_AUTHENTICATED.ordinal()].sum();
+    }
+
+    @Override
+    public long getNotAttemptedCount() {
+        return outcomes[AuthenticationMechanismOutcome.NOT_ATTEMPTED.ordinal()].sum();
+    }
+
+    @Override
+    public Map<String, Long> getFailureCounts() {
+        TreeMap<String, Long> counts = new TreeMap<>();
+        for(Map.Entry<String, LongAdder> failure : failures.entrySet()) {
+            counts.put(failure.getKey(), failure.getValue().sum());
+        }
+        return counts;
+    }
+
+    @Override
+    public Map<String, Double> getCacheHitRatios() {
+        TreeMap<String, Double> ratios = new TreeMap<>();
+        for(Map.Entry<String, TokenCache<?>> cache : caches.entrySet()) {
+            ratios.put(cache.getKey(), hitRatio(cache.getValue()));
+        }
+        return ratios;
+    }
+
+    @Override
+    public Map<String, String> getStageLatencies() {
+        TreeMap<String, String> summaries = new TreeMap<>();
+        for(Stage stage : Stage.values()) {
+            LatencyHistogram histogram = getLatency(stage);
+            summaries.put(stage.name(), String.format(Locale.ROOT, "count=%d, mean=%dus, p50=%dus, p99=%dus, max=%dus",
+                    histogram.getCount(), micros(histogram.getMean()), micros(histogram.getPercentile(50)),
+                    micros(histogram.getPercentile(99)), micros(histogram.getMax())));
+        }
+        return summaries;
+    }
+
+    @Override
+    public String getText() {
+        StringBuilder text = new StringBuilder();
+        text.append("# TYPE mpjwt_auth_outcomes_total counter\n");
+        for(AuthenticationMechanismOutcome outcome : AuthenticationMechanismOutcome.values()) {
+            sample(text, "mpjwt_auth_outcomes_total", "outcome=\""+outcome.name()+'"', outcomes[outcome.ordinal()].sum());
+        }
+        text.append("# TYPE mpjwt_auth_failures_total counter\n");
+        for(Map.Entry<String, Long> failure : getFailureCounts().entrySet()) {
+            sample(text, "mpjwt_auth_failures_total", "reason=\""+failure.getKey()+'"', failure.getValue());
+        }
+        text.append("# TYPE mpjwt_auth_stage_seconds summary\n");
+        for(Stage stage : Stage.values()) {
+            LatencyHistogram histogram = getLatency(stage);
+            String label = "stage=\""+stage.name()+'"';
+            for(double quantile : new double[] {0.5, 0.9, 0.99, 0.999}) {
+                sample(text, "mpjwt_auth_stage_seconds", label+",quantile=\""+quantile+'"',
+                        seconds(histogram.getPercentile(quantile * 100)));
+            }
+            sample(text, "mpjwt_auth_stage_seconds_sum", label, seconds(histogram.getSum()));
+            sample(text, "mpjwt_auth_stage_seconds_count", label, histogram.getCount());
+        }
+        text.append("# TYPE mpjwt_cache_hits_total counter\n");
+        for(Map.Entry<String, TokenCache<?>> cache : caches.entrySet()) {
+            sample(text, "mpjwt_cache_hits_total", "cache=\""+cache.getKey()+'"', cache.getValue().getHitCount());
+        }
+        text.append("# TYPE mpjwt_cache_misses_total counter\n");
+        for(Map.Entry<String, TokenCache<?>> cache : caches.entrySet()) {
+            sample(text, "mpjwt_cache_misses_total", "cache=\""+cache.getKey()+'"', cache.getValue().getMissCount());
+        }
+        text.append("# TYPE mpjwt_cache_hit_ratio gauge\n");
+        for(Map.Entry<String, TokenCache<?>> cache : caches.entrySet()) {
+            sample(text, "mpjwt_cache_hit_ratio", "cache=\""+cache.getKey()+'"', hitRatio(cache.getValue()));
+        }
+        return text.toString();
+    }
+
+    @Override
+    public void reset() {
+        for(LongAdder outcome : outcomes) {
+            outcome.reset();
+        }
+        failures.clear();
+        for(LatencyHistogram latency : latencies) {
+            latency.reset();
+        }
+        for(TokenCache<?> cache : caches.values()) {
+            cache.resetStats();
+        }
+    }
+
+    private static double hitRatio(TokenCache<?> cache) {
+        long hits = cache.getHitCount();
+        long lookups = hits + cache.getMissCount();
+        return lookups > 0 ? (double) hits / lookups : Double.NaN;
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / 1e9;
+    }
+
+    private static void sample(StringBuilder text, String name, String labels, Object value) {
+        text.append(name).append('{').append(labels).append("} ").append(value).append('\n');
+    }
+}
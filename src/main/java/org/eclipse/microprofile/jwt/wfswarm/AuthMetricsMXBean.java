@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2016-2017 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file(s) distributed with this work for additional
+ *  information regarding copyright ownership.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  You may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.eclipse.microprofile.jwt.wfswarm;
+
+import java.util.Map;
+
+/**
+ * The JMX management interface of the MP-JWT authentication metrics of a deployment. As an MXBean its maps are
+ * exposed as TabularData, so any JMX client can read them without the mechanism classes.
+ */
+public interface AuthMetricsMXBean {
+    /**
+     * @return the number of requests authenticated with a token
+     */
+    long getAuthenticatedCount();
+
+    /**
+     * @return the number of requests with a token that was rejected
+     */
+    long getNotAuthenticatedCount();
+
+    /**
+     * @return the number of requests without a token
+     */
+    long getNotAttemptedCount();
+
+    /**
+     * @return the number of rejected tokens by failure reason
+     */
+    Map<String, Long> getFailureCounts();
+
+    /**
+     * @return the hit ratio of each cache of the mechanism, NaN for a cache that had no lookups
+     */
+    Map<String, Double> getCacheHitRatios();
+
+    /**
+     * @return the count, mean, p50, p99 and max latency summary of each authentication stage
+     */
+    Map<String, String> getStageLatencies();
+
+    /**
+     * @return all metrics in the text exposition format
+     */
+    String getText();
+
+    /**
+     * Reset the counters, latencies and cache hit and miss counts
+     */
+    void reset();
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2016-2017 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file(s) distributed with this work for additional
+ *  information regarding copyright ownership.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  You may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.eclipse.microprofile.jwt.wfswarm;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Serves the AuthMetrics of the deployment in the text exposition format. The JWTAuthMethodExtension maps it to the
+ * path given by the org.eclipse.microprofile.jwt.metricsPath context parameter. The servlet does no access control of
+ * its own, so the path needs a security constraint, which the extension adds for the role given by the
+ * org.eclipse.microprofile.jwt.metricsRole context parameter.
+ */
+public class AuthMetricsServlet extends HttpServlet {
+    private static final long serialVersionUID = 1L;
+
+    private final transient AuthMetrics metrics;
+
+    public AuthMetricsServlet(AuthMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        resp.setContentType("text/plain; version=0.0.4");
+        resp.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        resp.getWriter().write(metrics.getText());
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2016-2017 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file(s) distributed with this work for additional
+ *  information regarding copyright ownership.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  You may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.eclipse.microprofile.jwt.wfswarm;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The role mappings of a deployment by rolesProperties resource name. The JWTAuthMechanismFactory registers one for
+ * the deployment class loader, so the JWTLoginModule, which is created for every login, finds the mappings of its
+ * deployment through the thread context class loader. The factory closes it on undeploy, which stops the file
+ * watches and removes the registration, so no mapping outlives its deployment.
+ */
+public class DeploymentRoleMappers implements AutoCloseable {
+    private static final ConcurrentHashMap<ClassLoader, DeploymentRoleMappers> deployments = new ConcurrentHashMap<>();
+
+    private final ClassLoader loader;
+    private final ConcurrentHashMap<String, RoleMapper> roleMappers = new ConcurrentHashMap<>();
+
+    private DeploymentRoleMappers(ClassLoader loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * Register the role mappings of a deployment
+     * @param loader - the deployment class loader, which also loads the rolesProperties resources
+     * @return the role mappings registered for the class loader
+     */
+    public static DeploymentRoleMappers register(ClassLoader loader) {
+        return deployments.computeIfAbsent(loader, DeploymentRoleMappers::new);
+    }
+
+    /**
+     * Lookup the role mappings of a deployment
+     * @param loader - the deployment class loader
+     * @return the role mappings registered for the class loader, null if there are none
+     */
+    public static DeploymentRoleMappers forClassLoader(ClassLoader loader) {
+        return loader != null ? deployments.get(loader) : null;
+    }
+
+    /**
+     * Get the role mapping of a properties resource, loading and watching it on first use
+     * @param rolesProperties - the resource name of the role mapping properties
+     * @return the RoleMapper for the resource
+     * @throws IOException - on failure to locate or read the resource
+     */
+    public RoleMapper get(String rolesProperties) throws IOException {
+        RoleMapper roleMapper = roleMappers.get(rolesProperties);
+        if(roleMapper == null) {
+            roleMapper = RoleMapper.load(rolesProperties, loader);
+            RoleMapper existing = roleMappers.putIfAbsent(rolesProperties, roleMapper);
+            if(existing != null) {
+                roleMapper = existing;
+            } else {
+                roleMapper.watch();
+            }
+        }
+        return roleMapper;
+    }
+
+    /**
+     * @return a live view of the role mappings loaded so far
+     */
+    public Collection<RoleMapper> getRoleMappers() {
+        return Collections.unmodifiableCollection(roleMappers.values());
+    }
+
+    /**
+     * Reload every role mapping of the deployment from the location it was loaded from
+     * @throws IOException - on failure to read a mapping
+     */
+    public void reload() throws IOException {
+        for(RoleMapper roleMapper : roleMappers.values()) {
+            roleMapper.reload();
+        }
+    }
+
+    /**
+     * Stop watching the mapping files and remove the deployment registration
+     */
+    @Override
+    public void close() {
+        deployments.remove(loader, this);
+        for(RoleMapper roleMapper : roleMappers.values()) {
+            roleMapper.close();
+        }
+        roleMappers.clear();
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2016-2017 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file(s) distributed with this work for additional
+ *  information regarding copyright ownership.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  You may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.eclipse.microprofile.jwt.wfswarm;
+
+/**
+ * The validation context for the tokens of one issuer: the TokenValidator with the issuer keys, algorithms and
+ * grace period, and an optional role mapping used by the direct authentication mode.
+ */
+public final class IssuerContext {
+    private final TokenValidator validator;
+    private final RoleMapper roleMapper;
+
+    /**
+     *
+     * @param validator - the validator of the issuer tokens
+     * @param roleMapper - the group to role mapping of the issuer, null to use the mechanism default
+     */
+    public IssuerContext(TokenValidator validator, RoleMapper roleMapper) {
+        this.validator = validator;
+        this.roleMapper = roleMapper;
+    }
+
+    /**
+     * @return the expected iss claim value
+     */
+    public String getIssuer() {
+        return validator.getAuthContextInfo().getIssuedBy();
+    }
+
+    public TokenValidator getValidator() {
+        return validator;
+    }
+
+    /**
+     * @return the group to role mapping of the issuer, null if the mechanism default applies
+     */
+    public RoleMapper getRoleMapper() {
+        return roleMapper;
+    }
+}
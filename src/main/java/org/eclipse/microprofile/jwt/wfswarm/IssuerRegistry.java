@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2016-2017 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file(s) distributed with this work for additional
+ *  information regarding copyright ownership.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  You may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.eclipse.microprofile.jwt.wfswarm;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.microprofile.jwt.principal.ParseException;
+import org.eclipse.microprofile.jwt.wfswarm.jaas.JWTCredential;
+import org.jose4j.jwt.ReservedClaimNames;
+import org.jose4j.jwt.consumer.JwtContext;
+
+/**
+ * The validation contexts of the token issuers accepted by a deployment, keyed by the iss claim. The context of a
+ * token is selected from the iss of the unverified claims the JWTCredential has already parsed, with a single map
+ * lookup. The selected validator then verifies the signature and the iss claim itself, so a forged iss can only
+ * select a context whose keys the token must also be signed with.
+ */
+public class IssuerRegistry {
+    private final Map<String, IssuerContext> issuers;
+    /** The only context when there is a single issuer, in which case the iss does not need to be looked up */
+    private final IssuerContext singleIssuer;
+
+    /**
+     * Create a registry for a single issuer
+     * @param issuer - the issuer validation context
+     */
+    public IssuerRegistry(IssuerContext issuer) {
+        this(Collections.singletonList(issuer));
+    }
+
+    /**
+     *
+     * @param issuers - the issuer validation contexts
+     * @throws IllegalArgumentException - if there are no issuers or an issuer is not unique
+     */
+    public IssuerRegistry(Collection<IssuerContext> issuers) {
+        if(issuers.isEmpty()) {
+            throw new IllegalArgumentException("At least one issuer is required");
+        }
+        HashMap<String, IssuerContext> map = new HashMap<>();
+        for(IssuerContext issuer : issuers) {
+            if(map.put(issuer.getIssuer(), issuer) != null) {
+                throw new IllegalArgumentException("Duplicate issuer: "+issuer.getIssuer());
+            }
+        }
+        this.issuers = map;
+        this.singleIssuer = issuers.size() == 1 ? issuers.iterator().next() : null;
+    }
+
+    /**
+     * Select the validation context for the issuer of a token
+     * @param credential - the bearer token credential
+     * @return the validation context for the token iss
+     * @throws ParseException - if the token cannot be parsed or its issuer is not registered
+     */
+    public IssuerContext select(JWTCredential credential) throws ParseException {
+        IssuerContext issuer = find(credential);
+        if(issuer == null) {
+            // Report a parse failure as such
+            credential.getJwtContext();
+            throw new ParseException("Token issuer is not accepted");
+        }
+        return issuer;
+    }
+
+    /**
+     * Select the validation context for the issuer of a token without throwing for an unknown issuer
+     * @param credential - the bearer token credential
+     * @return the validation context for the token iss, null if the token cannot be parsed or its issuer is not
+     * registered
+     */
+    public IssuerContext find(JWTCredential credential) {
+        if(singleIssuer != null) {
+            return singleIssuer;
+        }
+        JwtContext jwtContext = credential.getJwtContextOrNull();
+        if(jwtContext == null) {
+            return null;
+        }
+        Object iss = jwtContext.getJwtClaims().getClaimValue(ReservedClaimNames.ISSUER);
+        return iss instanceof String ? issuers.get(iss) : null;
+    }
+
+    /**
+     * @param iss - the issuer
+     * @return the validation context of the issuer, null if the issuer is not registered
+     */
+    public IssuerContext getIssuer(String iss) {
+        return issuers.get(iss);
+    }
+
+    /**
+     * @return the registered issuers
+     */
+    public Set<String> getIssuers() {
+        return Collections.unmodifiableSet(issuers.keySet());
+    }
+}
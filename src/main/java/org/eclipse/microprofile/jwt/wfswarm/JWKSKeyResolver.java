@@ -0,0 +1,316 @@
+/*
+ * Copyright (c) 2016-2017 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file(s) distributed with this work for additional
+ *  information regarding copyright ownership.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  You may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.eclipse.microprofile.jwt.wfswarm;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.PublicKey;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.jboss.logging.Logger;
+import org.jose4j.base64url.Base64Url;
+import org.jose4j.json.JsonUtil;
+import org.jose4j.jwk.JsonWebKey;
+import org.jose4j.jwk.JsonWebKeySet;
+import org.jose4j.jwk.PublicJsonWebKey;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jwx.JsonWebStructure;
+import org.jose4j.keys.resolvers.VerificationKeyResolver;
+import org.jose4j.lang.JoseException;
+import org.jose4j.lang.UnresolvableKeyException;
+
+/**
+ * A VerificationKeyResolver that selects the token verification key by the JWS kid header from a JSON Web Key Set
+ * loaded from a file, classpath resource or http(s) location. RSA, EC and OKP Ed25519 keys are supported. The key
+ * set is reloaded on a background thread at a jittered interval, and request threads only ever perform a lookup in
+ * the current kid-indexed map. A token with an unknown kid is rejected immediately and schedules an early refresh,
+ * at most once per minimum refresh interval. Keys whose use is not sig are not indexed, and a key that declares an
+ * alg only verifies tokens with that alg header.
+ */
+public class JWKSKeyResolver implements VerificationKeyResolver, AutoCloseable {
+    private static Logger log = Logger.getLogger(JWKSKeyResolver.class);
+    private static final int CONNECT_TIMEOUT_MS = 5000;
+    private static final int READ_TIMEOUT_MS = 5000;
+    private static final String OKP_KEY_TYPE = "OKP";
+    private static final String SIGNATURE_USE = "sig";
+
+    private final URL location;
+    private final long refreshIntervalMillis;
+    private final long minRefreshIntervalMillis;
+    /** The kid to key mapping, replaced as a whole on each refresh */
+    private volatile Map<String, JwksKey> keys = new ConcurrentHashMap<>();
+    /** The key used for tokens without a kid header when the key set has a single key */
+    private volatile JwksKey defaultKey;
+    private volatile long lastRefresh;
+    private final AtomicBoolean earlyRefreshPending = new AtomicBoolean();
+    private ScheduledExecutorService scheduler;
+
+    /**
+     *
+     * @param location - the location of the JWKS document
+     * @param refreshIntervalSecs - the nominal interval between reloads of the key set, 0 to disable reloading
+     * @param minRefreshIntervalSecs - the minimum interval between reloads triggered by an unknown kid
+     */
+    public JWKSKeyResolver(URL location, long refreshIntervalSecs, long minRefreshIntervalSecs) {
+        this.location = location;
+        this.refreshIntervalMillis = TimeUnit.SECONDS.toMillis(refreshIntervalSecs);
+        this.minRefreshIntervalMillis = TimeUnit.SECONDS.toMillis(minRefreshIntervalSecs);
+    }
+
+    /**
+     * Resolve a JWKS location as either a URL, or a resource name in the given class loader
+     * @param jwksUri - a file:, http:, https: URL or a resource name
+     * @param loader - the class loader for resource names
+     * @return the URL of the JWKS document
+     * @throws IOException - if the location is not a URL and no resource was found
+     */
+    public static URL toURL(String jwksUri, ClassLoader loader) throws IOException {
+        if(jwksUri.indexOf(':') > 0) {
+            return new URL(jwksUri);
+        }
+        URL url = loader.getResource(jwksUri);
+        if(url == null) {
+            throw new IOException("No JWKS resource found for: "+jwksUri);
+        }
+        return url;
+    }
+
+    /**
+     * Perform the initial load of the key set and start the background refresh
+     * @throws IOException - on failure to read the key set
+     * @throws JoseException - on failure to parse the key set
+     */
+    public void start() throws IOException, JoseException {
+        refresh();
+        if(refreshIntervalMillis > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "MP-JWT JWKS refresh");
+                t.setDaemon(true);
+                return t;
+            });
+            scheduleRefresh(jitter(refreshIntervalMillis));
+        }
+    }
+
+    /**
+     * Reload the key set from its location and replace the current kid mapping
+     * @throws IOException - on failure to read the key set
+     * @throws JoseException - on failure to parse the key set
+     */
+    public void refresh() throws IOException, JoseException {
+        lastRefresh = System.currentTimeMillis();
+        Map<String, Object> jwks = JsonUtil.parseJson(readContent());
+        Object jwkList = jwks.get(JsonWebKeySet.JWK_SET_MEMBER_NAME);
+        if(!(jwkList instanceof List)) {
+            throw new JoseException("The JWKS has no "+JsonWebKeySet.JWK_SET_MEMBER_NAME+" array");
+        }
+        ConcurrentHashMap<String, JwksKey> newKeys = new ConcurrentHashMap<>();
+        JwksKey onlyKey = null;
+        int count = 0;
+        for(Object jwkParams : (List<?>) jwkList) {
+            Map<String, Object> params = (Map<String, Object>) jwkParams;
+            Object use = params.get(JsonWebKey.USE_PARAMETER);
+            if(use != null && !SIGNATURE_USE.equals(use)) {
+                log.debugf("Ignoring JWK: %s, use=%s", params.get(JsonWebKey.KEY_ID_PARAMETER), use);
+                continue;
+            }
+            PublicKey key;
+            try {
+                key = toPublicKey(params);
+            } catch (Exception e) {
+                log.debugf("Ignoring JWK: %s, error=%s", params.get(JsonWebKey.KEY_ID_PARAMETER), e.getMessage());
+                continue;
+            }
+            if(key == null) {
+                continue;
+            }
+            count ++;
+            onlyKey = new JwksKey(key, (String) params.get(JsonWebKey.ALGORITHM_PARAMETER));
+            String kid = (String) params.get(JsonWebKey.KEY_ID_PARAMETER);
+            if(kid != null) {
+                newKeys.put(kid, onlyKey);
+            }
+        }
+        keys = newKeys;
+        defaultKey = count == 1 ? onlyKey : null;
+        log.debugf("Loaded JWKS from: %s, kids: %s", location, newKeys.keySet());
+    }
+
+    /**
+     * Create the public key of a JWK. The RSA and EC key types are handled by jose4j, and OKP Ed25519 keys are
+     * decoded here so they are also supported by jose4j versions without OKP keys.
+     * @param params - the JWK members
+     * @return the public key, null if the JWK is not a public key
+     * @throws Exception - on an invalid or unsupported JWK
+     */
+    private static PublicKey toPublicKey(Map<String, Object> params) throws Exception {
+        if(OKP_KEY_TYPE.equals(params.get(JsonWebKey.KEY_TYPE_PARAMETER))) {
+            if(!SignatureAlgorithms.ED25519.equals(params.get("crv"))) {
+                throw new JoseException("Unsupported OKP curve: "+params.get("crv"));
+            }
+            return KeyUtils.decodeEd25519PublicKey(Base64Url.decode((String) params.get("x")));
+        }
+        JsonWebKey jwk = JsonWebKey.Factory.newJwk(params);
+        if(!(jwk instanceof PublicJsonWebKey)) {
+            return null;
+        }
+        return ((PublicJsonWebKey) jwk).getPublicKey();
+    }
+
+    /**
+     * @return the kid values of the current key set
+     */
+    public Set<String> getKeyIds() {
+        return Collections.unmodifiableSet(keys.keySet());
+    }
+
+    public URL getLocation() {
+        return location;
+    }
+
+    /**
+     * Lookup the current key for a kid
+     * @param kid - the key id, may be null
+     * @return the key if found, null otherwise
+     */
+    public PublicKey getKey(String kid) {
+        JwksKey key = kid == null ? defaultKey : keys.get(kid);
+        return key != null ? key.key : null;
+    }
+
+    @Override
+    public Key resolveKey(JsonWebSignature jws, List<JsonWebStructure> nestingContext) throws UnresolvableKeyException {
+        PublicKey key = findKey(jws);
+        if(key == null) {
+            throw new UnresolvableKeyException("No JWKS key found for kid: "+jws.getKeyIdHeaderValue());
+        }
+        return key;
+    }
+
+    /**
+     * Lookup the key for the kid of a token without throwing for an unknown kid, which is a common failure
+     * @param jws - the token signature
+     * @return the key for the token kid, null if there is none, in which case an early refresh is requested, or if
+     * the key declares an alg other than the token alg header
+     */
+    public PublicKey findKey(JsonWebSignature jws) {
+        String kid = jws.getKeyIdHeaderValue();
+        JwksKey key = kid == null ? defaultKey : keys.get(kid);
+        if(key == null) {
+            requestEarlyRefresh();
+            return null;
+        }
+        if(key.alg != null && !key.alg.equals(jws.getAlgorithmHeaderValue())) {
+            log.debugf("Rejecting JWK: %s for alg: %s, the key alg is: %s", kid, jws.getAlgorithmHeaderValue(),
+                    key.alg);
+            return null;
+        }
+        return key.key;
+    }
+
+    @Override
+    public void close() {
+        if(scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private void requestEarlyRefresh() {
+        if(scheduler == null || System.currentTimeMillis() - lastRefresh < minRefreshIntervalMillis) {
+            return;
+        }
+        if(earlyRefreshPending.compareAndSet(false, true)) {
+            scheduler.execute(() -> {
+                try {
+                    refresh();
+                } catch (Exception e) {
+                    log.warnf("Failed to refresh JWKS from: %s, error=%s", location, e.getMessage());
+                } finally {
+                    earlyRefreshPending.set(false);
+                }
+            });
+        }
+    }
+
+    private void scheduleRefresh(long delayMillis) {
+        scheduler.schedule(() -> {
+            try {
+                refresh();
+            } catch (Exception e) {
+                log.warnf("Failed to refresh JWKS from: %s, error=%s", location, e.getMessage());
+            } finally {
+                scheduleRefresh(jitter(refreshIntervalMillis));
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Spread refreshes of a fleet of servers by +/- 10% of the interval
+     */
+    private static long jitter(long intervalMillis) {
+        long spread = intervalMillis / 10;
+        if(spread == 0) {
+            return intervalMillis;
+        }
+        return intervalMillis - spread + ThreadLocalRandom.current().nextLong(2 * spread + 1);
+    }
+
+    /**
+     * A JWKS public key along with the alg it is restricted to, if any
+     */
+    private static final class JwksKey {
+        final PublicKey key;
+        final String alg;
+
+        JwksKey(PublicKey key, String alg) {
+            this.key = key;
+            this.alg = alg;
+        }
+    }
+
+    private String readContent() throws IOException {
+        URLConnection connection = location.openConnection();
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+        connection.setReadTimeout(READ_TIMEOUT_MS);
+        try(InputStream is = connection.getInputStream()) {
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int length;
+            while((length = is.read(buffer)) > 0) {
+                content.write(buffer, 0, length);
+            }
+            return new String(content.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -30,11 +30,20 @@ import org.eclipse.microprofile.jwt.JsonWebToken;
  */
 public class JWTAccount implements Account {
     private JsonWebToken principal;
-    private Account delegate;
+    private Set<String> roles;
 
     public JWTAccount(JsonWebToken principal, Account delegate) {
+        this(principal, delegate.getRoles());
+    }
+
+    /**
+     *
+     * @param principal - the validated token principal
+     * @param roles - the caller roles
+     */
+    public JWTAccount(JsonWebToken principal, Set<String> roles) {
         this.principal = principal;
-        this.delegate = delegate;
+        this.roles = roles;
     }
 
     @Override
@@ -44,7 +53,7 @@ public class JWTAccount implements Account {
 
     @Override
     public Set<String> getRoles() {
-        return delegate.getRoles();
+        return roles;
     }
 
 }
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2016-2017 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file(s) distributed with this work for additional
+ *  information regarding copyright ownership.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  You may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.eclipse.microprofile.jwt.wfswarm;
+
+import java.io.IOException;
+import java.security.Key;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.eclipse.microprofile.jwt.principal.JWTCallerPrincipal;
+import org.eclipse.microprofile.jwt.wfswarm.cdi.SharedClaimValues;
+import org.jboss.logging.Logger;
+import org.jose4j.keys.resolvers.VerificationKeyResolver;
+import org.jose4j.lang.JoseException;
+
+/**
+ * The JWTAuthManagerMXBean of the MP-JWT mechanism of a deployment, registered by the JWTAuthMechanismFactory
+ */
+public class JWTAuthManager implements JWTAuthManagerMXBean {
+    private static Logger log = Logger.getLogger(JWTAuthManager.class);
+
+    private final List<IssuerContext> issuers;
+    private final TokenCache<JWTCallerPrincipal> tokenCache;
+    private final JWTAuthMechanism mechanism;
+    private final DeploymentRoleMappers roleMappers;
+    private final AuthMetrics metrics;
+
+    /**
+     *
+     * @param issuers - the accepted issuers
+     * @param tokenCache - the validated token cache shared by the issuers, may be null
+     * @param mechanism - the mechanism, which holds the rejected token cache
+     * @param roleMappers - the role mappings of the deployment, shared by the mechanism and the JWTLoginModule
+     * @param metrics - the metrics of the mechanism
+     */
+    public JWTAuthManager(List<IssuerContext> issuers, TokenCache<JWTCallerPrincipal> tokenCache,
+                          JWTAuthMechanism mechanism, DeploymentRoleMappers roleMappers, AuthMetrics metrics) {
+        this.issuers = issuers;
+        this.tokenCache = tokenCache;
+        this.mechanism = mechanism;
+        this.roleMappers = roleMappers;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public String[] getIssuers() {
+        String[] names = new String[issuers.size()];
+        for(int n = 0; n < names.length; n ++) {
+            names[n] = issuers.get(n).getIssuer();
+        }
+        return names;
+    }
+
+    @Override
+    public Map<String, List<String>> getKeyIds() {
+        TreeMap<String, List<String>> keyIds = new TreeMap<>();
+        for(IssuerContext issuer : issuers) {
+            TokenValidator validator = issuer.getValidator();
+            VerificationKeyResolver keyResolver = validator.getKeyResolver();
+            List<String> kids = new ArrayList<>();
+            if(keyResolver instanceof JWKSKeyResolver) {
+                kids.addAll(((JWKSKeyResolver) keyResolver).getKeyIds());
+            } else if(keyResolver == null && validator.getVerificationKey() != null) {
+                // A signerPubKey has no kid
+                Key key = validator.getVerificationKey();
+                kids.add("signerPubKey ("+key.getAlgorithm()+")");
+            }
+            keyIds.put(issuer.getIssuer(), kids);
+        }
+        return keyIds;
+    }
+
+    @Override
+    public int getTokenCacheSize() {
+        return tokenCache != null ? tokenCache.size() : -1;
+    }
+
+    @Override
+    public int getTokenCacheMaxSize() {
+        return tokenCache != null ? tokenCache.getMaxSize() : 0;
+    }
+
+    @Override
+    public double getTokenCacheHitRatio() {
+        if(tokenCache == null) {
+            return Double.NaN;
+        }
+        long hits = tokenCache.getHitCount();
+        long lookups = hits + tokenCache.getMissCount();
+        return lookups > 0 ? (double) hits / lookups : Double.NaN;
+    }
+
+    @Override
+    public int getRejectedTokenCacheSize() {
+        TokenCache<String> rejectedTokens = mechanism.getRejectedTokenCache();
+        return rejectedTokens != null ? rejectedTokens.size() : -1;
+    }
+
+    @Override
+    public long getRejectedTokenTtlSeconds() {
+        return mechanism.getRejectedTokenTtlMillis() / 1000;
+    }
+
+    @Override
+    public void setRejectedTokenTtlSeconds(long ttlSecs) {
+        if(ttlSecs < 0) {
+            throw new IllegalArgumentException("ttlSecs must be >= 0, was: "+ttlSecs);
+        }
+        mechanism.setRejectedTokenTtlMillis(ttlSecs * 1000);
+        log.infof("Set rejected token TTL to: %d seconds", ttlSecs);
+    }
+
+    @Override
+    public Map<String, Long> getFailureCounts() {
+        return metrics.getFailureCounts();
+    }
+
+    @Override
+    public void flushTokenCache() {
+        if(tokenCache != null) {
+            tokenCache.invalidateAll();
+            log.info("Flushed the validated token cache");
+        }
+        // The claim values of a token are only shared while the token would be accepted from the cache
+        SharedClaimValues sharedClaimValues = mechanism.getSharedClaimValues();
+        if(sharedClaimValues != null) {
+            sharedClaimValues.invalidateAll();
+        }
+    }
+
+    @Override
+    public void flushRejectedTokens() {
+        TokenCache<String> rejectedTokens = mechanism.getRejectedTokenCache();
+        if(rejectedTokens != null) {
+            rejectedTokens.invalidateAll();
+            log.info("Flushed the rejected token cache");
+        }
+    }
+
+    @Override
+    public void reloadKeys() throws IOException {
+        for(IssuerContext issuer : issuers) {
+            VerificationKeyResolver keyResolver = issuer.getValidator().getKeyResolver();
+            if(keyResolver instanceof JWKSKeyResolver) {
+                try {
+                    ((JWKSKeyResolver) keyResolver).refresh();
+                } catch (JoseException e) {
+                    // Only the message is passed on, since a remote JMX client may not have the jose4j classes
+                    throw new IOException("Invalid JWKS for issuer "+issuer.getIssuer()+": "+e.getMessage());
+                }
+            }
+        }
+        // Tokens signed by a removed key must not be accepted from the cache
+        flushTokenCache();
+        flushRejectedTokens();
+        log.info("Reloaded the verification keys");
+    }
+
+    @Override
+    public void reloadRoleMappings() throws IOException {
+        roleMappers.reload();
+        log.info("Reloaded the role mappings");
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2016-2017 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file(s) distributed with this work for additional
+ *  information regarding copyright ownership.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  You may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.eclipse.microprofile.jwt.wfswarm;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The JMX management interface of the MP-JWT mechanism of a deployment, for inspecting the accepted issuers, their
+ * keys and the token caches, and for flushing the caches or reloading the keys and role mappings without a restart.
+ * As an MXBean its maps are exposed as TabularData, so any JMX client can read them without the mechanism classes.
+ */
+public interface JWTAuthManagerMXBean {
+    /**
+     * @return the accepted issuers
+     */
+    String[] getIssuers();
+
+    /**
+     * @return the key ids of the current verification keys by issuer
+     */
+    Map<String, List<String>> getKeyIds();
+
+    /**
+     * @return the number of cached validated tokens, -1 if there is no token cache
+     */
+    int getTokenCacheSize();
+
+    /**
+     * @return the maximum number of cached validated tokens, 0 if there is no token cache
+     */
+    int getTokenCacheMaxSize();
+
+    /**
+     * @return the validated token cache hit ratio, NaN if there were no lookups or there is no token cache
+     */
+    double getTokenCacheHitRatio();
+
+    /**
+     * @return the number of remembered rejected tokens, -1 if there is no rejected token cache
+     */
+    int getRejectedTokenCacheSize();
+
+    /**
+     * @return how many seconds a rejected token is rejected without validation
+     */
+    long getRejectedTokenTtlSeconds();
+
+    /**
+     * @param ttlSecs - how many seconds a token rejected from now on is rejected without validation
+     */
+    void setRejectedTokenTtlSeconds(long ttlSecs);
+
+    /**
+     * @return the number of rejected tokens by failure reason
+     */
+    Map<String, Long> getFailureCounts();
+
+    /**
+     * Drop all cached validated tokens and their shared claim values, so every token is validated again against
+     * the current keys
+     */
+    void flushTokenCache();
+
+    /**
+     * Drop all remembered rejected tokens
+     */
+    void flushRejectedTokens();
+
+    /**
+     * Reload the JWKS of every issuer that uses one, and drop the cached validated tokens
+     * @throws IOException - on failure to load a JWKS
+     */
+    void reloadKeys() throws IOException;
+
+    /**
+     * Reload the role mapping files of the deployment, including those of its JWTLoginModule
+     * @throws IOException - on failure to read a role mapping
+     */
+    void reloadRoleMappings() throws IOException;
+}
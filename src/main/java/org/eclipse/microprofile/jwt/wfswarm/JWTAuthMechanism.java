@@ -21,9 +21,10 @@ package org.eclipse.microprofile.jwt.wfswarm;
 
 import java.security.Principal;
 import java.security.acl.Group;
-import java.util.List;
-import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
 
 import javax.security.auth.Subject;
 
@@ -33,13 +34,23 @@ import io.undertow.security.api.SecurityContext;
 import io.undertow.security.idm.Account;
 import io.undertow.security.idm.IdentityManager;
 import io.undertow.server.HttpServerExchange;
+import io.undertow.server.handlers.Cookie;
+import io.undertow.util.HeaderMap;
+import io.undertow.util.HeaderValues;
+import io.undertow.util.HttpString;
 import org.eclipse.microprofile.jwt.JsonWebToken;
 import org.eclipse.microprofile.jwt.principal.JWTAuthContextInfo;
+import org.eclipse.microprofile.jwt.principal.JWTCallerPrincipal;
+import org.eclipse.microprofile.jwt.principal.ParseException;
 import org.eclipse.microprofile.jwt.wfswarm.cdi.MPJWTProducer;
+import org.eclipse.microprofile.jwt.wfswarm.cdi.SharedClaimValues;
 import org.eclipse.microprofile.jwt.wfswarm.jaas.JWTCredential;
 import org.jboss.security.SecurityConstants;
 import org.jboss.security.SecurityContextAssociation;
+import org.jboss.security.SimpleGroup;
+import org.jboss.security.SimplePrincipal;
 import org.jboss.security.identity.RoleGroup;
+import org.jboss.security.identity.plugins.SimpleRole;
 import org.jboss.security.identity.plugins.SimpleRoleGroup;
 
 import static io.undertow.util.Headers.AUTHORIZATION;
@@ -50,67 +61,373 @@ import static io.undertow.util.StatusCodes.UNAUTHORIZED;
  * An AuthenticationMechanism that validates a caller based on a MicroProfile JWT bearer token
  */
 public class JWTAuthMechanism implements AuthenticationMechanism {
-    private JWTAuthContextInfo authContextInfo;
+    private static final String BEARER = "Bearer ";
+    private IssuerRegistry issuers;
+    /** The default in-process role mapping used when authenticating without the JAAS login module stack */
+    private RoleMapper roleMapper;
+    /** Whether the legacy org.jboss.security.SecurityContext needs to be updated for EJB security */
+    private boolean ejbSecurity = true;
+    private AuthAuditor auditor = AuthAuditor.DISABLED;
+    /** The rejection status codes of recently rejected tokens by token digest, null if not enabled */
+    private TokenCache<String> rejectedTokens;
+    private volatile long rejectedTokenTtlMillis;
+    /** The claim values shared by the requests presenting the same bearer token, null if not enabled */
+    private SharedClaimValues sharedClaimValues;
+    /** The deployment role index the caller roles are represented over */
+    private RoleIndex roleIndex = RoleIndex.EMPTY;
     private IdentityManager identityManager;
+    private AuthMetrics metrics = AuthMetrics.DISABLED;
+    /** The request header carrying the token, and whether its value has to start with the Bearer scheme */
+    private HttpString tokenHeader = AUTHORIZATION;
+    private boolean bearerSchemeRequired = true;
+    /** The name of the cookie carrying the token, null if only the header is checked */
+    private String tokenCookie;
 
     public JWTAuthMechanism(JWTAuthContextInfo authContextInfo) {
-        this.authContextInfo = authContextInfo;
+        this(authContextInfo, null);
     }
 
     /**
-     * Extract the Authorization header and validate the bearer token if it exists. If it does, and is validated, this
-     * builds the org.jboss.security.SecurityContext authenticated Subject that drives the container APIs as well as
-     * the authorization layers.
+     *
+     * @param authContextInfo - the token validation information
+     * @param tokenCache - an optional cache of validated tokens shared by all requests, may be null
+     */
+    public JWTAuthMechanism(JWTAuthContextInfo authContextInfo, TokenCache<JWTCallerPrincipal> tokenCache) {
+        this(new TokenValidator(authContextInfo, tokenCache));
+    }
+
+    /**
+     *
+     * @param validator - the token validator used by the JWTLoginModule
+     */
+    public JWTAuthMechanism(TokenValidator validator) {
+        this.issuers = new IssuerRegistry(new IssuerContext(validator, null));
+    }
+
+    /**
+     * Create a mechanism that validates the token and maps its groups to roles directly rather than going through
+     * the IdentityManager and JAAS login module stack of the security domain.
+     *
+     * @param validator - the token validator
+     * @param roleMapper - the group to role mapping
+     * @param ejbSecurity - whether the legacy org.jboss.security.SecurityContext should be populated for EJB security
+     */
+    public JWTAuthMechanism(TokenValidator validator, RoleMapper roleMapper, boolean ejbSecurity) {
+        this(new IssuerRegistry(new IssuerContext(validator, null)), roleMapper, ejbSecurity);
+    }
+
+    /**
+     * Create a mechanism that accepts the tokens of several issuers, validating each token with the context selected
+     * by its iss claim.
+     *
+     * @param issuers - the accepted issuers
+     * @param roleMapper - the default group to role mapping for direct authentication, or null to authenticate
+     *                   through the IdentityManager and JAAS login module stack of the security domain
+     * @param ejbSecurity - whether the legacy org.jboss.security.SecurityContext should be populated for EJB security
+     */
+    public JWTAuthMechanism(IssuerRegistry issuers, RoleMapper roleMapper, boolean ejbSecurity) {
+        this.issuers = issuers;
+        this.roleMapper = roleMapper;
+        this.ejbSecurity = ejbSecurity;
+    }
+
+    public void setAuditor(AuthAuditor auditor) {
+        this.auditor = auditor;
+    }
+
+    /**
+     * Enable the rejection of tokens that recently failed validation without repeating the validation, so that a
+     * client retrying with an expired or forged token costs a digest lookup rather than a signature verification
+     * and login attempt. Only the definitive validation failures are remembered, see
+     * {@link ValidationResult#isDefinitive()}, so a token signed with a key that the JWKS does not publish yet, or
+     * one that failed the login for another reason, is validated again on the next request.
+     * @param rejectedTokens - the cache of ValidationResult.Status names by token digest
+     * @param ttlMillis - how long a token stays rejected
+     */
+    public void setRejectedTokenCache(TokenCache<String> rejectedTokens, long ttlMillis) {
+        this.rejectedTokens = rejectedTokens;
+        this.rejectedTokenTtlMillis = ttlMillis;
+    }
+
+    /**
+     * @return the cache of recently rejected tokens, null if not enabled
+     */
+    public TokenCache<String> getRejectedTokenCache() {
+        return rejectedTokens;
+    }
+
+    public long getRejectedTokenTtlMillis() {
+        return rejectedTokenTtlMillis;
+    }
+
+    /**
+     * Change how long a token stays rejected, which applies to the tokens rejected from now on
+     * @param ttlMillis - how long a token stays rejected
+     */
+    public void setRejectedTokenTtlMillis(long ttlMillis) {
+        this.rejectedTokenTtlMillis = ttlMillis;
+    }
+
+    /**
+     * Share the claim values resolved for the injection sites of a request with the later requests that present the
+     * same bearer token, until the token expires
+     * @param sharedClaimValues - the claim values of the deployment, flushed along with the validated token cache
+     */
+    public void setSharedClaimValues(SharedClaimValues sharedClaimValues) {
+        this.sharedClaimValues = sharedClaimValues;
+    }
+
+    /**
+     * @return the claim values shared by the requests of the deployment, null if not enabled
+     */
+    public SharedClaimValues getSharedClaimValues() {
+        return sharedClaimValues;
+    }
+
+    /**
+     * Record the outcomes, failure reasons and stage latencies of the authentications
+     * @param metrics - the deployment metrics
+     */
+    public void setMetrics(AuthMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Set the index of the roles the deployment checks, so that the caller roles are held as a RoleSet over it and
+     * a role check is a bit test.
+     * @param roleIndex - the deployment role index
+     */
+    public void setRoleIndex(RoleIndex roleIndex) {
+        this.roleIndex = roleIndex;
+    }
+
+    /**
+     * Set where the token is taken from. The Authorization header value has to use the Bearer scheme, while any
+     * other header value may omit it, and a cookie value is the token itself.
+     *
+     * Unlike a header, a cookie is sent by the browser on cross-site requests as well, so a deployment taking the
+     * token from a cookie is exposed to cross-site request forgery. The cookie has to be issued with SameSite=Strict
+     * or Lax, as well as Secure and HttpOnly, and state changing requests need their own CSRF protection, e.g. a
+     * synchronizer token or a custom request header check.
+     * @param headerName - the name of the request header carrying the token, null for Authorization
+     * @param cookieName - the name of a cookie carrying the token when the header is missing, may be null
+     */
+    public void setTokenLocation(String headerName, String cookieName) {
+        if(headerName == null || AUTHORIZATION.equalToString(headerName)) {
+            this.tokenHeader = AUTHORIZATION;
+            this.bearerSchemeRequired = true;
+        } else {
+            this.tokenHeader = new HttpString(headerName);
+            this.bearerSchemeRequired = false;
+        }
+        this.tokenCookie = cookieName;
+    }
+
+    /**
+     * Extract the bearer token from the Authorization header, or from the configured token header or cookie. A
+     * request without a token is not attempted. Otherwise the token is validated, and a valid token becomes the
+     * authenticated account of the request along with the org.jboss.security.SecurityContext Subject that drives
+     * the container APIs and the authorization layers.
      * @param exchange - the http request exchange object
-     * @param securityContext - the current security context that
-     * @return one of AUTHENTICATED, NOT_AUTHENTICATED or NOT_ATTEMPTED depending on the header and authentication outcome.
+     * @param securityContext - the current security context, which receives the authenticated account
+     * @return NOT_ATTEMPTED without a token, else AUTHENTICATED or NOT_AUTHENTICATED by the validation outcome
      */
     @Override
     public AuthenticationMechanismOutcome authenticate(HttpServerExchange exchange, SecurityContext securityContext) {
-        List<String> authHeaders = exchange.getRequestHeaders().get(AUTHORIZATION);
-        if (authHeaders != null) {
-            String bearerToken = null;
-            for (String current : authHeaders) {
-                if (current.toLowerCase(Locale.ENGLISH).startsWith("bearer ")) {
-                    bearerToken = current.substring(7);
-                    if(UndertowLogger.SECURITY_LOGGER.isTraceEnabled())
-                        UndertowLogger.SECURITY_LOGGER.tracef("Bearer token: %s", bearerToken);
-                    try {
-                        identityManager = securityContext.getIdentityManager();
-                        JWTCredential credential = new JWTCredential(bearerToken, authContextInfo);
-                        if(UndertowLogger.SECURITY_LOGGER.isTraceEnabled())
-                            UndertowLogger.SECURITY_LOGGER.tracef("Bearer token: %s", bearerToken);
-                        // Install the JWT principal as the caller
-                        Account account = identityManager.verify(credential.getName(), credential);
-                        if(account != null) {
-                            JsonWebToken jwtPrincipal = (JsonWebToken) account.getPrincipal();
-                            MPJWTProducer.setJWTPrincipal(jwtPrincipal);
-                            JWTAccount jwtAccount = new JWTAccount(jwtPrincipal, account);
-                            securityContext.authenticationComplete(jwtAccount, "MP-JWT", false);
-                            // Workaround authenticated JsonWebToken not being installed as user principal
-                            // https://issues.jboss.org/browse/WFLY-9212
-                            org.jboss.security.SecurityContext jbSC = SecurityContextAssociation.getSecurityContext();
-                            Subject subject = jbSC.getUtil().getSubject();
-                            jbSC.getUtil().createSubjectInfo(jwtPrincipal, bearerToken, subject);
-                            RoleGroup roles = extract(subject);
-                            jbSC.getUtil().setRoles(roles);
-                            UndertowLogger.SECURITY_LOGGER.infof("Authenticated caller(%s) for path(%s) with roles: %s",
-                                    credential.getName(), exchange.getRequestPath(), account.getRoles());
-                            return AuthenticationMechanismOutcome.AUTHENTICATED;
-                        } else {
-                            UndertowLogger.SECURITY_LOGGER.info("Failed to authenticate JWT bearer token");
-                            return AuthenticationMechanismOutcome.NOT_AUTHENTICATED;
-                        }
-                    } catch (Exception e) {
-                        UndertowLogger.SECURITY_LOGGER.debugf(e, "Failed to validate JWT bearer token");
-                        return AuthenticationMechanismOutcome.NOT_AUTHENTICATED;
+        String bearerToken = extractToken(exchange.getRequestHeaders(), exchange::getRequestCookies);
+        if (bearerToken == null) {
+            // No suitable header or cookie has been found in this request
+            metrics.outcome(AuthenticationMechanismOutcome.NOT_ATTEMPTED);
+            return AuthenticationMechanismOutcome.NOT_ATTEMPTED;
+        }
+        long start = metrics.start();
+        AuthenticationMechanismOutcome outcome = authenticate(exchange, securityContext, bearerToken);
+        metrics.record(AuthMetrics.Stage.TOTAL, start);
+        metrics.outcome(outcome);
+        return outcome;
+    }
+
+    /**
+     * Validate a bearer token and install the caller account of a valid token
+     * @param exchange - the http request exchange object
+     * @param securityContext - the current security context
+     * @param bearerToken - the token of the request
+     * @return AUTHENTICATED or NOT_AUTHENTICATED
+     */
+    private AuthenticationMechanismOutcome authenticate(HttpServerExchange exchange, SecurityContext securityContext,
+                                                        String bearerToken) {
+        JWTCredential credential = new JWTCredential(bearerToken, issuers);
+        if(UndertowLogger.SECURITY_LOGGER.isTraceEnabled())
+            UndertowLogger.SECURITY_LOGGER.tracef("Bearer token fingerprint: %s", AuthAuditor.fingerprint(credential.getTokenDigest()));
+        if(rejectedTokens != null) {
+            String status = rejectedTokens.get(credential.getTokenDigest());
+            if(status != null) {
+                UndertowLogger.SECURITY_LOGGER.debugf("Rejected previously invalid JWT bearer token: %s", status);
+                metrics.failure(AuthMetrics.CACHED_REJECTION);
+                if(auditor.sample()) {
+                    audit(AuthAuditEvent.Outcome.NOT_AUTHENTICATED, exchange, credential, null, status);
+                }
+                return AuthenticationMechanismOutcome.NOT_AUTHENTICATED;
+            }
+        }
+        // Validate before any login attempt, so a rejected token does not go through the exceptions of
+        // the login module stack
+        ValidationResult result = credential.getValidationResult();
+        if(!result.isValid()) {
+            String reason = result.getReason();
+            UndertowLogger.SECURITY_LOGGER.debugf("Rejected JWT bearer token: %s", reason);
+            metrics.failure(result.getStatus().name());
+            if(result.isDefinitive()) {
+                reject(credential, result.getStatus());
+            }
+            if(auditor.sample()) {
+                audit(AuthAuditEvent.Outcome.NOT_AUTHENTICATED, exchange, credential, null, reason);
+            }
+            return AuthenticationMechanismOutcome.NOT_AUTHENTICATED;
+        }
+        try {
+            if(roleMapper != null) {
+                return authenticateDirect(exchange, securityContext, credential);
+            }
+            identityManager = securityContext.getIdentityManager();
+            // Install the JWT principal as the caller
+            long start = metrics.start();
+            Account account = identityManager.verify(credential.getName(), credential);
+            metrics.record(AuthMetrics.Stage.LOGIN, start);
+            if(account != null) {
+                JsonWebToken jwtPrincipal = (JsonWebToken) account.getPrincipal();
+                setJWTPrincipal(exchange, jwtPrincipal, credential);
+                JWTAccount jwtAccount = new JWTAccount(jwtPrincipal, roleIndex.toRoleSet(account.getRoles()));
+                securityContext.authenticationComplete(jwtAccount, "MP-JWT", false);
+                // Workaround authenticated JsonWebToken not being installed as user principal
+                // https://issues.jboss.org/browse/WFLY-9212
+                org.jboss.security.SecurityContext jbSC = SecurityContextAssociation.getSecurityContext();
+                Subject subject = jbSC.getUtil().getSubject();
+                jbSC.getUtil().createSubjectInfo(jwtPrincipal, bearerToken, subject);
+                RoleGroup roles = extract(subject);
+                jbSC.getUtil().setRoles(roles);
+                if(auditor.sample()) {
+                    audit(AuthAuditEvent.Outcome.AUTHENTICATED, exchange, credential, account.getRoles(), null);
+                }
+                return AuthenticationMechanismOutcome.AUTHENTICATED;
+            } else {
+                UndertowLogger.SECURITY_LOGGER.debug("Failed to authenticate JWT bearer token");
+                metrics.failure(AuthMetrics.NO_ACCOUNT);
+                if(auditor.sample()) {
+                    audit(AuthAuditEvent.Outcome.NOT_AUTHENTICATED, exchange, credential, null, "No account");
+                }
+                return AuthenticationMechanismOutcome.NOT_AUTHENTICATED;
+            }
+        } catch (Exception e) {
+            UndertowLogger.SECURITY_LOGGER.debugf(e, "Failed to validate JWT bearer token");
+            metrics.failure(AuthMetrics.LOGIN_ERROR);
+            if(auditor.sample()) {
+                audit(AuthAuditEvent.Outcome.NOT_AUTHENTICATED, exchange, credential, null, e.getMessage());
+            }
+            return AuthenticationMechanismOutcome.NOT_AUTHENTICATED;
+        }
+    }
+
+    /**
+     * Find the token of a request in the token header, or else in the token cookie. The Bearer scheme is matched
+     * case insensitively and in place, so the token is the only copy made of the header value.
+     * @param requestHeaders - the request headers
+     * @param requestCookies - the request cookies, which are only parsed if the headers carry no token
+     * @return the token, null if the request has none
+     */
+    public String extractToken(HeaderMap requestHeaders, Supplier<Map<String, Cookie>> requestCookies) {
+        HeaderValues values = requestHeaders.get(tokenHeader);
+        if (values != null) {
+            for (String current : values) {
+                if (current.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+                    if (current.length() > BEARER.length()) {
+                        return current.substring(BEARER.length());
                     }
+                } else if (!bearerSchemeRequired && current.length() > 0) {
+                    return current;
+                }
+            }
+        }
+        if (tokenCookie != null) {
+            Cookie cookie = requestCookies.get().get(tokenCookie);
+            if (cookie != null && cookie.getValue() != null && cookie.getValue().length() > 0) {
+                return cookie.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Build the caller Account of a validated token from its groups claim without going through the
+     * IdentityManager, using the role mapping of the token issuer if it has one. The legacy
+     * org.jboss.security.SecurityContext is only populated if EJB security is enabled and there is a SecurityContext
+     * associated with the request.
+     * @param exchange - the http request exchange object
+     * @param securityContext - the current security context
+     * @param credential - the bearer token credential
+     * @return AUTHENTICATED
+     * @throws ParseException - thrown if the token issuer is not accepted
+     */
+    private AuthenticationMechanismOutcome authenticateDirect(HttpServerExchange exchange, SecurityContext securityContext,
+                                                              JWTCredential credential) throws ParseException {
+        IssuerContext issuer = credential.getIssuerContext();
+        JWTCallerPrincipal jwtPrincipal = credential.getValidationResult().getPrincipal();
+        RoleMapper issuerRoleMapper = issuer.getRoleMapper() != null ? issuer.getRoleMapper() : roleMapper;
+        long start = metrics.start();
+        Set<String> roles = roleIndex.toRoleSet(issuerRoleMapper.mapRoles(jwtPrincipal.getGroups()));
+        metrics.record(AuthMetrics.Stage.ROLE_MAPPING, start);
+        setJWTPrincipal(exchange, jwtPrincipal, credential);
+        JWTAccount jwtAccount = new JWTAccount(jwtPrincipal, roles);
+        securityContext.authenticationComplete(jwtAccount, "MP-JWT", false);
+        if(ejbSecurity) {
+            org.jboss.security.SecurityContext jbSC = SecurityContextAssociation.getSecurityContext();
+            if(jbSC != null) {
+                Subject subject = new Subject();
+                subject.getPrincipals().add(jwtPrincipal);
+                SimpleGroup rolesGroup = new SimpleGroup(SecurityConstants.ROLES_IDENTIFIER);
+                SimpleRoleGroup roleGroup = new SimpleRoleGroup(SecurityConstants.ROLES_IDENTIFIER);
+                for(String role : roles) {
+                    rolesGroup.addMember(new SimplePrincipal(role));
+                    roleGroup.addRole(new SimpleRole(role));
                 }
+                subject.getPrincipals().add(rolesGroup);
+                jbSC.getUtil().createSubjectInfo(jwtPrincipal, credential.getBearerToken(), subject);
+                jbSC.getUtil().setRoles(roleGroup);
             }
         }
+        if(auditor.sample()) {
+            audit(AuthAuditEvent.Outcome.AUTHENTICATED, exchange, credential, roles, null);
+        }
+        return AuthenticationMechanismOutcome.AUTHENTICATED;
+    }
+
+    /**
+     * Install the authenticated token of the request for the claim injection producers
+     */
+    private void setJWTPrincipal(HttpServerExchange exchange, JsonWebToken jwtPrincipal, JWTCredential credential)
+            throws ParseException {
+        long expiresAt = 0;
+        if(sharedClaimValues != null) {
+            expiresAt = credential.getIssuerContext().getValidator().getCacheExpiration(jwtPrincipal);
+        }
+        MPJWTProducer.setJWTPrincipal(exchange, jwtPrincipal, sharedClaimValues, credential.getTokenDigest(), expiresAt);
+    }
+
+    /**
+     * Remember a token that definitively failed validation for the rejected token TTL. Only the status is kept, as
+     * the failure message may carry token content.
+     */
+    private void reject(JWTCredential credential, ValidationResult.Status status) {
+        if(rejectedTokens != null) {
+            rejectedTokens.put(credential.getTokenDigest(), status.name(),
+                    System.currentTimeMillis() + rejectedTokenTtlMillis);
+        }
+    }
 
-        // No suitable header has been found in this request,
-        return AuthenticationMechanismOutcome.NOT_ATTEMPTED;
+    private void audit(AuthAuditEvent.Outcome outcome, HttpServerExchange exchange, JWTCredential credential,
+                       Set<String> roles, String reason) {
+        String fingerprint = AuthAuditor.fingerprint(credential.getTokenDigest());
+        auditor.audit(new AuthAuditEvent(outcome, credential.getName(), exchange.getRequestPath(), fingerprint, roles, reason));
     }
 
     @Override
@@ -23,33 +23,138 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
 import java.net.URL;
+import java.security.PublicKey;
 import java.security.interfaces.RSAPublicKey;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 import io.undertow.security.api.AuthenticationMechanism;
 import io.undertow.security.api.AuthenticationMechanismFactory;
 import io.undertow.server.handlers.form.FormParserFactory;
 import org.eclipse.microprofile.jwt.principal.JWTAuthContextInfo;
+import org.eclipse.microprofile.jwt.principal.JWTCallerPrincipal;
+import org.eclipse.microprofile.jwt.wfswarm.cdi.SharedClaimValues;
 import org.jboss.logging.Logger;
 
 /**
- * A AuthenticationMechanismFactory for the MicroProfile JWT RBAC
+ * A AuthenticationMechanismFactory for the MicroProfile JWT RBAC. The mechanism is configured by the query parameters
+ * of the web.xml/login-config/auth-method value:
+ * <ul>
+ * <li>issuedBy - the expected iss claim value, required</li>
+ * <li>signerPubKey - the PEM encoded RSA, RSA-PSS, EC or Ed25519 verification key, default the signerPubKeyLocation
+ * content or else the /META-INF/MP-JWT-SIGNER resource</li>
+ * <li>signerPubKeyLocation - the URL or resource name of the signerPubKey, default none</li>
+ * <li>jwksUri - the URL or resource name of a JSON Web Key Set selecting the verification key by the token kid
+ * instead of the signerPubKey, default none</li>
+ * <li>jwksRefreshInterval - the nominal seconds between JWKS reloads, default {@value #DEFAULT_JWKS_REFRESH_SECS}</li>
+ * <li>jwksMinRefreshInterval - the minimum seconds between JWKS reloads triggered by an unknown kid, default
+ * {@value #DEFAULT_JWKS_MIN_REFRESH_SECS}</li>
+ * <li>jwsAlgorithms - the accepted token alg values, e.g. ES256,RS256, default the one matching the signerPubKey</li>
+ * <li>jcaProvider - the JCA provider used for signature verification, default the platform provider</li>
+ * <li>expGracePeriodSecs - the allowed clock skew of the exp claim, default the JWTAuthContextInfo grace period</li>
+ * <li>audience - the accepted aud claim values, e.g. aud1,aud2, default any</li>
+ * <li>issuersConfig - a properties resource of several accepted issuers, read as name.issuedBy, name.jwksUri and so
+ * on for each issuer name, default none</li>
+ * <li>tokenCacheSize - the maximum number of validated tokens to cache, 0 disabling the cache, default
+ * {@value #DEFAULT_TOKEN_CACHE_SIZE}</li>
+ * <li>rejectedTokenCacheSize - the maximum number of tokens that failed validation to remember, 0 disabling the
+ * rejected token cache, default {@value #DEFAULT_REJECTED_TOKEN_CACHE_SIZE}</li>
+ * <li>rejectedTokenTtl - the seconds a remembered token is rejected without validation, default
+ * {@value #DEFAULT_REJECTED_TOKEN_TTL_SECS}</li>
+ * <li>directAuth - true to validate the token and map its groups to roles in the mechanism rather than through the
+ * security domain login modules, default false</li>
+ * <li>rolesProperties - the group to role mapping resource used with directAuth, default none</li>
+ * <li>ejbSecurity - false to skip populating the legacy security context with directAuth, default true</li>
+ * <li>tokenHeader - the header the token is read from, default the Authorization Bearer header</li>
+ * <li>tokenCookie - the cookie checked if there is no token header, default none. A token cookie exposes the
+ * deployment to cross-site request forgery, so it has to be issued with SameSite=Strict or Lax, and state changing
+ * requests need their own CSRF protection</li>
+ * <li>auditSampleRate - audit 1 in auditSampleRate authentication events, 0 disabling the audit, default 0</li>
+ * <li>auditMaxPerSecond - the limit of audited events per second, default {@value #DEFAULT_AUDIT_MAX_PER_SECOND}</li>
+ * <li>auditListener - the AuthAuditListener class receiving the audited events, default the audit log category</li>
+ * <li>metrics - false to not register the org.eclipse.microprofile.jwt:type=AuthMetrics,deployment=name MXBean,
+ * default true. The issuers, keys and caches can be managed through the JWTAuthManager MXBean of the same
+ * deployment</li>
+ * </ul>
  */
 public class JWTAuthMechanismFactory implements AuthenticationMechanismFactory {
     private static Logger log = Logger.getLogger(JWTAuthMechanismFactory.class);
+    /** The default maximum number of validated tokens cached per deployment */
+    public static final int DEFAULT_TOKEN_CACHE_SIZE = 1000;
+    /** The default maximum number of rejected tokens remembered per deployment */
+    public static final int DEFAULT_REJECTED_TOKEN_CACHE_SIZE = 1000;
+    /** The default number of seconds a rejected token is rejected without validation */
+    public static final long DEFAULT_REJECTED_TOKEN_TTL_SECS = 10;
+    /** The default nominal interval in seconds between JWKS reloads */
+    public static final long DEFAULT_JWKS_REFRESH_SECS = 600;
+    /** The default minimum interval in seconds between JWKS reloads triggered by an unknown kid */
+    public static final long DEFAULT_JWKS_MIN_REFRESH_SECS = 30;
+    /** The default limit of audited authentication events per second */
+    public static final int DEFAULT_AUDIT_MAX_PER_SECOND = 100;
+    /** The auth-method properties that apply to every issuer of an issuersConfig */
+    private static final String[] INHERITED_ISSUER_PROPERTIES = {
+            "jwsAlgorithms", "jcaProvider", "jwksRefreshInterval", "jwksMinRefreshInterval", "expGracePeriodSecs", "audience"
+    };
+    private final List<JWKSKeyResolver> keyResolvers = new CopyOnWriteArrayList<>();
+    /** The role mappings of the deployment shared with its JWTLoginModule, null until create is called */
+    private volatile DeploymentRoleMappers roleMappers;
+    /** The validated token cache of the deployment and the claim values shared along with it, null if disabled */
+    private volatile TokenCache<JWTCallerPrincipal> tokenCache;
+    private volatile SharedClaimValues sharedClaimValues;
+    /** The authentication metrics of the deployment */
+    private final AuthMetrics metrics = new AuthMetrics();
+    /** The names of the MBeans registered in the platform MBeanServer for the deployment */
+    private final List<ObjectName> mbeanNames = new CopyOnWriteArrayList<>();
+    private String deploymentName;
+    /** The role names the deployment security constraints and role references check */
+    private final Set<String> deploymentRoles = new LinkedHashSet<>();
+
+    /**
+     * Set the name of the deployment, which identifies its metrics MBean
+     * @param deploymentName - the deployment name
+     */
+    public void setDeploymentName(String deploymentName) {
+        this.deploymentName = deploymentName;
+    }
+
+    /**
+     * @return the authentication metrics of the deployment
+     */
+    public AuthMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Add the role names the deployment checks, which are indexed along with the mapped roles so that the caller
+     * roles of the mechanism are held as a bitset over them.
+     * @param roles - the deployment role names
+     */
+    public void addDeploymentRoles(Collection<String> roles) {
+        deploymentRoles.addAll(roles);
+    }
 
     /**
      * This builds the JWTAuthMechanism with a JWTAuthContextInfo containing the issuer and signer public key needed
      * to validate the token. This information is currently taken from the query parameters passed in via the
      * web.xml/login-config/auth-method value. We may need a better way to do this in the future.
      *
-     * TODO: externalize the {@link JWTAuthContextInfo#getExpGracePeriodSecs()}
-     *
      * @param mechanismName - the login-config/auth-method, which will be MP-JWT for JWTAuthMechanism
      * @param formParserFactory - unused form type of authentication factory
-     * @param properties - the query parameters from the web.xml/login-config/auth-method value. We expect an issuedBy
-     *                   and signerPubKey property to use for token validation.
+     * @param properties - the query parameters from the web.xml/login-config/auth-method value, see the class doc
      * @return the JWTAuthMechanism
      *
      * @see JWTAuthContextInfo
@@ -57,7 +162,145 @@ public class JWTAuthMechanismFactory implements AuthenticationMechanismFactory {
     @Override
     public AuthenticationMechanism create(String mechanismName, FormParserFactory formParserFactory, Map<String, String> properties) {
         ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        roleMappers = DeploymentRoleMappers.register(loader);
+
+        // The validated tokens of all issuers share one cache, since a token can only match the issuer of its iss
+        TokenCache<JWTCallerPrincipal> tokenCache = null;
+        SharedClaimValues sharedClaimValues = null;
+        int tokenCacheSize = (int) parseLong(properties, "tokenCacheSize", DEFAULT_TOKEN_CACHE_SIZE);
+        if(tokenCacheSize > 0) {
+            tokenCache = new TokenCache<>(tokenCacheSize);
+            sharedClaimValues = new SharedClaimValues(tokenCacheSize);
+        }
+        this.tokenCache = tokenCache;
+        this.sharedClaimValues = sharedClaimValues;
+
+        List<IssuerContext> issuerContexts = new ArrayList<>();
+        String issuersConfig = properties.get("issuersConfig");
+        if(issuersConfig != null) {
+            Map<String, Map<String, String>> issuers = loadIssuersConfig(issuersConfig, properties, loader);
+            for(Map.Entry<String, Map<String, String>> issuer : issuers.entrySet()) {
+                try {
+                    TokenValidator validator = createValidator(issuer.getValue(), loader, tokenCache);
+                    RoleMapper roleMapper = null;
+                    String rolesProperties = issuer.getValue().get("rolesProperties");
+                    if(rolesProperties != null) {
+                        roleMapper = loadRoleMapper(rolesProperties);
+                    }
+                    issuerContexts.add(new IssuerContext(validator, roleMapper));
+                } catch (IllegalStateException e) {
+                    throw new IllegalStateException("Invalid issuer "+issuer.getKey()+" in issuersConfig: "+e.getMessage(), e);
+                }
+            }
+        } else {
+            issuerContexts.add(new IssuerContext(createValidator(properties, loader, tokenCache), null));
+        }
+        IssuerRegistry issuerRegistry;
+        try {
+            issuerRegistry = new IssuerRegistry(issuerContexts);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Invalid issuersConfig: "+e.getMessage(), e);
+        }
+
+        JWTAuthMechanism mechanism;
+        if(Boolean.parseBoolean(properties.get("directAuth"))) {
+            RoleMapper roleMapper = RoleMapper.identity();
+            String rolesProperties = issuersConfig == null ? properties.get("rolesProperties") : null;
+            if(rolesProperties != null) {
+                roleMapper = loadRoleMapper(rolesProperties);
+            }
+            String ejbSecurity = properties.get("ejbSecurity");
+            mechanism = new JWTAuthMechanism(issuerRegistry, roleMapper, ejbSecurity == null || Boolean.parseBoolean(ejbSecurity));
+        } else {
+            mechanism = new JWTAuthMechanism(issuerRegistry, null, true);
+        }
+        Set<String> indexedRoles = new LinkedHashSet<>(deploymentRoles);
+        for(RoleMapper roleMapper : roleMappers.getRoleMappers()) {
+            indexedRoles.addAll(roleMapper.getMappedRoles());
+        }
+        mechanism.setRoleIndex(new RoleIndex(indexedRoles));
+        mechanism.setAuditor(createAuditor(properties, loader));
+        mechanism.setTokenLocation(properties.get("tokenHeader"), properties.get("tokenCookie"));
+        mechanism.setSharedClaimValues(sharedClaimValues);
+        int rejectedTokenCacheSize = (int) parseLong(properties, "rejectedTokenCacheSize", DEFAULT_REJECTED_TOKEN_CACHE_SIZE);
+        TokenCache<String> rejectedTokens = null;
+        if(rejectedTokenCacheSize > 0) {
+            long rejectedTokenTtl = parseLong(properties, "rejectedTokenTtl", DEFAULT_REJECTED_TOKEN_TTL_SECS);
+            rejectedTokens = new TokenCache<>(rejectedTokenCacheSize);
+            mechanism.setRejectedTokenCache(rejectedTokens, rejectedTokenTtl * 1000);
+        }
+        String metricsEnabled = properties.get("metrics");
+        if(metricsEnabled == null || Boolean.parseBoolean(metricsEnabled)) {
+            if(tokenCache != null) {
+                metrics.addCache("tokenCache", tokenCache);
+            }
+            if(rejectedTokens != null) {
+                metrics.addCache("rejectedTokenCache", rejectedTokens);
+            }
+            for(IssuerContext issuer : issuerContexts) {
+                issuer.getValidator().setMetrics(metrics);
+            }
+            mechanism.setMetrics(metrics);
+            registerMBean("AuthMetrics", metrics);
+        }
+        registerMBean("JWTAuthManager", new JWTAuthManager(issuerContexts, tokenCache, mechanism, roleMappers, metrics));
+        return mechanism;
+    }
+
+    /**
+     * Read the issuers of an issuersConfig properties resource. Each property is prefixed by the name of the issuer
+     * it applies to, e.g. tenantA.issuedBy=https://a.example.com with tenantA.jwksUri=... or
+     * tenantA.signerPubKeyLocation=/keys/a.pem, and optionally tenantA.rolesProperties for the direct authentication
+     * role mapping. The jwsAlgorithms, jcaProvider, jwksRefreshInterval, jwksMinRefreshInterval, expGracePeriodSecs
+     * and audience auth-method properties are defaults for every issuer.
+     * @param issuersConfig - a URL or resource name
+     * @param properties - the auth-method properties
+     * @param loader - the class loader for resource names
+     * @return the properties of each issuer by issuer name
+     */
+    private Map<String, Map<String, String>> loadIssuersConfig(String issuersConfig, Map<String, String> properties,
+                                                              ClassLoader loader) {
+        Properties config = new Properties();
+        try(InputStream is = JWKSKeyResolver.toURL(issuersConfig, loader).openStream()) {
+            config.load(is);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to load issuersConfig: "+issuersConfig, e);
+        }
+        TreeMap<String, Map<String, String>> issuers = new TreeMap<>();
+        for(String name : config.stringPropertyNames()) {
+            int dot = name.indexOf('.');
+            if(dot <= 0) {
+                throw new IllegalStateException("Invalid issuersConfig property, expected issuer.property: "+name);
+            }
+            Map<String, String> issuer = issuers.get(name.substring(0, dot));
+            if(issuer == null) {
+                issuer = new HashMap<>();
+                for(String inherited : INHERITED_ISSUER_PROPERTIES) {
+                    if(properties.containsKey(inherited)) {
+                        issuer.put(inherited, properties.get(inherited));
+                    }
+                }
+                issuers.put(name.substring(0, dot), issuer);
+            }
+            issuer.put(name.substring(dot + 1), config.getProperty(name).trim());
+        }
+        if(issuers.isEmpty()) {
+            throw new IllegalStateException("No issuers found in issuersConfig: "+issuersConfig);
+        }
+        for(Map.Entry<String, Map<String, String>> issuer : issuers.entrySet()) {
+            if(issuer.getValue().get("issuedBy") == null) {
+                throw new IllegalStateException("No issuedBy property for issuer "+issuer.getKey()+" in issuersConfig");
+            }
+        }
+        return issuers;
+    }
 
+    /**
+     * Create the validator for the tokens of one issuer from its issuedBy, signerPubKey/signerPubKeyLocation or
+     * jwksUri, jwsAlgorithms, jcaProvider, expGracePeriodSecs and audience properties
+     */
+    private TokenValidator createValidator(Map<String, String> properties, ClassLoader loader,
+                                           TokenCache<JWTCallerPrincipal> tokenCache) {
         String issuedBy = properties.get("issuedBy");
         if(issuedBy == null) {
             // Try the /META-INF/MP-JWT-ISSUER content
@@ -69,27 +312,173 @@ public class JWTAuthMechanismFactory implements AuthenticationMechanismFactory {
                 throw new IllegalStateException("No issuedBy parameter was found");
             issuedBy = issuedBy.trim();
         }
-        String publicKeyPemEnc = properties.get("signerPubKey");
-        if(publicKeyPemEnc == null) {
-            // Try the /META-INF/MP-JWT-SIGNER content
-            URL pkURL = loader.getResource("/META-INF/MP-JWT-SIGNER");
-            if(pkURL == null)
-                throw new IllegalStateException("No signerPubKey parameter was found");
-            publicKeyPemEnc = readURLContent(pkURL);
-        }
-
-        // Workaround the double decode issue; https://issues.jboss.org/browse/WFLY-9135
-        String publicKeyPem = publicKeyPemEnc.replace(' ', '+');
         JWTAuthContextInfo contextInfo = new JWTAuthContextInfo();
         contextInfo.setIssuedBy(issuedBy);
+        if(properties.containsKey("expGracePeriodSecs")) {
+            contextInfo.setExpGracePeriodSecs((int) parseLong(properties, "expGracePeriodSecs", 0));
+        }
+
+        JWKSKeyResolver keyResolver = null;
+        PublicKey verificationKey = null;
+        String jwksUri = properties.get("jwksUri");
+        if(jwksUri != null) {
+            long refreshSecs = parseLong(properties, "jwksRefreshInterval", DEFAULT_JWKS_REFRESH_SECS);
+            long minRefreshSecs = parseLong(properties, "jwksMinRefreshInterval", DEFAULT_JWKS_MIN_REFRESH_SECS);
+            try {
+                URL jwksURL = JWKSKeyResolver.toURL(jwksUri, loader);
+                keyResolver = new JWKSKeyResolver(jwksURL, refreshSecs, minRefreshSecs);
+                keyResolver.start();
+            } catch (Exception e) {
+                throw new IllegalStateException("Failed to load jwksUri: "+jwksUri, e);
+            }
+            keyResolvers.add(keyResolver);
+        } else {
+            String publicKeyPemEnc = properties.get("signerPubKey");
+            String signerPubKeyLocation = properties.get("signerPubKeyLocation");
+            if(publicKeyPemEnc == null && signerPubKeyLocation != null) {
+                try {
+                    publicKeyPemEnc = readURLContent(JWKSKeyResolver.toURL(signerPubKeyLocation, loader));
+                } catch (IOException e) {
+                    throw new IllegalStateException("Failed to load signerPubKeyLocation: "+signerPubKeyLocation, e);
+                }
+            }
+            if(publicKeyPemEnc == null) {
+                // Try the /META-INF/MP-JWT-SIGNER content
+                URL pkURL = loader.getResource("/META-INF/MP-JWT-SIGNER");
+                if(pkURL == null)
+                    throw new IllegalStateException("No signerPubKey parameter was found");
+                publicKeyPemEnc = readURLContent(pkURL);
+            }
+
+            // Workaround the double decode issue; https://issues.jboss.org/browse/WFLY-9135
+            String publicKeyPem = publicKeyPemEnc.replace(' ', '+');
+            try {
+                verificationKey = KeyUtils.decodePublicKey(publicKeyPem);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            if(verificationKey instanceof RSAPublicKey) {
+                contextInfo.setSignerKey((RSAPublicKey) verificationKey);
+            }
+        }
+
+        String[] algorithms;
+        String jwsAlgorithms = properties.get("jwsAlgorithms");
+        if(jwsAlgorithms != null) {
+            algorithms = SignatureAlgorithms.parse(jwsAlgorithms);
+        } else if(keyResolver != null) {
+            algorithms = SignatureAlgorithms.jwksDefaults(properties.get("jcaProvider"));
+        } else {
+            algorithms = SignatureAlgorithms.forKey(verificationKey);
+        }
+        String[] audience = null;
+        String audienceList = properties.get("audience");
+        if(audienceList != null) {
+            audience = audienceList.trim().split("\\s*,\\s*");
+        }
+
+        SignatureVerifier signatureVerifier;
+        try {
+            signatureVerifier = new SignatureVerifier(algorithms, properties.get("jcaProvider"));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Invalid signature verification parameters: "+e.getMessage(), e);
+        }
+        return new TokenValidator(contextInfo, verificationKey, keyResolver, signatureVerifier, audience, tokenCache);
+    }
+
+    /**
+     * Load a role mapping of the deployment, which is reloaded on modification if it is a file
+     */
+    private RoleMapper loadRoleMapper(String rolesProperties) {
+        try {
+            return roleMappers.get(rolesProperties);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to load rolesProperties: "+rolesProperties, e);
+        }
+    }
+
+    /**
+     * Create the auditor for sampled authentication events from the auditSampleRate, auditMaxPerSecond and
+     * auditListener parameters
+     */
+    private AuthAuditor createAuditor(Map<String, String> properties, ClassLoader loader) {
+        int sampleRate = (int) parseLong(properties, "auditSampleRate", 0);
+        if(sampleRate <= 0) {
+            return AuthAuditor.DISABLED;
+        }
+        int maxPerSecond = (int) parseLong(properties, "auditMaxPerSecond", DEFAULT_AUDIT_MAX_PER_SECOND);
+        AuthAuditListener listener = AuthAuditor.loggingListener();
+        String listenerClass = properties.get("auditListener");
+        if(listenerClass != null) {
+            try {
+                listener = (AuthAuditListener) loader.loadClass(listenerClass).getDeclaredConstructor().newInstance();
+            } catch (Exception e) {
+                throw new IllegalStateException("Failed to create auditListener: "+listenerClass, e);
+            }
+        }
+        return new AuthAuditor(sampleRate, maxPerSecond, listener);
+    }
+
+    /**
+     * Register an MBean of the deployment in the platform MBeanServer, named by its type and the deployment name
+     */
+    private void registerMBean(String type, Object mbean) {
+        if(deploymentName == null) {
+            return;
+        }
         try {
-            RSAPublicKey pk = (RSAPublicKey) KeyUtils.decodePublicKey(publicKeyPem);
-            contextInfo.setSignerKey(pk);
-        } catch (Exception e) {
-            throw new IllegalStateException(e);
+            ObjectName name = new ObjectName("org.eclipse.microprofile.jwt:type="+type+",deployment="+ObjectName.quote(deploymentName));
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if(!server.isRegistered(name)) {
+                server.registerMBean(mbean, name);
+                mbeanNames.add(name);
+            }
+        } catch (JMException e) {
+            log.warnf("Failed to register %s MBean for: %s, error=%s", type, deploymentName, e.getMessage());
+        }
+    }
+
+    /**
+     * Stop the background key refresh of any JWKS key resolvers and the role mapping file watches of the deployment,
+     * including those of its JWTLoginModule, unregister its MBeans and drop the cached tokens and claim values
+     */
+    public void close() {
+        for(ObjectName name : mbeanNames) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+            } catch (JMException e) {
+                log.debugf("Failed to unregister MBean: %s, error=%s", name, e.getMessage());
+            }
+        }
+        mbeanNames.clear();
+        for(JWKSKeyResolver keyResolver : keyResolvers) {
+            keyResolver.close();
+        }
+        keyResolvers.clear();
+        DeploymentRoleMappers roleMappers = this.roleMappers;
+        if(roleMappers != null) {
+            roleMappers.close();
         }
+        TokenCache<JWTCallerPrincipal> tokenCache = this.tokenCache;
+        if(tokenCache != null) {
+            tokenCache.invalidateAll();
+        }
+        SharedClaimValues sharedClaimValues = this.sharedClaimValues;
+        if(sharedClaimValues != null) {
+            sharedClaimValues.invalidateAll();
+        }
+    }
 
-        return new JWTAuthMechanism(contextInfo);
+    private static long parseLong(Map<String, String> properties, String name, long defaultValue) {
+        String value = properties.get(name);
+        if(value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Invalid "+name+" parameter: "+value, e);
+        }
     }
 
     private String readURLContent(URL url) {
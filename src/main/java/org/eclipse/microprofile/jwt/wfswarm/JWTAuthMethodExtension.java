@@ -19,24 +19,141 @@
  */
 package org.eclipse.microprofile.jwt.wfswarm;
 
-import java.net.URL;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 import javax.servlet.ServletContext;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
 
 import io.undertow.servlet.ServletExtension;
+import io.undertow.servlet.Servlets;
 import io.undertow.servlet.api.DeploymentInfo;
+import io.undertow.servlet.api.SecurityConstraint;
+import io.undertow.servlet.api.SecurityRoleRef;
+import io.undertow.servlet.api.ServletInfo;
+import io.undertow.servlet.api.WebResourceCollection;
+import io.undertow.servlet.util.ImmediateInstanceFactory;
+import org.jboss.logging.Logger;
 
 /**
  * An extension that add support for the MP-JWT custom authentication mechanism
  */
 public class JWTAuthMethodExtension implements ServletExtension {
+    private static Logger log = Logger.getLogger(JWTAuthMethodExtension.class);
+    /** The context parameter giving the path the authentication metrics are served at */
+    public static final String METRICS_PATH = "org.eclipse.microprofile.jwt.metricsPath";
+    /** The context parameter giving the role required to read the authentication metrics */
+    public static final String METRICS_ROLE = "org.eclipse.microprofile.jwt.metricsRole";
+
     /**
-     * This registers the JWTAuthMechanismFactory under the "MP-JWT" mechanism name
+     * This registers the JWTAuthMechanismFactory under the "MP-JWT" mechanism name, along with a listener that
+     * releases the factory resources when the deployment is stopped. The role names of the deployment are passed to
+     * the factory to index the caller roles over. If the org.eclipse.microprofile.jwt.metricsPath context parameter
+     * is set, the authentication metrics are served at that path. The metrics reveal the traffic and failure patterns
+     * of the deployment, so the path should be protected: the org.eclipse.microprofile.jwt.metricsRole context
+     * parameter adds a security constraint requiring that role, and otherwise the deployment has to declare its own
+     * constraint for the path.
      * @param deploymentInfo - the deployment to augment
      * @param servletContext - the ServletContext for the deployment
      */
     @Override
     public void handleDeployment(DeploymentInfo deploymentInfo, ServletContext servletContext) {
-        deploymentInfo.addAuthenticationMechanism("MP-JWT", new JWTAuthMechanismFactory());
+        JWTAuthMechanismFactory factory = new JWTAuthMechanismFactory();
+        factory.setDeploymentName(deploymentInfo.getDeploymentName());
+        String metricsPath = deploymentInfo.getInitParameters().get(METRICS_PATH);
+        if(metricsPath != null) {
+            AuthMetricsServlet servlet = new AuthMetricsServlet(factory.getMetrics());
+            deploymentInfo.addServlet(Servlets.servlet("MP-JWT-metrics", AuthMetricsServlet.class,
+                    new ImmediateInstanceFactory<>(servlet)).addMapping(metricsPath));
+            String metricsRole = deploymentInfo.getInitParameters().get(METRICS_ROLE);
+            if(metricsRole != null) {
+                deploymentInfo.addSecurityRole(metricsRole);
+                deploymentInfo.addSecurityConstraint(Servlets.securityConstraint()
+                        .addRoleAllowed(metricsRole)
+                        .addWebResourceCollection(Servlets.webResourceCollection().addUrlPattern(metricsPath)));
+            } else if(!isConstrained(deploymentInfo, metricsPath)) {
+                log.warnf("The MP-JWT metrics of %s are served at %s without a security constraint, "
+                        + "set %s to require a role", deploymentInfo.getDeploymentName(), metricsPath, METRICS_ROLE);
+            }
+        }
+        factory.addDeploymentRoles(deploymentRoles(deploymentInfo));
+        deploymentInfo.addAuthenticationMechanism("MP-JWT", factory);
+        FactoryCloser closer = new FactoryCloser(factory);
+        deploymentInfo.addListener(Servlets.listener(FactoryCloser.class, new ImmediateInstanceFactory<>(closer)));
+    }
+
+    /**
+     * Check whether a security constraint of the deployment applies to a url pattern, matching the constraint url
+     * patterns as servlet url-patterns: exact, /path/* prefix, *.extension and the / default pattern
+     * @param deploymentInfo - the deployment
+     * @param urlPattern - the servlet mapping to check
+     * @return true if a constraint url pattern covers the mapping
+     */
+    public static boolean isConstrained(DeploymentInfo deploymentInfo, String urlPattern) {
+        for(SecurityConstraint constraint : deploymentInfo.getSecurityConstraints()) {
+            for(WebResourceCollection resources : constraint.getWebResourceCollections()) {
+                for(String constrained : resources.getUrlPatterns()) {
+                    if(urlPatternCovers(constrained, urlPattern)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean urlPatternCovers(String constrained, String urlPattern) {
+        if(constrained.equals(urlPattern) || constrained.equals("/")) {
+            return true;
+        }
+        if(constrained.endsWith("/*")) {
+            String prefix = constrained.substring(0, constrained.length() - 2);
+            return urlPattern.equals(prefix) || urlPattern.startsWith(prefix + '/');
+        }
+        if(constrained.startsWith("*.")) {
+            return urlPattern.startsWith("/") && !urlPattern.endsWith("/*") && urlPattern.endsWith(constrained.substring(1));
+        }
+        return false;
+    }
+
+    /**
+     * Collect the role names the deployment checks from its security roles, security constraints and servlet
+     * security role references
+     */
+    private static Set<String> deploymentRoles(DeploymentInfo deploymentInfo) {
+        Set<String> roles = new LinkedHashSet<>(deploymentInfo.getSecurityRoles());
+        for(SecurityConstraint constraint : deploymentInfo.getSecurityConstraints()) {
+            roles.addAll(constraint.getRolesAllowed());
+        }
+        for(ServletInfo servlet : deploymentInfo.getServlets().values()) {
+            for(SecurityRoleRef roleRef : servlet.getSecurityRoleRefs()) {
+                roles.add(roleRef.getRole());
+                if(roleRef.getLinkedRole() != null) {
+                    roles.add(roleRef.getLinkedRole());
+                }
+            }
+        }
+        return roles;
+    }
+
+    /**
+     * Closes the JWTAuthMechanismFactory on undeploy to stop any background key refresh
+     */
+    public static class FactoryCloser implements ServletContextListener {
+        private final JWTAuthMechanismFactory factory;
+
+        FactoryCloser(JWTAuthMechanismFactory factory) {
+            this.factory = factory;
+        }
+
+        @Override
+        public void contextInitialized(ServletContextEvent sce) {
+        }
+
+        @Override
+        public void contextDestroyed(ServletContextEvent sce) {
+            factory.close();
+        }
     }
 }
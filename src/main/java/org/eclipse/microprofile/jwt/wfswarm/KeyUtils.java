@@ -1,33 +1,60 @@
 package org.eclipse.microprofile.jwt.wfswarm;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.security.KeyFactory;
 import java.security.KeyPair;
 import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
 import java.security.PublicKey;
+import java.security.cert.CertificateFactory;
+import java.security.spec.InvalidKeySpecException;
 import java.security.spec.PKCS8EncodedKeySpec;
 import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.microprofile.jwt.tck.util.TokenUtils;
 
 public class KeyUtils {
+    /** 1.2.840.113549.1.1.10 */
+    private static final byte[] RSA_PSS_OID = {0x2a, (byte) 0x86, 0x48, (byte) 0x86, (byte) 0xf7, 0x0d, 0x01, 0x01, 0x0a};
+    /** 1.2.840.10045.2.1 */
+    private static final byte[] EC_OID = {0x2a, (byte) 0x86, 0x48, (byte) 0xce, 0x3d, 0x02, 0x01};
+    /** 1.3.101.112 */
+    private static final byte[] ED25519_OID = {0x2b, 0x65, 0x70};
+    /** The SubjectPublicKeyInfo encoding of an Ed25519 key up to the 32 key bytes */
+    private static final byte[] ED25519_SPKI_PREFIX = {0x30, 0x2a, 0x30, 0x05, 0x06, 0x03, 0x2b, 0x65, 0x70, 0x03, 0x21, 0x00};
+    /** AlgorithmIdentifier ::= SEQUENCE { rsaEncryption, NULL } */
+    private static final byte[] RSA_ALGORITHM_ID = {0x30, 0x0d, 0x06, 0x09, 0x2a, (byte) 0x86, 0x48, (byte) 0x86,
+            (byte) 0xf7, 0x0d, 0x01, 0x01, 0x01, 0x05, 0x00};
+    private static final String PUBLIC_KEY = "PUBLIC KEY";
+    private static final String RSA_PUBLIC_KEY = "RSA PUBLIC KEY";
+    private static final String CERTIFICATE = "CERTIFICATE";
+    private static final String PRIVATE_KEY = "PRIVATE KEY";
+    private static final String RSA_PRIVATE_KEY = "RSA PRIVATE KEY";
+    /** The number of decoded public keys kept by content digest */
+    private static final int PUBLIC_KEY_CACHE_SIZE = 64;
+    /** The KeyFactory instances by algorithm, since the provider lookup is repeated for every key otherwise */
+    private static final ConcurrentHashMap<String, KeyFactory> keyFactories = new ConcurrentHashMap<>();
+    /** The decoded public keys by the SHA-256 digest of their PEM label and DER content */
+    private static final ConcurrentHashMap<String, PublicKey> publicKeys = new ConcurrentHashMap<>();
+
     public static PrivateKey readPrivateKey(String pemResName) throws Exception {
-        InputStream contentIS = TokenUtils.class.getResourceAsStream(pemResName);
-        byte[] tmp = new byte[4096];
-        int length = contentIS.read(tmp);
-        PrivateKey privateKey = decodePrivateKey(new String(tmp, 0, length));
-        return privateKey;
+        return decodePrivateKey(PemParser.parse(openResource(pemResName)));
     }
 
     public static PublicKey readPublicKey(String pemResName) throws Exception {
-        InputStream contentIS = TokenUtils.class.getResourceAsStream(pemResName);
-        byte[] tmp = new byte[4096];
-        int length = contentIS.read(tmp);
-        PublicKey publicKey = decodePublicKey(new String(tmp, 0, length));
-        return publicKey;
+        return decodePublicKey(PemParser.parse(openResource(pemResName)));
     }
 
     public static KeyPair generateKeyPair(int keySize) throws NoSuchAlgorithmException {
@@ -37,32 +64,267 @@ public class KeyUtils {
         return keyPair;
     }
 
+    /**
+     * Decode the first private key of a PEM encoded PKCS#8 PRIVATE KEY or PKCS#1 RSA PRIVATE KEY. Bare base64
+     * content is decoded as PKCS#8.
+     * @param pemEncoded - the PEM content
+     * @return the private key
+     * @throws Exception - if there is no supported private key or it is invalid
+     */
     public static PrivateKey decodePrivateKey(String pemEncoded) throws Exception {
-        pemEncoded = removeBeginEnd(pemEncoded);
-        byte[] pkcs8EncodedBytes = Base64.getDecoder().decode(pemEncoded);
+        return decodePrivateKey(PemParser.parse(pemEncoded));
+    }
 
-        // extract the private key
+    /**
+     * Decode the first public key of a PEM encoded X.509 PUBLIC KEY, PKCS#1 RSA PUBLIC KEY or CERTIFICATE. Bare
+     * base64 content is decoded as a X.509 SubjectPublicKeyInfo.
+     * @param pemEncoded - the PEM content
+     * @return the public key
+     * @throws Exception - if there is no supported public key or it is invalid
+     */
+    public static PublicKey decodePublicKey(String pemEncoded) throws Exception {
+        return decodePublicKey(PemParser.parse(pemEncoded));
+    }
 
-        PKCS8EncodedKeySpec keySpec = new PKCS8EncodedKeySpec(pkcs8EncodedBytes);
-        KeyFactory kf = KeyFactory.getInstance("RSA");
-        PrivateKey privKey = kf.generatePrivate(keySpec);
-        return privKey;
+    /**
+     * Decode the public keys of all of the PUBLIC KEY, RSA PUBLIC KEY and CERTIFICATE blocks of a PEM file, e.g. a
+     * certificate chain or a set of signer keys. Blocks of other types are ignored.
+     * @param pemEncoded - the PEM content
+     * @return the public keys in the order they appear
+     * @throws Exception - if a block is invalid or there is no public key
+     */
+    public static List<PublicKey> decodePublicKeys(String pemEncoded) throws Exception {
+        ArrayList<PublicKey> keys = new ArrayList<>();
+        for(PemParser.Block block : PemParser.parse(pemEncoded)) {
+            if(isPublicKeyBlock(block)) {
+                keys.add(toPublicKey(block));
+            }
+        }
+        if(keys.isEmpty()) {
+            throw new InvalidKeySpecException("No public key found in PEM content");
+        }
+        return keys;
     }
 
-    public static PublicKey decodePublicKey(String pemEncoded) throws Exception {
-        pemEncoded = removeBeginEnd(pemEncoded);
-        byte[] encodedBytes = Base64.getDecoder().decode(pemEncoded);
+    private static PrivateKey decodePrivateKey(List<PemParser.Block> blocks) throws Exception {
+        for(PemParser.Block block : blocks) {
+            String label = block.getLabel();
+            byte[] pkcs8EncodedBytes;
+            if(label == null || PRIVATE_KEY.equals(label)
+                    || (RSA_PRIVATE_KEY.equals(label) && isAlgorithmIdentified(block.getDer(), true))) {
+                pkcs8EncodedBytes = block.getDer();
+            } else if(RSA_PRIVATE_KEY.equals(label)) {
+                // PrivateKeyInfo ::= SEQUENCE { version INTEGER 0, AlgorithmIdentifier, OCTET STRING RSAPrivateKey }
+                pkcs8EncodedBytes = der(0x30, new byte[] {0x02, 0x01, 0x00}, RSA_ALGORITHM_ID, der(0x04, block.getDer()));
+            } else {
+                continue;
+            }
+            PKCS8EncodedKeySpec keySpec = new PKCS8EncodedKeySpec(pkcs8EncodedBytes);
+            KeyFactory kf = keyFactory(keyAlgorithm(pkcs8EncodedBytes, true));
+            synchronized (kf) {
+                return kf.generatePrivate(keySpec);
+            }
+        }
+        throw new InvalidKeySpecException("No supported private key found in PEM content");
+    }
+
+    private static PublicKey decodePublicKey(List<PemParser.Block> blocks) throws Exception {
+        for(PemParser.Block block : blocks) {
+            if(isPublicKeyBlock(block)) {
+                return toPublicKey(block);
+            }
+        }
+        throw new InvalidKeySpecException("No public key found in PEM content");
+    }
+
+    private static boolean isPublicKeyBlock(PemParser.Block block) {
+        String label = block.getLabel();
+        return label == null || PUBLIC_KEY.equals(label) || RSA_PUBLIC_KEY.equals(label) || CERTIFICATE.equals(label);
+    }
+
+    /**
+     * Decode the public key of a block, reusing the key decoded for identical content since the same signer key is
+     * typically configured for every deployment of a server. Only public keys are cached.
+     */
+    private static PublicKey toPublicKey(PemParser.Block block) throws Exception {
+        String label = block.getLabel();
+        byte[] der = block.getDer();
+        String cacheKey = contentDigest(label, der);
+        PublicKey publicKey = publicKeys.get(cacheKey);
+        if(publicKey != null) {
+            return publicKey;
+        }
+
+        if(CERTIFICATE.equals(label)) {
+            CertificateFactory cf = CertificateFactory.getInstance("X.509");
+            publicKey = cf.generateCertificate(new ByteArrayInputStream(der)).getPublicKey();
+        } else {
+            if(RSA_PUBLIC_KEY.equals(label) && !isAlgorithmIdentified(der, false)) {
+                // SubjectPublicKeyInfo ::= SEQUENCE { AlgorithmIdentifier, BIT STRING RSAPublicKey }
+                der = der(0x30, RSA_ALGORITHM_ID, der(0x03, new byte[] {0}, der));
+            }
+            X509EncodedKeySpec spec = new X509EncodedKeySpec(der);
+            KeyFactory kf = keyFactory(keyAlgorithm(der, false));
+            synchronized (kf) {
+                publicKey = kf.generatePublic(spec);
+            }
+        }
+        if(publicKeys.size() >= PUBLIC_KEY_CACHE_SIZE) {
+            // Keys are only decoded at deployment, so starting over is cheaper than tracking their use
+            publicKeys.clear();
+        }
+        publicKeys.put(cacheKey, publicKey);
+        return publicKey;
+    }
+
+    /**
+     * Check whether a DER key is a X.509 SubjectPublicKeyInfo or PKCS#8 PrivateKeyInfo rather than a PKCS#1 RSA key,
+     * since RSA PUBLIC KEY and RSA PRIVATE KEY labels are commonly used for those as well, e.g. the test publicKey.pem
+     * @param der - the DER encoded key
+     * @param privateKey - true for a private key, which has a version before the AlgorithmIdentifier
+     * @return true if an AlgorithmIdentifier SEQUENCE is found where PKCS#1 has an INTEGER
+     */
+    private static boolean isAlgorithmIdentified(byte[] der, boolean privateKey) {
+        try {
+            int[] offset = {0};
+            readHeader(der, offset, 0x30);
+            if(privateKey) {
+                int versionLength = readHeader(der, offset, 0x02);
+                offset[0] += versionLength;
+            }
+            return der[offset[0]] == 0x30;
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static String contentDigest(String label, byte[] der) throws NoSuchAlgorithmException {
+        MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+        if(label != null) {
+            sha256.update(label.getBytes(StandardCharsets.US_ASCII));
+        }
+        sha256.update((byte) 0);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(sha256.digest(der));
+    }
+
+    /**
+     * Encode a DER element from the concatenation of its content parts
+     */
+    private static byte[] der(int tag, byte[]... parts) {
+        int length = 0;
+        for(byte[] part : parts) {
+            length += part.length;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(length + 6);
+        out.write(tag);
+        if(length < 0x80) {
+            out.write(length);
+        } else {
+            int count = length > 0xffffff ? 4 : length > 0xffff ? 3 : length > 0xff ? 2 : 1;
+            out.write(0x80 | count);
+            for(int n = count - 1; n >= 0; n --) {
+                out.write(length >>> (8 * n));
+            }
+        }
+        for(byte[] part : parts) {
+            out.write(part, 0, part.length);
+        }
+        return out.toByteArray();
+    }
+
+    private static InputStream openResource(String pemResName) throws IOException {
+        InputStream contentIS = TokenUtils.class.getResourceAsStream(pemResName);
+        if(contentIS == null) {
+            throw new FileNotFoundException("No key resource found: "+pemResName);
+        }
+        return contentIS;
+    }
+
+    /**
+     * Create an Ed25519 public key from the raw key bytes, e.g. the x value of an OKP JWK
+     * @param x - the 32 byte public key
+     * @return the Ed25519 public key
+     * @throws Exception - if the key is invalid or the JDK does not support Ed25519
+     */
+    public static PublicKey decodeEd25519PublicKey(byte[] x) throws Exception {
+        if(x.length != 32) {
+            throw new InvalidKeySpecException("Invalid Ed25519 key length: "+x.length);
+        }
+        byte[] encoded = Arrays.copyOf(ED25519_SPKI_PREFIX, ED25519_SPKI_PREFIX.length + x.length);
+        System.arraycopy(x, 0, encoded, ED25519_SPKI_PREFIX.length, x.length);
+        KeyFactory kf = keyFactory("Ed25519");
+        synchronized (kf) {
+            return kf.generatePublic(new X509EncodedKeySpec(encoded));
+        }
+    }
+
+    /**
+     * Get the shared KeyFactory for an algorithm. A KeyFactory is not guaranteed to be thread safe, so callers
+     * synchronize on it while generating a key.
+     */
+    private static KeyFactory keyFactory(String algorithm) throws NoSuchAlgorithmException {
+        KeyFactory kf = keyFactories.get(algorithm);
+        if(kf == null) {
+            kf = KeyFactory.getInstance(algorithm);
+            KeyFactory existing = keyFactories.putIfAbsent(algorithm, kf);
+            if(existing != null) {
+                kf = existing;
+            }
+        }
+        return kf;
+    }
 
-        X509EncodedKeySpec spec = new X509EncodedKeySpec(encodedBytes);
-        KeyFactory kf = KeyFactory.getInstance("RSA");
-        return kf.generatePublic(spec);
+    /**
+     * Determine the KeyFactory algorithm from the AlgorithmIdentifier of a X.509 SubjectPublicKeyInfo or PKCS#8
+     * PrivateKeyInfo structure
+     * @param der - the DER encoded key
+     * @param privateKey - true for a PKCS#8 key, which has a version before the AlgorithmIdentifier
+     * @return the KeyFactory algorithm, RSA if the key algorithm is not recognized
+     */
+    static String keyAlgorithm(byte[] der, boolean privateKey) {
+        try {
+            int[] offset = {0};
+            // Outer SEQUENCE
+            readHeader(der, offset, 0x30);
+            if(privateKey) {
+                // Skip the version INTEGER
+                int versionLength = readHeader(der, offset, 0x02);
+                offset[0] += versionLength;
+            }
+            // AlgorithmIdentifier SEQUENCE and its OBJECT IDENTIFIER
+            readHeader(der, offset, 0x30);
+            int oidLength = readHeader(der, offset, 0x06);
+            byte[] oid = Arrays.copyOfRange(der, offset[0], offset[0] + oidLength);
+            if(Arrays.equals(oid, RSA_PSS_OID)) {
+                return "RSASSA-PSS";
+            } else if(Arrays.equals(oid, EC_OID)) {
+                return "EC";
+            } else if(Arrays.equals(oid, ED25519_OID)) {
+                return "Ed25519";
+            }
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+            // Let the KeyFactory report the invalid encoding
+        }
+        return "RSA";
     }
 
-    private static String removeBeginEnd(String pem) {
-        pem = pem.replaceAll("-----BEGIN(.*)KEY-----", "");
-        pem = pem.replaceAll("-----END(.*)KEY-----", "");
-        pem = pem.replaceAll("\r\n", "");
-        pem = pem.replaceAll("\n", "");
-        return pem.trim();
+    /**
+     * Read a DER tag and length
+     * @return the content length, with offset positioned at the content
+     */
+    private static int readHeader(byte[] der, int[] offset, int expectedTag) {
+        int tag = der[offset[0]++] & 0xff;
+        if(tag != expectedTag) {
+            throw new IllegalArgumentException("Unexpected DER tag: "+tag);
+        }
+        int length = der[offset[0]++] & 0xff;
+        if((length & 0x80) != 0) {
+            int count = length & 0x7f;
+            length = 0;
+            for(int n = 0; n < count; n ++) {
+                length = (length << 8) | (der[offset[0]++] & 0xff);
+            }
+        }
+        return length;
     }
 }
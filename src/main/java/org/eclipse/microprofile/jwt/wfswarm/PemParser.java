@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2016-2017 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file(s) distributed with this work for additional
+ *  information regarding copyright ownership.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  You may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.eclipse.microprofile.jwt.wfswarm;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * A single pass parser of the PEM encoding (RFC 7468) that splits the input into its BEGIN/END blocks and decodes
+ * the base64 content of each block. Line breaks are not required, since a key passed as an auth-method property is
+ * typically a single line, and the WFLY-9135 workaround may have turned the spaces of the labels into '+'. Input
+ * without any BEGIN line is decoded as a single block of bare base64 with a null label.
+ */
+final class PemParser {
+    private static final String DASHES = "-----";
+    private static final String BEGIN = DASHES + "BEGIN";
+    private static final String END = DASHES + "END";
+
+    private PemParser() {}
+
+    /**
+     * A decoded PEM block
+     */
+    static final class Block {
+        private final String label;
+        private final byte[] der;
+
+        Block(String label, byte[] der) {
+            this.label = label;
+            this.der = der;
+        }
+
+        /**
+         * @return the block label, e.g. PUBLIC KEY, or null for bare base64 content
+         */
+        String getLabel() {
+            return label;
+        }
+
+        /**
+         * @return the decoded DER content of the block
+         */
+        byte[] getDer() {
+            return der;
+        }
+    }
+
+    /**
+     * Read and parse all of a PEM stream
+     * @param is - the PEM content stream, which is closed once read
+     * @return the blocks in the order they appear
+     * @throws IOException - on failure to read the stream or an invalid PEM encoding
+     */
+    static List<Block> parse(InputStream is) throws IOException {
+        StringBuilder content = new StringBuilder(4096);
+        try(Reader reader = new InputStreamReader(is, StandardCharsets.US_ASCII)) {
+            char[] buffer = new char[4096];
+            int length;
+            while((length = reader.read(buffer)) > 0) {
+                content.append(buffer, 0, length);
+            }
+        }
+        return parse(content);
+    }
+
+    /**
+     * Parse PEM content
+     * @param pem - the PEM content
+     * @return the blocks in the order they appear
+     * @throws IOException - on an invalid PEM encoding
+     */
+    static List<Block> parse(CharSequence pem) throws IOException {
+        ArrayList<Block> blocks = new ArrayList<>(1);
+        String text = pem.toString();
+        int index = text.indexOf(BEGIN);
+        if(index < 0) {
+            byte[] der = decode(text, 0, text.length());
+            if(der.length > 0) {
+                blocks.add(new Block(null, der));
+            }
+            return blocks;
+        }
+        while(index >= 0) {
+            int labelStart = index + BEGIN.length();
+            int labelEnd = text.indexOf(DASHES, labelStart);
+            if(labelEnd < 0) {
+                throw new IOException("Unterminated PEM BEGIN line");
+            }
+            String label = label(text, labelStart, labelEnd);
+            int contentStart = labelEnd + DASHES.length();
+            int contentEnd = text.indexOf(END, contentStart);
+            if(contentEnd < 0) {
+                throw new IOException("No PEM END line for: "+label);
+            }
+            int endLabelStart = contentEnd + END.length();
+            int endLabelEnd = text.indexOf(DASHES, endLabelStart);
+            if(endLabelEnd < 0 || !label.equals(label(text, endLabelStart, endLabelEnd))) {
+                throw new IOException("Mismatched PEM END line for: "+label);
+            }
+            blocks.add(new Block(label, decode(text, contentStart, contentEnd)));
+            index = text.indexOf(BEGIN, endLabelEnd + DASHES.length());
+        }
+        return blocks;
+    }
+
+    /**
+     * Extract a BEGIN/END label, mapping the '+' of the WFLY-9135 workaround back to spaces
+     */
+    private static String label(String text, int start, int end) {
+        return text.substring(start, end).replace('+', ' ').trim();
+    }
+
+    /**
+     * Decode the base64 content of a block, ignoring whitespace
+     */
+    private static byte[] decode(String text, int start, int end) throws IOException {
+        byte[] base64 = new byte[end - start];
+        int length = 0;
+        for(int n = start; n < end; n ++) {
+            char c = text.charAt(n);
+            if(c == ':') {
+                // RFC 1421 headers are only used by encrypted keys
+                throw new IOException("Encrypted PEM content is not supported");
+            }
+            if(c > ' ') {
+                base64[length++] = (byte) c;
+            }
+        }
+        try {
+            return Base64.getDecoder().decode(length == base64.length ? base64 : Arrays.copyOf(base64, length));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid PEM base64 content", e);
+        }
+    }
+}
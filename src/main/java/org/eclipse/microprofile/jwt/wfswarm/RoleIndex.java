@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2016-2017 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file(s) distributed with this work for additional
+ *  information regarding copyright ownership.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  You may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.eclipse.microprofile.jwt.wfswarm;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The role names a deployment checks, e.g. from the web.xml security roles and constraints and the role mapping,
+ * each assigned a bit index at deployment time. The caller roles are represented as a {@link RoleSet} over the
+ * index, and the RoleSet of each distinct role set is memoized so that the accounts of the same roles share it.
+ */
+public final class RoleIndex {
+    /** An index without roles, for which every RoleSet holds its roles as unindexed names */
+    public static final RoleIndex EMPTY = new RoleIndex(Collections.<String>emptySet());
+    /** The maximum number of memoized role sets, beyond which the memoized sets are dropped */
+    private static final int MAX_MEMOIZED = 1024;
+
+    private final Map<String, Integer> indices;
+    private final String[] names;
+    private final ConcurrentHashMap<Set<String>, RoleSet> memoized = new ConcurrentHashMap<>();
+
+    /**
+     *
+     * @param roles - the role names to index
+     */
+    public RoleIndex(Collection<String> roles) {
+        HashMap<String, Integer> map = new HashMap<>();
+        for(String role : roles) {
+            if(role != null && !map.containsKey(role)) {
+                map.put(role, map.size());
+            }
+        }
+        names = new String[map.size()];
+        for(Map.Entry<String, Integer> entry : map.entrySet()) {
+            names[entry.getValue()] = entry.getKey();
+        }
+        indices = map;
+    }
+
+    /**
+     * @param role - a role name
+     * @return the bit index of the role, -1 if it is not indexed
+     */
+    public int indexOf(String role) {
+        Integer index = indices.get(role);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * @param index - a bit index
+     * @return the role name of the index
+     */
+    public String nameOf(int index) {
+        return names[index];
+    }
+
+    /**
+     * @return the number of indexed roles
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Get the RoleSet for a set of role names
+     * @param roles - the caller role names
+     * @return the shared RoleSet with the same roles
+     */
+    public RoleSet toRoleSet(Set<String> roles) {
+        if(roles instanceof RoleSet && ((RoleSet) roles).getIndex() == this) {
+            return (RoleSet) roles;
+        }
+        RoleSet roleSet = memoized.get(roles);
+        if(roleSet == null) {
+            BitSet bits = new BitSet(names.length);
+            HashSet<String> others = null;
+            for(String role : roles) {
+                int index = indexOf(role);
+                if(index >= 0) {
+                    bits.set(index);
+                } else {
+                    if(others == null) {
+                        others = new HashSet<>();
+                    }
+                    others.add(role);
+                }
+            }
+            roleSet = new RoleSet(this, bits, others != null ? others : Collections.<String>emptySet());
+            if(memoized.size() >= MAX_MEMOIZED) {
+                memoized.clear();
+            }
+            memoized.put(roleSet, roleSet);
+        }
+        return roleSet;
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2016-2017 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file(s) distributed with this work for additional
+ *  information regarding copyright ownership.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  You may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.eclipse.microprofile.jwt.wfswarm;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jboss.logging.Logger;
+
+/**
+ * Maps the groups of a token to the roles of the caller using the same role=role1,role2 properties format as the
+ * org.jboss.security.auth.spi.RoleMappingLoginModule rolesProperties file, e.g. jwt-roles.properties. The groups
+ * are always retained, and each group with a mapping entry adds the mapped roles.
+ *
+ * The mapping is held in an immutable table whose role names are interned, and the expanded role set of each
+ * distinct groups set is memoized, since the tokens of a deployment typically carry a few distinct group sets. A
+ * mapping loaded from a file can be watched for changes, in which case the table is replaced on modification.
+ * The mappings of a deployment are held by its {@link DeploymentRoleMappers}, which stops the watches on undeploy.
+ */
+public class RoleMapper implements AutoCloseable {
+    private static Logger log = Logger.getLogger(RoleMapper.class);
+    /** The maximum number of memoized group sets, beyond which the memoized sets are dropped */
+    private static final int MAX_MEMOIZED = 1024;
+
+    private final URL location;
+    private volatile Table table;
+    private WatchService watchService;
+
+    /**
+     * Create a RoleMapper from the role mapping entries
+     * @param mappings - the group to mapped roles entries
+     */
+    public RoleMapper(Map<String, Set<String>> mappings) {
+        this(mappings, null);
+    }
+
+    private RoleMapper(Map<String, Set<String>> mappings, URL location) {
+        this.table = new Table(mappings);
+        this.location = location;
+    }
+
+    /**
+     * @return a RoleMapper that only returns the token groups
+     */
+    public static RoleMapper identity() {
+        return new RoleMapper(Collections.emptyMap());
+    }
+
+    /**
+     * Load the role mapping from a properties resource
+     * @param rolesProperties - the resource name of the role mapping properties
+     * @param loader - the class loader to load the resource from
+     * @return the RoleMapper for the resource mappings
+     * @throws IOException - on failure to locate or read the resource
+     */
+    public static RoleMapper load(String rolesProperties, ClassLoader loader) throws IOException {
+        URL url = loader.getResource(rolesProperties);
+        if(url == null) {
+            throw new IOException("No role mapping resource found for: "+rolesProperties);
+        }
+        return new RoleMapper(readMappings(url), url);
+    }
+
+    /**
+     * Map the token groups to the caller roles
+     * @param groups - the token groups claim
+     * @return the unmodifiable set of the groups plus any mapped roles
+     */
+    public Set<String> mapRoles(Set<String> groups) {
+        return table.mapRoles(groups);
+    }
+
+    /**
+     * @return the roles the current mapping maps groups to
+     */
+    public Set<String> getMappedRoles() {
+        HashSet<String> roles = new HashSet<>();
+        for(Set<String> mapped : table.mappings.values()) {
+            roles.addAll(mapped);
+        }
+        return roles;
+    }
+
+    /**
+     * Reload the mapping from the location it was loaded from
+     * @throws IOException - on failure to read the mapping
+     */
+    public void reload() throws IOException {
+        if(location != null) {
+            table = new Table(readMappings(location));
+            log.debugf("Reloaded role mapping from: %s", location);
+        }
+    }
+
+    /**
+     * Start watching the mapping file for modifications, which reload the mapping. This does nothing if the mapping
+     * was not loaded from a file, e.g. from a resource inside a jar.
+     * @throws IOException - on failure to register the watch
+     */
+    public synchronized void watch() throws IOException {
+        if(watchService != null || location == null || !"file".equals(location.getProtocol())) {
+            return;
+        }
+        Path file;
+        try {
+            file = Paths.get(location.toURI());
+        } catch (URISyntaxException e) {
+            throw new IOException("Invalid role mapping location: "+location, e);
+        }
+        WatchService service = FileSystems.getDefault().newWatchService();
+        file.getParent().register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        watchService = service;
+        Path fileName = file.getFileName();
+        Thread watcher = new Thread(() -> watchLoop(service, fileName), "MP-JWT role mapping watch");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * Stop watching the mapping file
+     */
+    @Override
+    public synchronized void close() {
+        if(watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                log.debugf("Failed to close role mapping watch: %s", e.getMessage());
+            }
+            watchService = null;
+        }
+    }
+
+    private void watchLoop(WatchService service, Path fileName) {
+        try {
+            while(true) {
+                WatchKey key = service.take();
+                boolean changed = false;
+                for(WatchEvent<?> event : key.pollEvents()) {
+                    if(fileName.equals(event.context())) {
+                        changed = true;
+                    }
+                }
+                if(changed) {
+                    try {
+                        reload();
+                    } catch (IOException e) {
+                        log.warnf("Failed to reload role mapping from: %s, error=%s", location, e.getMessage());
+                    }
+                }
+                if(!key.reset()) {
+                    return;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Closed
+        }
+    }
+
+    private static Map<String, Set<String>> readMappings(URL url) throws IOException {
+        Properties props = new Properties();
+        try(InputStream is = url.openStream()) {
+            props.load(is);
+        }
+        HashMap<String, Set<String>> mappings = new HashMap<>();
+        for(String group : props.stringPropertyNames()) {
+            HashSet<String> roles = new HashSet<>();
+            for(String role : props.getProperty(group).split(",")) {
+                role = role.trim();
+                if(role.length() > 0) {
+                    roles.add(role);
+                }
+            }
+            mappings.put(group, roles);
+        }
+        return mappings;
+    }
+
+    /**
+     * An immutable group to roles table with the memoized role sets of the group sets it has mapped
+     */
+    private static final class Table {
+        private final Map<String, Set<String>> mappings;
+        private final ConcurrentHashMap<Set<String>, Set<String>> memoized = new ConcurrentHashMap<>();
+
+        Table(Map<String, Set<String>> mappings) {
+            HashMap<String, String> names = new HashMap<>();
+            HashMap<String, Set<String>> table = new HashMap<>();
+            for(Map.Entry<String, Set<String>> mapping : mappings.entrySet()) {
+                HashSet<String> roles = new HashSet<>();
+                for(String role : mapping.getValue()) {
+                    roles.add(intern(names, role));
+                }
+                table.put(intern(names, mapping.getKey()), Collections.unmodifiableSet(roles));
+            }
+            this.mappings = table;
+        }
+
+        Set<String> mapRoles(Set<String> groups) {
+            Set<String> roles = memoized.get(groups);
+            if(roles == null) {
+                HashSet<String> expanded = new HashSet<>(groups);
+                for(String group : groups) {
+                    Set<String> mapped = mappings.get(group);
+                    if(mapped != null) {
+                        expanded.addAll(mapped);
+                    }
+                }
+                roles = Collections.unmodifiableSet(expanded);
+                if(memoized.size() >= MAX_MEMOIZED) {
+                    memoized.clear();
+                }
+                // Key by a copy, since the caller set may be modified later
+                memoized.put(Collections.unmodifiableSet(new HashSet<>(groups)), roles);
+            }
+            return roles;
+        }
+
+        private static String intern(Map<String, String> names, String name) {
+            String existing = names.putIfAbsent(name, name);
+            return existing != null ? existing : name;
+        }
+    }
+}
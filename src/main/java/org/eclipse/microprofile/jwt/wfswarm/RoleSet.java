@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2016-2017 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file(s) distributed with this work for additional
+ *  information regarding copyright ownership.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  You may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.eclipse.microprofile.jwt.wfswarm;
+
+import java.util.AbstractSet;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable set of caller roles, with the roles of the RoleIndex held as a bitset and any other role names, e.g.
+ * token groups that no constraint refers to, in a plain set. A role check is a bit test for an indexed role, and
+ * {@link #contains(int)} skips the name lookup for callers that resolved the index of a role up front.
+ */
+public final class RoleSet extends AbstractSet<String> {
+    private final RoleIndex index;
+    private final BitSet bits;
+    private final Set<String> others;
+    private final int size;
+
+    RoleSet(RoleIndex index, BitSet bits, Set<String> others) {
+        this.index = index;
+        this.bits = bits;
+        this.others = others;
+        this.size = bits.cardinality() + others.size();
+    }
+
+    public RoleIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * @param roleIndex - the index of a role in the RoleIndex of this set
+     * @return true if the role is in the set
+     */
+    public boolean contains(int roleIndex) {
+        return bits.get(roleIndex);
+    }
+
+    @Override
+    public boolean contains(Object role) {
+        if(!(role instanceof String)) {
+            return false;
+        }
+        int roleIndex = index.indexOf((String) role);
+        return roleIndex >= 0 ? bits.get(roleIndex) : others.contains(role);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        final Iterator<String> otherRoles = others.iterator();
+        return new Iterator<String>() {
+            private int next = bits.nextSetBit(0);
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0 || otherRoles.hasNext();
+            }
+
+            @Override
+            public String next() {
+                if(next >= 0) {
+                    String role = index.nameOf(next);
+                    next = bits.nextSetBit(next + 1);
+                    return role;
+                }
+                if(!otherRoles.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return otherRoles.next();
+            }
+        };
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2016-2017 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file(s) distributed with this work for additional
+ *  information regarding copyright ownership.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  You may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.eclipse.microprofile.jwt.wfswarm;
+
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.Security;
+import java.util.ArrayList;
+
+import org.jboss.logging.Logger;
+import org.jose4j.jws.AlgorithmIdentifiers;
+
+/**
+ * The JWS algorithms accepted for token signatures. The SignatureVerifier dispatches the verification of a token to
+ * the verifier for its alg header, and checks that the verification key is of the type that algorithm requires, so
+ * the accepted algorithms only need to be restricted to the ones that match the configured keys.
+ */
+public final class SignatureAlgorithms {
+    private static Logger log = Logger.getLogger(SignatureAlgorithms.class);
+
+    /** The RFC 8037 JWS alg header value for Edwards-curve signatures */
+    public static final String EDDSA = "EdDSA";
+    /** The JCA Signature and KeyFactory algorithm name of the EdDSA curve that is supported */
+    public static final String ED25519 = "Ed25519";
+
+    /**
+     * The algorithms accepted by default for the keys of a JSON Web Key Set. PS256 needs JDK 11 and EdDSA JDK 15, see
+     * {@link #jwksDefaults(String)} for the defaults the running JVM supports.
+     */
+    public static final String[] JWKS_DEFAULTS = {
+            AlgorithmIdentifiers.RSA_USING_SHA256,
+            AlgorithmIdentifiers.RSA_PSS_USING_SHA256,
+            AlgorithmIdentifiers.ECDSA_USING_P256_CURVE_AND_SHA256,
+            AlgorithmIdentifiers.ECDSA_USING_P384_CURVE_AND_SHA384,
+            EDDSA
+    };
+
+    private SignatureAlgorithms() {}
+
+    /**
+     * Get the JWKS_DEFAULTS that the JCA provider supports. The others are left out with a log line, so a JWKS
+     * deployment on an older JDK rejects their tokens as not accepted instead of failing each verification.
+     * @param provider - the name of the JCA provider, null for the default provider
+     * @return the supported default algorithms
+     */
+    public static String[] jwksDefaults(String provider) {
+        if(provider != null && Security.getProvider(provider) == null) {
+            // Leave it to the SignatureVerifier to report the missing provider
+            return JWKS_DEFAULTS;
+        }
+        ArrayList<String> supported = new ArrayList<>(JWKS_DEFAULTS.length);
+        for(String alg : JWKS_DEFAULTS) {
+            if(SignatureVerifier.isSupported(alg, provider)) {
+                supported.add(alg);
+            } else {
+                log.infof("JWS algorithm %s is not supported by this JVM, it is not accepted for JWKS keys", alg);
+            }
+        }
+        return supported.toArray(new String[supported.size()]);
+    }
+
+    /**
+     * Determine the algorithm accepted for a single configured verification key
+     * @param key - the verification key
+     * @return the JWS algorithm for the key type
+     */
+    public static String[] forKey(PublicKey key) {
+        String alg;
+        switch (key.getAlgorithm()) {
+            case "RSASSA-PSS":
+                alg = AlgorithmIdentifiers.RSA_PSS_USING_SHA256;
+                break;
+            case "EC":
+                int fieldSize = ((ECPublicKey) key).getParams().getCurve().getField().getFieldSize();
+                if(fieldSize > 384) {
+                    alg = AlgorithmIdentifiers.ECDSA_USING_P521_CURVE_AND_SHA512;
+                } else if(fieldSize > 256) {
+                    alg = AlgorithmIdentifiers.ECDSA_USING_P384_CURVE_AND_SHA384;
+                } else {
+                    alg = AlgorithmIdentifiers.ECDSA_USING_P256_CURVE_AND_SHA256;
+                }
+                break;
+            case EDDSA:
+            case ED25519:
+                alg = EDDSA;
+                break;
+            default:
+                alg = AlgorithmIdentifiers.RSA_USING_SHA256;
+        }
+        return new String[] {alg};
+    }
+
+    /**
+     * Parse a comma separated list of JWS algorithms
+     * @param algorithms - the list, e.g. RS256,ES256
+     * @return the algorithms
+     */
+    public static String[] parse(String algorithms) {
+        ArrayList<String> list = new ArrayList<>();
+        for(String alg : algorithms.split(",")) {
+            alg = alg.trim();
+            if(alg.length() > 0) {
+                list.add(alg);
+            }
+        }
+        if(list.isEmpty()) {
+            throw new IllegalArgumentException("No JWS algorithms in: "+algorithms);
+        }
+        return list.toArray(new String[list.size()]);
+    }
+}
@@ -0,0 +1,372 @@
+/*
+ * Copyright (c) 2016-2017 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file(s) distributed with this work for additional
+ *  information regarding copyright ownership.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  You may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.eclipse.microprofile.jwt.wfswarm;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.security.Key;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.PublicKey;
+import java.security.Security;
+import java.security.Signature;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.AlgorithmParameterSpec;
+import java.security.spec.MGF1ParameterSpec;
+import java.security.spec.PSSParameterSpec;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.eclipse.microprofile.jwt.principal.ParseException;
+import org.jose4j.jws.AlgorithmIdentifiers;
+
+/**
+ * Verifies the signature of a compact JWS token with the java.security.Signature for its alg header. Each accepted
+ * algorithm has a small striped pool of Signature objects that are initialized for the last key they verified, so
+ * the common case of a single signer key does not repeat the JCA provider lookup or the initVerify. A Signature
+ * returns to its initialized state after each verify, so it can be reused by the next request. The pool is owned by
+ * the verifier, so it does not outlive the deployment the way a ThreadLocal on the worker threads would.
+ */
+public class SignatureVerifier {
+    /** The minimum RSA key size, as also enforced by jose4j */
+    private static final int MIN_RSA_KEY_SIZE = 2048;
+    private static final int POOL_SIZE = poolSize();
+
+    private final Map<String, AlgorithmVerifier> verifiers = new HashMap<>();
+    private final String provider;
+
+    /**
+     *
+     * @param algorithms - the accepted JWS alg header values
+     * @param provider - the name of the JCA provider for the Signature instances, null for the default provider
+     * @throws IllegalArgumentException - if an algorithm is not supported by this verifier or the JCA provider, or the
+     * provider is not installed
+     */
+    public SignatureVerifier(String[] algorithms, String provider) {
+        if(provider != null && Security.getProvider(provider) == null) {
+            throw new IllegalArgumentException("JCA provider is not installed: "+provider);
+        }
+        this.provider = provider;
+        for(String alg : algorithms) {
+            AlgorithmVerifier verifier = createVerifier(alg);
+            verifier.probe(alg);
+            verifiers.put(alg, verifier);
+        }
+    }
+
+    /**
+     * Check whether a JWS algorithm can be verified with the Signature implementations of the running JVM. RSASSA-PSS
+     * needs JDK 11 and Ed25519 JDK 15 unless they come from an installed provider.
+     * @param alg - the JWS alg header value
+     * @param provider - the name of the JCA provider, null for the default provider
+     * @return true if a SignatureVerifier accepting the algorithm can be created
+     */
+    public static boolean isSupported(String alg, String provider) {
+        try {
+            new SignatureVerifier(new String[] {alg}, provider);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return the JCA provider name, null if the default provider is used
+     */
+    public String getProvider() {
+        return provider;
+    }
+
+    /**
+     * Verify the signature of a compact serialized JWS
+     * @param alg - the JWS alg header value of the token
+     * @param key - the verification key
+     * @param token - the compact serialization of the token
+     * @throws ParseException - if the algorithm is not accepted, the key does not match it, or the signature is invalid
+     */
+    public void verify(String alg, Key key, String token) throws ParseException {
+        String failure = check(alg, key, token);
+        if(failure != null) {
+            throw new ParseException(failure);
+        }
+    }
+
+    /**
+     * Verify the signature of a compact serialized JWS without throwing for an invalid signature, which is the
+     * common failure of forged tokens
+     * @param alg - the JWS alg header value of the token
+     * @param key - the verification key
+     * @param token - the compact serialization of the token
+     * @return null if the signature is valid, otherwise the reason it is not
+     */
+    public String check(String alg, Key key, String token) {
+        AlgorithmVerifier verifier = alg != null ? verifiers.get(alg) : null;
+        if(verifier == null) {
+            return "JWS algorithm is not accepted: "+alg;
+        }
+        int signatureStart = token.lastIndexOf('.');
+        if(signatureStart < 0) {
+            return "Token is not a compact JWS";
+        }
+        byte[] signingInput = token.substring(0, signatureStart).getBytes(StandardCharsets.US_ASCII);
+        byte[] signature;
+        try {
+            signature = Base64.getUrlDecoder().decode(token.substring(signatureStart + 1));
+        } catch (IllegalArgumentException e) {
+            return "Invalid JWS signature encoding";
+        }
+
+        try {
+            verifier.validateKey(key);
+            if(!verifier.verify(key, signingInput, signature)) {
+                return "Invalid "+alg+" signature";
+            }
+        } catch (GeneralSecurityException e) {
+            return "Failed to verify "+alg+" signature: "+e.getMessage();
+        }
+        return null;
+    }
+
+    private AlgorithmVerifier createVerifier(String alg) {
+        switch (alg) {
+            case AlgorithmIdentifiers.RSA_USING_SHA256:
+                return new RsaVerifier("SHA256withRSA", null);
+            case AlgorithmIdentifiers.RSA_USING_SHA384:
+                return new RsaVerifier("SHA384withRSA", null);
+            case AlgorithmIdentifiers.RSA_USING_SHA512:
+                return new RsaVerifier("SHA512withRSA", null);
+            case AlgorithmIdentifiers.RSA_PSS_USING_SHA256:
+                return new RsaVerifier("RSASSA-PSS",
+                        new PSSParameterSpec("SHA-256", "MGF1", MGF1ParameterSpec.SHA256, 32, 1));
+            case AlgorithmIdentifiers.RSA_PSS_USING_SHA384:
+                return new RsaVerifier("RSASSA-PSS",
+                        new PSSParameterSpec("SHA-384", "MGF1", MGF1ParameterSpec.SHA384, 48, 1));
+            case AlgorithmIdentifiers.RSA_PSS_USING_SHA512:
+                return new RsaVerifier("RSASSA-PSS",
+                        new PSSParameterSpec("SHA-512", "MGF1", MGF1ParameterSpec.SHA512, 64, 1));
+            case AlgorithmIdentifiers.ECDSA_USING_P256_CURVE_AND_SHA256:
+                return new EcdsaVerifier("SHA256withECDSA", 256, 64);
+            case AlgorithmIdentifiers.ECDSA_USING_P384_CURVE_AND_SHA384:
+                return new EcdsaVerifier("SHA384withECDSA", 384, 96);
+            case AlgorithmIdentifiers.ECDSA_USING_P521_CURVE_AND_SHA512:
+                return new EcdsaVerifier("SHA512withECDSA", 521, 132);
+            case SignatureAlgorithms.EDDSA:
+                return new EdDsaVerifier();
+            default:
+                throw new IllegalArgumentException("Unsupported JWS algorithm: "+alg);
+        }
+    }
+
+    private static int poolSize() {
+        int size = 1;
+        while(size < 2 * Runtime.getRuntime().availableProcessors()) {
+            size <<= 1;
+        }
+        return size;
+    }
+
+    /**
+     * A Signature initialized for verification with a key
+     */
+    private static final class PooledSignature {
+        final Signature signature;
+        Key key;
+
+        PooledSignature(Signature signature) {
+            this.signature = signature;
+        }
+    }
+
+    /**
+     * The verification of one JWS algorithm
+     */
+    private abstract class AlgorithmVerifier {
+        private final String javaAlgorithm;
+        private final AlgorithmParameterSpec parameters;
+        private final AtomicReferenceArray<PooledSignature> pool = new AtomicReferenceArray<>(POOL_SIZE);
+
+        AlgorithmVerifier(String javaAlgorithm, AlgorithmParameterSpec parameters) {
+            this.javaAlgorithm = javaAlgorithm;
+            this.parameters = parameters;
+        }
+
+        /**
+         * Check that the key is of the type and size required by the algorithm
+         */
+        abstract void validateKey(Key key) throws InvalidKeyException;
+
+        /**
+         * Convert the JWS signature to the encoding expected by the java.security.Signature
+         * @return the converted signature, null if the signature cannot be valid for the algorithm
+         */
+        byte[] toJavaSignature(byte[] signature) {
+            return signature;
+        }
+
+        /**
+         * Look the Signature up once so that an algorithm the JVM or provider lacks is reported when the verifier is
+         * created instead of by each token, and keep the instance as the first pooled Signature
+         */
+        void probe(String alg) {
+            try {
+                pool.set(0, new PooledSignature(newSignature()));
+            } catch (NoSuchAlgorithmException | NoSuchProviderException e) {
+                throw new IllegalArgumentException("JWS algorithm "+alg+" is not supported by the JCA provider "+
+                        (provider != null ? provider : "of this JVM")+": "+javaAlgorithm, e);
+            }
+        }
+
+        private Signature newSignature() throws NoSuchAlgorithmException, NoSuchProviderException {
+            return provider != null ? Signature.getInstance(javaAlgorithm, provider)
+                    : Signature.getInstance(javaAlgorithm);
+        }
+
+        boolean verify(Key key, byte[] signingInput, byte[] signature) throws GeneralSecurityException {
+            byte[] javaSignature = toJavaSignature(signature);
+            if(javaSignature == null) {
+                return false;
+            }
+            int slot = (int) Thread.currentThread().getId() & (POOL_SIZE - 1);
+            PooledSignature pooled = pool.getAndSet(slot, null);
+            if(pooled == null) {
+                pooled = new PooledSignature(newSignature());
+            }
+            if(pooled.key != key) {
+                pooled.key = null;
+                pooled.signature.initVerify((PublicKey) key);
+                if(parameters != null) {
+                    pooled.signature.setParameter(parameters);
+                }
+                pooled.key = key;
+            }
+            // A Signature that failed part way is not returned to the pool since its state is unknown
+            pooled.signature.update(signingInput);
+            boolean verified = pooled.signature.verify(javaSignature);
+            pool.compareAndSet(slot, null, pooled);
+            return verified;
+        }
+    }
+
+    private final class RsaVerifier extends AlgorithmVerifier {
+        RsaVerifier(String javaAlgorithm, AlgorithmParameterSpec parameters) {
+            super(javaAlgorithm, parameters);
+        }
+
+        @Override
+        void validateKey(Key key) throws InvalidKeyException {
+            if(!(key instanceof RSAPublicKey)) {
+                throw new InvalidKeyException("An RSA public key is required, found: "+describe(key));
+            }
+            int keySize = ((RSAPublicKey) key).getModulus().bitLength();
+            if(keySize < MIN_RSA_KEY_SIZE) {
+                throw new InvalidKeyException("An RSA key of at least "+MIN_RSA_KEY_SIZE+" bits is required, found: "+keySize);
+            }
+        }
+    }
+
+    private final class EcdsaVerifier extends AlgorithmVerifier {
+        private final int fieldSize;
+        private final int signatureLength;
+
+        EcdsaVerifier(String javaAlgorithm, int fieldSize, int signatureLength) {
+            super(javaAlgorithm, null);
+            this.fieldSize = fieldSize;
+            this.signatureLength = signatureLength;
+        }
+
+        @Override
+        void validateKey(Key key) throws InvalidKeyException {
+            if(!(key instanceof ECPublicKey)) {
+                throw new InvalidKeyException("An EC public key is required, found: "+describe(key));
+            }
+            int keyFieldSize = ((ECPublicKey) key).getParams().getCurve().getField().getFieldSize();
+            if(keyFieldSize != fieldSize) {
+                throw new InvalidKeyException("An EC key on a "+fieldSize+" bit curve is required, found: "+keyFieldSize);
+            }
+        }
+
+        /**
+         * JWS ECDSA signatures are the concatenated R and S values, while the JCA expects a DER SEQUENCE of two
+         * INTEGERs
+         */
+        @Override
+        byte[] toJavaSignature(byte[] signature) {
+            if(signature.length != signatureLength) {
+                return null;
+            }
+            int half = signatureLength / 2;
+            ByteArrayOutputStream integers = new ByteArrayOutputStream(signatureLength + 8);
+            writeInteger(integers, signature, 0, half);
+            writeInteger(integers, signature, half, half);
+            ByteArrayOutputStream der = new ByteArrayOutputStream(integers.size() + 3);
+            der.write(0x30);
+            writeLength(der, integers.size());
+            byte[] content = integers.toByteArray();
+            der.write(content, 0, content.length);
+            return der.toByteArray();
+        }
+
+        private void writeInteger(ByteArrayOutputStream out, byte[] value, int offset, int length) {
+            int start = offset;
+            int end = offset + length;
+            while(start < end - 1 && value[start] == 0) {
+                start ++;
+            }
+            boolean pad = (value[start] & 0x80) != 0;
+            out.write(0x02);
+            writeLength(out, end - start + (pad ? 1 : 0));
+            if(pad) {
+                out.write(0);
+            }
+            out.write(value, start, end - start);
+        }
+
+        private void writeLength(ByteArrayOutputStream out, int length) {
+            if(length > 0x7f) {
+                out.write(0x81);
+            }
+            out.write(length);
+        }
+    }
+
+    private final class EdDsaVerifier extends AlgorithmVerifier {
+        EdDsaVerifier() {
+            super(SignatureAlgorithms.ED25519, null);
+        }
+
+        @Override
+        void validateKey(Key key) throws InvalidKeyException {
+            String algorithm = key.getAlgorithm();
+            if(!(key instanceof PublicKey) ||
+                    (!SignatureAlgorithms.EDDSA.equals(algorithm) && !SignatureAlgorithms.ED25519.equals(algorithm))) {
+                throw new InvalidKeyException("An Ed25519 public key is required, found: "+describe(key));
+            }
+        }
+    }
+
+    private static String describe(Key key) {
+        return key == null ? "null" : key.getAlgorithm();
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2016-2017 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file(s) distributed with this work for additional
+ *  information regarding copyright ownership.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  You may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.eclipse.microprofile.jwt.wfswarm;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded, concurrent cache of values associated with a bearer token, keyed by the SHA-256 digest of the raw
+ * token. Each entry carries an absolute expiration time after which it is treated as absent. The cache is split into
+ * a number of independently locked LRU stripes so that concurrent request threads rarely contend on the same lock.
+ *
+ * @param <V> the cached value type
+ */
+public class TokenCache<V> {
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final Stripe<V>[] stripes;
+    private final int mask;
+    private final int maxSize;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Create a cache holding at most approximately maxSize entries
+     * @param maxSize - the maximum number of entries, must be > 0
+     */
+    @SuppressWarnings("unchecked")
+    public TokenCache(int maxSize) {
+        if(maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be > 0, was: "+maxSize);
+        }
+        this.maxSize = maxSize;
+        int stripeCount = maxSize >= 256 ? 16 : 1;
+        int stripeSize = (maxSize + stripeCount - 1) / stripeCount;
+        stripes = new Stripe[stripeCount];
+        for(int n = 0; n < stripeCount; n ++) {
+            stripes[n] = new Stripe<>(stripeSize);
+        }
+        mask = stripeCount - 1;
+    }
+
+    /**
+     * Compute the cache key for a raw bearer token
+     * @param token - the raw bearer token
+     * @return the base64url encoded SHA-256 digest of the token
+     */
+    public static String digest(String token) {
+        MessageDigest md = SHA256.get();
+        byte[] hash = md.digest(token.getBytes(StandardCharsets.US_ASCII));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+    }
+
+    /**
+     * Lookup the value for a token digest
+     * @param digest - the token digest as returned by {@link #digest(String)}
+     * @return the cached value if present and not expired, null otherwise
+     */
+    public V get(String digest) {
+        Stripe<V> stripe = stripeFor(digest);
+        synchronized (stripe) {
+            Entry<V> entry = stripe.get(digest);
+            if(entry == null) {
+                misses.increment();
+                return null;
+            }
+            if(entry.expiresAt <= System.currentTimeMillis()) {
+                stripe.remove(digest);
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.value;
+        }
+    }
+
+    /**
+     * Add a value for a token digest
+     * @param digest - the token digest as returned by {@link #digest(String)}
+     * @param value - the value to cache
+     * @param expiresAt - the absolute time in milliseconds after which the entry is no longer valid
+     */
+    public void put(String digest, V value, long expiresAt) {
+        if(expiresAt <= System.currentTimeMillis()) {
+            return;
+        }
+        Stripe<V> stripe = stripeFor(digest);
+        synchronized (stripe) {
+            stripe.put(digest, new Entry<>(value, expiresAt));
+        }
+    }
+
+    /**
+     * Remove all entries
+     */
+    public void invalidateAll() {
+        for(Stripe<V> stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+    /**
+     * @return the current number of entries, including any expired entries not yet evicted
+     */
+    public int size() {
+        int size = 0;
+        for(Stripe<V> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return the number of lookups that found an unexpired entry
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of lookups that found no entry or an expired one
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Reset the hit and miss counts, leaving the entries in place
+     */
+    public void resetStats() {
+        hits.reset();
+        misses.reset();
+    }
+
+    private Stripe<V> stripeFor(String digest) {
+        int h = digest.hashCode();
+        h ^= (h >>> 16);
+        return stripes[h & mask];
+    }
+
+    private static class Entry<V> {
+        final V value;
+        final long expiresAt;
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * An access ordered map that drops its least recently used entry once full
+     */
+    private static class Stripe<V> extends LinkedHashMap<String, Entry<V>> {
+        private final int capacity;
+
+        Stripe(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry<V>> eldest) {
+            return size() > capacity;
+        }
+    }
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright (c) 2016-2017 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file(s) distributed with this work for additional
+ *  information regarding copyright ownership.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  You may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.eclipse.microprofile.jwt.wfswarm;
+
+import java.security.Key;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.microprofile.jwt.Claims;
+import org.eclipse.microprofile.jwt.JsonWebToken;
+import org.eclipse.microprofile.jwt.impl.DefaultJWTCallerPrincipal;
+import org.eclipse.microprofile.jwt.principal.JWTAuthContextInfo;
+import org.eclipse.microprofile.jwt.principal.JWTCallerPrincipal;
+import org.eclipse.microprofile.jwt.principal.ParseException;
+import org.eclipse.microprofile.jwt.wfswarm.jaas.JWTCredential;
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jwt.JwtClaims;
+import org.jose4j.jwt.MalformedClaimException;
+import org.jose4j.jwt.NumericDate;
+import org.jose4j.jwt.consumer.ErrorCodes;
+import org.jose4j.jwt.consumer.InvalidJwtException;
+import org.jose4j.jwt.consumer.JwtConsumer;
+import org.jose4j.jwt.consumer.JwtConsumerBuilder;
+import org.jose4j.jwt.consumer.JwtContext;
+import org.jose4j.jwx.JsonWebStructure;
+import org.jose4j.keys.resolvers.VerificationKeyResolver;
+import org.jose4j.lang.UnresolvableKeyException;
+
+/**
+ * Validates the signature and claims of the JWTCredential bearer token against a JWTAuthContextInfo, with the outcome
+ * reported as a ValidationResult by {@link #check(JWTCredential)}. The token is only decoded once by the credential.
+ * The signature is checked by a SignatureVerifier with pooled Signature instances, and the claims of the resulting
+ * JwtContext by a JwtConsumer that is built once per validator and shared by all requests.
+ */
+public class TokenValidator {
+    private final JWTAuthContextInfo authContextInfo;
+    private final TokenCache<JWTCallerPrincipal> tokenCache;
+    private final Key verificationKey;
+    private final VerificationKeyResolver keyResolver;
+    private final SignatureVerifier signatureVerifier;
+    private final JwtConsumer jwtConsumer;
+    private AuthMetrics metrics = AuthMetrics.DISABLED;
+
+    /**
+     *
+     * @param authContextInfo - the token validation information
+     * @param tokenCache - an optional cache of validated tokens shared by all requests, may be null
+     */
+    public TokenValidator(JWTAuthContextInfo authContextInfo, TokenCache<JWTCallerPrincipal> tokenCache) {
+        this(authContextInfo, null, tokenCache);
+    }
+
+    /**
+     *
+     * @param authContextInfo - the token validation information
+     * @param keyResolver - an optional resolver for the verification key of a token, e.g. a JWKSKeyResolver. If null,
+     *                    the JWTAuthContextInfo signer key is used.
+     * @param tokenCache - an optional cache of validated tokens shared by all requests, may be null
+     */
+    public TokenValidator(JWTAuthContextInfo authContextInfo, VerificationKeyResolver keyResolver,
+                          TokenCache<JWTCallerPrincipal> tokenCache) {
+        this(authContextInfo, authContextInfo.getSignerKey(), keyResolver,
+                new SignatureVerifier(keyResolver != null ? SignatureAlgorithms.jwksDefaults(null)
+                        : new String[] {AlgorithmIdentifiers.RSA_USING_SHA256}, null),
+                tokenCache);
+    }
+
+    /**
+     *
+     * @param authContextInfo - the token validation information
+     * @param verificationKey - the verification key of the tokens if there is no keyResolver. This may be any key
+     *                        type supported by the algorithms, e.g. an EC or Ed25519 key.
+     * @param keyResolver - an optional resolver for the verification key of a token, e.g. a JWKSKeyResolver
+     * @param signatureVerifier - the verifier for the accepted JWS algorithms
+     * @param tokenCache - an optional cache of validated tokens shared by all requests, may be null
+     */
+    public TokenValidator(JWTAuthContextInfo authContextInfo, Key verificationKey, VerificationKeyResolver keyResolver,
+                          SignatureVerifier signatureVerifier, TokenCache<JWTCallerPrincipal> tokenCache) {
+        this(authContextInfo, verificationKey, keyResolver, signatureVerifier, null, tokenCache);
+    }
+
+    /**
+     *
+     * @param authContextInfo - the token validation information
+     * @param verificationKey - the verification key of the tokens if there is no keyResolver
+     * @param keyResolver - an optional resolver for the verification key of a token, e.g. a JWKSKeyResolver
+     * @param signatureVerifier - the verifier for the accepted JWS algorithms
+     * @param audience - the accepted aud claim values, or null to not validate the audience
+     * @param tokenCache - an optional cache of validated tokens shared by all requests, may be null
+     */
+    public TokenValidator(JWTAuthContextInfo authContextInfo, Key verificationKey, VerificationKeyResolver keyResolver,
+                          SignatureVerifier signatureVerifier, String[] audience,
+                          TokenCache<JWTCallerPrincipal> tokenCache) {
+        this.authContextInfo = authContextInfo;
+        this.verificationKey = verificationKey;
+        this.keyResolver = keyResolver;
+        this.signatureVerifier = signatureVerifier;
+        this.tokenCache = tokenCache;
+        // The signature is verified by the SignatureVerifier before the claims are validated by the consumer
+        JwtConsumerBuilder builder = new JwtConsumerBuilder()
+                .setSkipSignatureVerification()
+                .setRequireExpirationTime()
+                .setRequireSubject()
+                .setExpectedIssuer(authContextInfo.getIssuedBy());
+        if (audience != null) {
+            builder.setExpectedAudience(audience);
+        } else {
+            builder.setSkipDefaultAudienceValidation();
+        }
+        if (authContextInfo.getExpGracePeriodSecs() > 0) {
+            builder.setAllowedClockSkewInSeconds(authContextInfo.getExpGracePeriodSecs());
+        } else {
+            builder.setEvaluationTime(NumericDate.fromSeconds(0));
+        }
+        this.jwtConsumer = builder.build();
+    }
+
+    public JWTAuthContextInfo getAuthContextInfo() {
+        return authContextInfo;
+    }
+
+    /**
+     * Record the parse, signature and claims validation latencies of the tokens this validates
+     * @param metrics - the metrics of the mechanism
+     */
+    public void setMetrics(AuthMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return the verification key used if there is no key resolver, may be null
+     */
+    public Key getVerificationKey() {
+        return verificationKey;
+    }
+
+    /**
+     * @return the resolver of the token verification keys, null if the verification key is used
+     */
+    public VerificationKeyResolver getKeyResolver() {
+        return keyResolver;
+    }
+
+    public TokenCache<JWTCallerPrincipal> getTokenCache() {
+        return tokenCache;
+    }
+
+    /**
+     * Get the time until which a validated token may be cached, which is when it would be rejected as expired,
+     * including the allowed clock skew
+     * @param principal - the validated token
+     * @return the expiration time of a cache entry for the token in milliseconds
+     */
+    public long getCacheExpiration(JsonWebToken principal) {
+        return (principal.getExpirationTime() + authContextInfo.getExpGracePeriodSecs()) * 1000;
+    }
+
+    /**
+     * Validate the credential bearer token. If there is a token cache, a previously validated principal for the same
+     * token is returned without repeating the signature verification.
+     * @param jwtCredential - the input bearer token
+     * @return return the validated JWTCallerPrincipal
+     * @throws ParseException - thrown on token parse or validation failure
+     */
+    public JWTCallerPrincipal validate(JWTCredential jwtCredential) throws ParseException {
+        ValidationResult result = check(jwtCredential);
+        if(!result.isValid()) {
+            throw new ParseException(result.getReason());
+        }
+        return result.getPrincipal();
+    }
+
+    /**
+     * Validate the credential bearer token, reporting a failure as the result status rather than an exception. The
+     * iss and exp claims are checked before the signature, so an expired token is rejected without any signature
+     * work, and the common failures do not go through the InvalidJwtException of the claims validation.
+     * @param jwtCredential - the input bearer token
+     * @return the validation result with the JWTCallerPrincipal of a valid token
+     */
+    public ValidationResult check(JWTCredential jwtCredential) {
+        if(tokenCache != null) {
+            JWTCallerPrincipal cached = tokenCache.get(jwtCredential.getTokenDigest());
+            if(cached != null) {
+                return ValidationResult.valid(cached);
+            }
+        }
+
+        long start = metrics.start();
+        JwtContext jwtContext = jwtCredential.getJwtContextOrNull();
+        metrics.record(AuthMetrics.Stage.PARSE, start);
+        if(jwtContext == null) {
+            Exception e = jwtCredential.getJwtException();
+            return ValidationResult.failure(ValidationResult.Status.MALFORMED, e != null ? e.getMessage() : null);
+        }
+        JwtClaims claimsSet = jwtContext.getJwtClaims();
+        ValidationResult failure = checkIssuerAndExpiration(claimsSet);
+        if(failure == null) {
+            start = metrics.start();
+            failure = checkSignature(jwtContext, jwtCredential.getBearerToken());
+            metrics.record(AuthMetrics.Stage.SIGNATURE, start);
+        }
+        if(failure != null) {
+            return failure;
+        }
+        start = metrics.start();
+        try {
+            // Validate the remaining claims of the already parsed token
+            jwtConsumer.processContext(jwtContext);
+        } catch (InvalidJwtException e) {
+            ValidationResult.Status status = e.hasExpired() ? ValidationResult.Status.EXPIRED
+                    : e.hasErrorCode(ErrorCodes.ISSUER_INVALID) ? ValidationResult.Status.WRONG_ISSUER
+                    : ValidationResult.Status.INVALID_CLAIMS;
+            // A token that is not valid yet becomes valid with time
+            if(e.hasErrorCode(ErrorCodes.NOT_YET_VALID) || e.hasErrorCode(ErrorCodes.ISSUED_AT_INVALID_FUTURE)) {
+                return ValidationResult.transientFailure(status, e.getMessage());
+            }
+            return ValidationResult.failure(status, e.getMessage());
+        } finally {
+            metrics.record(AuthMetrics.Stage.CLAIMS, start);
+        }
+
+        String bearerToken = jwtCredential.getBearerToken();
+        String type = jwtContext.getJoseObjects().get(0).getHeader("typ");
+        claimsSet.setClaim(Claims.raw_token.name(), bearerToken);
+        JWTCallerPrincipal callerPrincipal = new DefaultJWTCallerPrincipal(bearerToken, type, claimsSet, jwtCredential.getName());
+
+        if(tokenCache != null) {
+            tokenCache.put(jwtCredential.getTokenDigest(), callerPrincipal, getCacheExpiration(callerPrincipal));
+        }
+        return ValidationResult.valid(callerPrincipal);
+    }
+
+    /**
+     * Check the iss and exp claims the same way as the JwtConsumer does
+     * @return the failure result, null if the claims are valid or missing, which the JwtConsumer reports
+     */
+    private ValidationResult checkIssuerAndExpiration(JwtClaims claimsSet) {
+        try {
+            String iss = claimsSet.getIssuer();
+            if(iss != null && !iss.equals(authContextInfo.getIssuedBy())) {
+                return ValidationResult.failure(ValidationResult.Status.WRONG_ISSUER, "Issuer is not accepted: "+iss);
+            }
+            NumericDate exp = claimsSet.getExpirationTime();
+            int skewSecs = authContextInfo.getExpGracePeriodSecs();
+            // As in the JwtConsumer, the expiration is only checked with a grace period
+            if(exp != null && skewSecs > 0 && System.currentTimeMillis() / 1000 - skewSecs >= exp.getValue()) {
+                return ValidationResult.failure(ValidationResult.Status.EXPIRED, "Token expired at: "+exp.getValue());
+            }
+        } catch (MalformedClaimException e) {
+            return ValidationResult.failure(ValidationResult.Status.MALFORMED, e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Verify the token signature with the configured key or the key resolved for the token
+     * @return the failure result, null if the signature is valid
+     */
+    private ValidationResult checkSignature(JwtContext jwtContext, String bearerToken) {
+        List<JsonWebStructure> joseObjects = jwtContext.getJoseObjects();
+        if(joseObjects.size() != 1 || !(joseObjects.get(0) instanceof JsonWebSignature)) {
+            return ValidationResult.failure(ValidationResult.Status.MALFORMED, "Token is not a signed JWT");
+        }
+        JsonWebSignature jws = (JsonWebSignature) joseObjects.get(0);
+        Key key = verificationKey;
+        if(keyResolver instanceof JWKSKeyResolver) {
+            JWKSKeyResolver jwksResolver = (JWKSKeyResolver) keyResolver;
+            key = jwksResolver.findKey(jws);
+            if(key == null && jwksResolver.getKey(jws.getKeyIdHeaderValue()) != null) {
+                // The kid is known, but its key is restricted to another alg
+                return ValidationResult.failure(ValidationResult.Status.BAD_SIGNATURE,
+                        "Token alg: "+jws.getAlgorithmHeaderValue()+" does not match the key for kid: "
+                                +jws.getKeyIdHeaderValue());
+            }
+        } else if(keyResolver != null) {
+            try {
+                key = keyResolver.resolveKey(jws, Collections.<JsonWebStructure>emptyList());
+            } catch (UnresolvableKeyException e) {
+                key = null;
+            }
+        }
+        if(key == null) {
+            // The key may not be published or loaded yet, e.g. after a key rotation
+            return ValidationResult.transientFailure(ValidationResult.Status.BAD_SIGNATURE,
+                    "No verification key for kid: "+jws.getKeyIdHeaderValue());
+        }
+        String failure = signatureVerifier.check(jws.getAlgorithmHeaderValue(), key, bearerToken);
+        if(failure != null) {
+            return ValidationResult.failure(ValidationResult.Status.BAD_SIGNATURE, failure);
+        }
+        return null;
+    }
+}
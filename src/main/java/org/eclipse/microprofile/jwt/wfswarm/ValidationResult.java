@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2016-2017 Contributors to the Eclipse Foundation
+ *
+ *  See the NOTICE file(s) distributed with this work for additional
+ *  information regarding copyright ownership.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  You may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.eclipse.microprofile.jwt.wfswarm;
+
+import org.eclipse.microprofile.jwt.principal.JWTCallerPrincipal;
+
+/**
+ * The outcome of a token validation by {@link TokenValidator#check}, which reports the common failures as a status
+ * rather than an exception so that rejecting a token does not build and fill in the stack of several exceptions.
+ */
+public final class ValidationResult {
+    /**
+     * The validation outcome
+     */
+    public enum Status {
+        /** The token is valid */
+        VALID,
+        /** The token could not be parsed as a signed JWT */
+        MALFORMED,
+        /** The token iss is not the expected or a registered issuer */
+        WRONG_ISSUER,
+        /** The token has expired */
+        EXPIRED,
+        /** The token signature is invalid, or there is no key or accepted algorithm for it */
+        BAD_SIGNATURE,
+        /** A claim other than iss or exp is missing or invalid */
+        INVALID_CLAIMS
+    }
+
+    private final Status status;
+    private final JWTCallerPrincipal principal;
+    private final String message;
+    /** Whether validating the token again would fail the same way */
+    private final boolean definitive;
+
+    private ValidationResult(Status status, JWTCallerPrincipal principal, String message, boolean definitive) {
+        this.status = status;
+        this.principal = principal;
+        this.message = message;
+        this.definitive = definitive;
+    }
+
+    /**
+     * @param principal - the principal of the valid token
+     * @return a VALID result
+     */
+    public static ValidationResult valid(JWTCallerPrincipal principal) {
+        return new ValidationResult(Status.VALID, principal, null, false);
+    }
+
+    /**
+     * @param status - the failure status
+     * @param message - a description of the failure
+     * @return a failure result
+     */
+    public static ValidationResult failure(Status status, String message) {
+        return new ValidationResult(status, null, message, true);
+    }
+
+    /**
+     * @param status - the failure status
+     * @param message - a description of the failure
+     * @return a failure result for a token that may validate later, e.g. one signed with a key that is not in the
+     * key set yet or one that is not valid yet
+     */
+    public static ValidationResult transientFailure(Status status, String message) {
+        return new ValidationResult(status, null, message, false);
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isValid() {
+        return status == Status.VALID;
+    }
+
+    /**
+     * @return true for a failure that validating the same token again cannot change, such as a bad signature, an
+     * expired or a malformed token, false for a valid token or a transient failure
+     */
+    public boolean isDefinitive() {
+        return definitive;
+    }
+
+    /**
+     * @return the principal of a valid token, null on failure
+     */
+    public JWTCallerPrincipal getPrincipal() {
+        return principal;
+    }
+
+    /**
+     * @return the description of a failure, null for a valid token
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * @return the status and message of a failure, e.g. for the rejected token cache and audit events
+     */
+    public String getReason() {
+        return message != null ? status + ": " + message : status.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "ValidationResult{" + getReason() + "}";
+    }
+}
@@ -0,0 +1,285 @@
+package org.eclipse.microprofile.jwt.wfswarm.cdi;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import javax.json.JsonArray;
+import javax.json.JsonNumber;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+
+/**
+ * The registry of the claim value converters by injection target type. A converter is resolved once per target type
+ * when an injection site is compiled, and converts the value returned by JsonWebToken#getClaim, whatever its form,
+ * e.g. a Long, JsonNumber or numeric String for a Long target. A value that cannot be converted converts to null.
+ *
+ * The supported targets are String, Long, Integer, Double, Boolean and their primitives, Set&lt;T&gt; and
+ * List&lt;T&gt; of the supported types, the JsonValue types, and Instant, OffsetDateTime, ZonedDateTime and
+ * LocalDateTime (UTC) for the NumericDate claims such as exp, iat and auth_time. Any other target gets the claim
+ * value as is.
+ */
+public final class ClaimConverters {
+    /** The converter of the targets that take the claim value as is */
+    public static final Function<Object, Object> IDENTITY = value -> value;
+
+    private static final ConcurrentHashMap<String, Function<Object, Object>> converters = new ConcurrentHashMap<>();
+
+    private ClaimConverters() {}
+
+    /**
+     * Get the converter for an injection target type
+     * @param targetType - the claim type of the injection site without any ClaimValue, Provider or Optional wrapper
+     * @return the shared converter of the type
+     */
+    public static Function<Object, Object> forType(Type targetType) {
+        String typeName = targetType.getTypeName();
+        Function<Object, Object> converter = converters.get(typeName);
+        if(converter == null) {
+            converter = create(targetType);
+            Function<Object, Object> existing = converters.putIfAbsent(typeName, converter);
+            if(existing != null) {
+                converter = existing;
+            }
+        }
+        return converter;
+    }
+
+    private static Function<Object, Object> create(Type targetType) {
+        Class<?> rawClass = targetType instanceof Class ? (Class<?>) targetType
+                : targetType instanceof ParameterizedType ? (Class<?>) ((ParameterizedType) targetType).getRawType()
+                : Object.class;
+        if(rawClass == String.class) {
+            return ClaimConverters::toStringValue;
+        }
+        if(rawClass == Long.class || rawClass == long.class) {
+            return ClaimConverters::toLong;
+        }
+        if(rawClass == Integer.class || rawClass == int.class) {
+            return ClaimConverters::toInteger;
+        }
+        if(rawClass == Double.class || rawClass == double.class) {
+            return ClaimConverters::toDouble;
+        }
+        if(rawClass == Boolean.class || rawClass == boolean.class) {
+            return ClaimConverters::toBoolean;
+        }
+        if(rawClass == Set.class || rawClass == List.class) {
+            Type elementType = targetType instanceof ParameterizedType
+                    ? ((ParameterizedType) targetType).getActualTypeArguments()[0] : Object.class;
+            Function<Object, Object> elementConverter = forType(elementType);
+            return rawClass == Set.class ? value -> toSet(value, elementConverter)
+                    : value -> toList(value, elementConverter);
+        }
+        if(JsonValue.class.isAssignableFrom(rawClass)) {
+            return value -> {
+                JsonValue jsonValue = MPJWTProducer.wrapValue(value);
+                return rawClass.isInstance(jsonValue) ? jsonValue : null;
+            };
+        }
+        if(rawClass == Instant.class) {
+            return ClaimConverters::toInstant;
+        }
+        if(rawClass == OffsetDateTime.class) {
+            return value -> {
+                Instant instant = toInstant(value);
+                return instant != null ? instant.atOffset(ZoneOffset.UTC) : null;
+            };
+        }
+        if(rawClass == ZonedDateTime.class) {
+            return value -> {
+                Instant instant = toInstant(value);
+                return instant != null ? instant.atZone(ZoneOffset.UTC) : null;
+            };
+        }
+        if(rawClass == LocalDateTime.class) {
+            return value -> {
+                Instant instant = toInstant(value);
+                return instant != null ? LocalDateTime.ofInstant(instant, ZoneOffset.UTC) : null;
+            };
+        }
+        return IDENTITY;
+    }
+
+    private static Object toStringValue(Object value) {
+        if(value instanceof String || value == null) {
+            return value;
+        }
+        if(value instanceof JsonString) {
+            return ((JsonString) value).getString();
+        }
+        if(value instanceof Number || value instanceof Boolean || value instanceof JsonNumber) {
+            return value.toString();
+        }
+        return null;
+    }
+
+    /**
+     * The claim value as a Long, null if it is not a number, has a fractional part or does not fit in a long
+     */
+    private static Long toLong(Object value) {
+        if(value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        if(value instanceof Double || value instanceof Float) {
+            double doubleValue = ((Number) value).doubleValue();
+            return Double.isFinite(doubleValue) ? exactLong(BigDecimal.valueOf(doubleValue)) : null;
+        }
+        if(value instanceof BigDecimal) {
+            return exactLong((BigDecimal) value);
+        }
+        if(value instanceof JsonNumber) {
+            return exactLong(((JsonNumber) value).bigDecimalValue());
+        }
+        String string = value instanceof JsonString ? ((JsonString) value).getString()
+                : value instanceof Number || value instanceof String ? value.toString() : null;
+        if(string != null) {
+            try {
+                return exactLong(new BigDecimal(string.trim()));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the value as a long if it has no fractional part and fits in a long, null otherwise
+     */
+    private static Long exactLong(BigDecimal value) {
+        try {
+            return value.longValueExact();
+        } catch (ArithmeticException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The claim value as an Integer, null if it is not a number, has a fractional part or does not fit in an int
+     */
+    private static Integer toInteger(Object value) {
+        Long longValue = toLong(value);
+        if(longValue == null) {
+            return null;
+        }
+        try {
+            return Math.toIntExact(longValue);
+        } catch (ArithmeticException e) {
+            return null;
+        }
+    }
+
+    private static Double toDouble(Object value) {
+        if(value instanceof Double) {
+            return (Double) value;
+        }
+        if(value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if(value instanceof JsonNumber) {
+            return ((JsonNumber) value).doubleValue();
+        }
+        String string = value instanceof JsonString ? ((JsonString) value).getString()
+                : value instanceof String ? (String) value : null;
+        if(string != null) {
+            try {
+                return Double.valueOf(string.trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static Boolean toBoolean(Object value) {
+        if(value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        if(value == JsonValue.TRUE || value == JsonValue.FALSE) {
+            return value == JsonValue.TRUE;
+        }
+        if(value instanceof JsonValue && ((JsonValue) value).getValueType() != JsonValue.ValueType.STRING) {
+            JsonValue.ValueType valueType = ((JsonValue) value).getValueType();
+            return valueType == JsonValue.ValueType.TRUE ? Boolean.TRUE
+                    : valueType == JsonValue.ValueType.FALSE ? Boolean.FALSE : null;
+        }
+        String string = value instanceof JsonString ? ((JsonString) value).getString()
+                : value instanceof String ? (String) value : null;
+        if("true".equalsIgnoreCase(string)) {
+            return Boolean.TRUE;
+        }
+        if("false".equalsIgnoreCase(string)) {
+            return Boolean.FALSE;
+        }
+        return null;
+    }
+
+    /**
+     * Convert a NumericDate claim, which is the number of seconds since the epoch. A fractional NumericDate is not
+     * converted, as with the other integral types.
+     */
+    private static Instant toInstant(Object value) {
+        if(value instanceof Instant) {
+            return (Instant) value;
+        }
+        Long seconds = toLong(value);
+        return seconds != null ? Instant.ofEpochSecond(seconds) : null;
+    }
+
+    private static Set<Object> toSet(Object value, Function<Object, Object> elementConverter) {
+        Collection<?> elements = toElements(value);
+        if(elements == null) {
+            return null;
+        }
+        LinkedHashSet<Object> set = new LinkedHashSet<>();
+        for(Object element : elements) {
+            Object converted = elementConverter.apply(element);
+            if(converted != null) {
+                set.add(converted);
+            }
+        }
+        return Collections.unmodifiableSet(set);
+    }
+
+    private static List<Object> toList(Object value, Function<Object, Object> elementConverter) {
+        Collection<?> elements = toElements(value);
+        if(elements == null) {
+            return null;
+        }
+        ArrayList<Object> list = new ArrayList<>(elements.size());
+        for(Object element : elements) {
+            Object converted = elementConverter.apply(element);
+            if(converted != null) {
+                list.add(converted);
+            }
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Get the elements of an array claim, treating a single value as a one element array
+     */
+    private static Collection<?> toElements(Object value) {
+        if(value == null) {
+            return null;
+        }
+        if(value instanceof JsonArray || value instanceof Collection) {
+            // A JsonArray is a List<JsonValue>
+            return (Collection<?>) value;
+        }
+        return Collections.singletonList(value);
+    }
+}
@@ -0,0 +1,187 @@
+package org.eclipse.microprofile.jwt.wfswarm.cdi;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Member;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Optional;
+import java.util.function.Function;
+
+import javax.enterprise.inject.spi.Annotated;
+import javax.enterprise.inject.spi.AnnotatedParameter;
+import javax.enterprise.inject.spi.DeploymentException;
+import javax.enterprise.inject.spi.InjectionPoint;
+import javax.inject.Provider;
+import javax.json.JsonValue;
+
+import org.eclipse.microprofile.jwt.Claim;
+import org.eclipse.microprofile.jwt.ClaimValue;
+import org.eclipse.microprofile.jwt.Claims;
+
+/**
+ * The immutable description of a @Claim injection site, compiled once when the site is processed so that the
+ * producers only look the claim up in the current TokenClaimValues at injection time. The claim name is resolved
+ * from the @Claim standard or value, or for an empty @Claim("") the field or parameter name, and the ClaimValue,
+ * Provider and Optional wrappers are unwrapped to the target type of the claim, whose ClaimConverters converter is
+ * resolved here as well.
+ */
+public final class ClaimInjectionDescriptor {
+    private final String claimName;
+    /** The declared type of the injection site */
+    private final Type type;
+    /** The claim type after removing the ClaimValue, Provider and Optional wrappers */
+    private final Type targetType;
+    /** Is the claim value wrapped in an Optional */
+    private final boolean optional;
+    /** Is the injection site a JsonValue */
+    private final boolean jsonValue;
+    /** The ClaimConverters converter of the target type */
+    private final Function<Object, Object> converter;
+
+    private ClaimInjectionDescriptor(String claimName, Type type, Type targetType, boolean optional, boolean jsonValue) {
+        this.claimName = claimName;
+        this.type = type;
+        this.targetType = targetType;
+        this.optional = optional;
+        this.jsonValue = jsonValue;
+        this.converter = ClaimConverters.forType(targetType);
+    }
+
+    /**
+     * Compile the descriptor of a @Claim injection site
+     * @param ip - the injection point
+     * @return the descriptor, null if the injection point has no @Claim qualifier
+     * @throws DeploymentException - for an empty @Claim("") on a parameter whose name was not compiled in
+     */
+    public static ClaimInjectionDescriptor of(InjectionPoint ip) {
+        Claim claim = findClaim(ip);
+        if(claim == null) {
+            return null;
+        }
+        String claimName = claim.standard() == Claims.UNKNOWN ? claim.value() : claim.standard().name();
+        if(claimName.length() == 0) {
+            claimName = siteName(ip);
+        }
+        Type type = ip.getType();
+        Type valueType = type;
+        Class<?> rawClass = rawClass(type);
+        if(rawClass == ClaimValue.class || rawClass == Provider.class) {
+            valueType = typeArgument(type);
+        }
+        boolean optional = rawClass(valueType) == Optional.class;
+        Type targetType = optional ? typeArgument(valueType) : valueType;
+        boolean jsonValue = rawClass != null && JsonValue.class.isAssignableFrom(rawClass);
+        return new ClaimInjectionDescriptor(claimName, type, targetType, optional, jsonValue);
+    }
+
+    public String getClaimName() {
+        return claimName;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Type getTargetType() {
+        return targetType;
+    }
+
+    public boolean isOptional() {
+        return optional;
+    }
+
+    public boolean isJsonValue() {
+        return jsonValue;
+    }
+
+    public Function<Object, Object> getConverter() {
+        return converter;
+    }
+
+    /**
+     * Get the claim value of a token converted to the target type of the site
+     * @param claimValues - the claim values of the token
+     * @return the claim value, null if the token does not have the claim or it cannot be converted
+     */
+    Object getValue(TokenClaimValues claimValues) {
+        Object value = claimValues.getConvertedValue(claimName, converter);
+        if(ClaimLookupStats.ENABLED) {
+            ClaimLookupStats.lookup(value != null);
+        }
+        return value;
+    }
+
+    /**
+     * Get the value to inject for the current token, wrapped in an Optional if the site is an Optional
+     * @return the injected value
+     */
+    Object resolve() {
+        TokenClaimValues claimValues = MPJWTProducer.currentClaimValues();
+        Object value = null;
+        if(claimValues != null) {
+            value = getValue(claimValues);
+        } else if(ClaimLookupStats.ENABLED) {
+            ClaimLookupStats.noToken();
+        }
+        return optional ? Optional.ofNullable(value) : value;
+    }
+
+    @Override
+    public String toString() {
+        return "ClaimInjectionDescriptor{" +
+                "claimName=" + claimName +
+                ", type=" + type +
+                ", optional=" + optional +
+                '}';
+    }
+
+    /**
+     * The name of the field or parameter of an injection site, which names the claim of an empty @Claim("")
+     */
+    private static String siteName(InjectionPoint ip) {
+        Member member = ip.getMember();
+        if(ip.getAnnotated() instanceof AnnotatedParameter) {
+            AnnotatedParameter<?> annotated = (AnnotatedParameter<?>) ip.getAnnotated();
+            Member callable = annotated.getDeclaringCallable().getJavaMember();
+            Parameter parameter = ((Executable) callable).getParameters()[annotated.getPosition()];
+            if(!parameter.isNamePresent()) {
+                throw new DeploymentException("@Claim at: "+ip+" has no name, and the parameter name is not " +
+                        "available without the javac -parameters option");
+            }
+            return parameter.getName();
+        }
+        return member != null ? member.getName() : "";
+    }
+
+    private static Claim findClaim(InjectionPoint ip) {
+        Annotated annotated = ip.getAnnotated();
+        if(annotated != null && annotated.isAnnotationPresent(Claim.class)) {
+            return annotated.getAnnotation(Claim.class);
+        }
+        for(Annotation qualifier : ip.getQualifiers()) {
+            if(qualifier instanceof Claim) {
+                return (Claim) qualifier;
+            }
+        }
+        return null;
+    }
+
+    private static Class<?> rawClass(Type type) {
+        if(type instanceof Class) {
+            return (Class<?>) type;
+        }
+        if(type instanceof ParameterizedType) {
+            return rawClass(((ParameterizedType) type).getRawType());
+        }
+        return null;
+    }
+
+    private static Type typeArgument(Type type) {
+        if(type instanceof ParameterizedType) {
+            return ((ParameterizedType) type).getActualTypeArguments()[0];
+        }
+        return Object.class;
+    }
+}
@@ -6,6 +6,19 @@ import org.eclipse.microprofile.jwt.Claim;
 import org.eclipse.microprofile.jwt.Claims;
 
 public class ClaimLiteral extends AnnotationLiteral<Claim> implements Claim {
-    public String value() { return ""; }
+    private final String value;
+
+    public ClaimLiteral() {
+        this("");
+    }
+
+    /**
+     * @param value - the claim name of the @Claim value
+     */
+    public ClaimLiteral(String value) {
+        this.value = value;
+    }
+
+    public String value() { return value; }
     public Claims standard() { return Claims.UNKNOWN; }
 }
@@ -0,0 +1,64 @@
+package org.eclipse.microprofile.jwt.wfswarm.cdi;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Optional counters for the claim lookups done by the claim injection producers. The counters are only updated
+ * when the mpjwt.claimStats system property is set to true, so there is no cost by default.
+ */
+public class ClaimLookupStats {
+    /** Are the claim lookup counters enabled */
+    public static final boolean ENABLED = Boolean.getBoolean("mpjwt.claimStats");
+
+    private static final LongAdder lookups = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+    private static final LongAdder noToken = new LongAdder();
+
+    private ClaimLookupStats() {}
+
+    /**
+     * Record a claim lookup against the current token
+     * @param found - was the claim present in the token
+     */
+    static void lookup(boolean found) {
+        lookups.increment();
+        if(!found) {
+            misses.increment();
+        }
+    }
+
+    /**
+     * Record a claim lookup when there was no current token
+     */
+    static void noToken() {
+        lookups.increment();
+        noToken.increment();
+    }
+
+    /**
+     * @return the total number of claim lookups
+     */
+    public static long getLookups() {
+        return lookups.sum();
+    }
+
+    /**
+     * @return the number of lookups of a claim that was not in the current token
+     */
+    public static long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the number of lookups made when there was no current token
+     */
+    public static long getNoToken() {
+        return noToken.sum();
+    }
+
+    public static void reset() {
+        lookups.reset();
+        misses.reset();
+        noToken.reset();
+    }
+}
@@ -1,9 +1,7 @@
 package org.eclipse.microprofile.jwt.wfswarm.cdi;
 
-import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.HashSet;
-import java.util.Optional;
 import java.util.Set;
 
 import javax.enterprise.context.spi.CreationalContext;
@@ -11,15 +9,18 @@ import javax.enterprise.inject.spi.InjectionPoint;
 import javax.enterprise.inject.spi.Producer;
 
 import org.eclipse.microprofile.jwt.ClaimValue;
+import org.jboss.logging.Logger;
 
 /**
  *
  * @param <T> the raw claim type
  */
 public class ClaimValueProducer<T> implements Producer<ClaimValue<T>> {
+    private static Logger log = Logger.getLogger(ClaimValueProducer.class);
     private MPJWTExtension.ClaimIP claimIP;
-    private Type type;
-    private Type valueType;
+    private ClaimInjectionDescriptor descriptor;
+    /** The ClaimValue of the injection sites, which is immutable and resolves the claim of the current token */
+    private LazyClaimValue<T> claimValue;
 
     ClaimValueProducer(MPJWTExtension.ClaimIP claimIP) {
         this.claimIP = claimIP;
@@ -31,25 +32,17 @@ public class ClaimValueProducer<T> implements Producer<ClaimValue<T>> {
         if(types.size() > 1) {
             throw new IllegalStateException(String.format("Multiple injection point types: %s for claim: %s", types, claimIP.getClaim().value()));
         }
-        this.type = types.iterator().next();
-        this.valueType = type;
-        if (type instanceof ParameterizedType) {
-            valueType = ((ParameterizedType) type).getActualTypeArguments()[0];
-        }
+        this.descriptor = ClaimInjectionDescriptor.of(claimIP.getInjectionPoints().iterator().next());
+        this.claimValue = new LazyClaimValue<>(descriptor.getClaimName(), descriptor.isOptional(),
+                descriptor.getConverter());
     }
     @Override
     public ClaimValue<T> produce(CreationalContext<ClaimValue<T>> ctx) {
-        System.out.printf("ClaimValueProducer(%s).produce\n", claimIP);
-        ClaimValue<Optional<T>> cv = MPJWTProducer.generalClaimValueProducer(claimIP.getClaimName());
-        ClaimValue<T> returnValue = (ClaimValue<T>) cv;
-        Optional<T> value = cv.getValue();
-        if(!valueType.getTypeName().startsWith(Optional.class.getTypeName())) {
-            T nestedValue = value.orElse(null);
-            ClaimValueWrapper<T> wrapper = new ClaimValueWrapper<>(cv.getName());
-            wrapper.setValue(nestedValue);
-            returnValue = wrapper;
+        if(log.isTraceEnabled()) {
+            log.tracef("ClaimValueProducer(%s).produce", claimIP);
         }
-        return returnValue;
+        // The value is only resolved when the injection site calls getValue
+        return claimValue;
     }
 
     @Override
@@ -3,17 +3,21 @@ package org.eclipse.microprofile.jwt.wfswarm.cdi;
 import javax.enterprise.inject.Vetoed;
 
 import org.eclipse.microprofile.jwt.ClaimValue;
+import org.jboss.logging.Logger;
 
 /**
  * An implementation of the ClaimValue interface
  * @param <T> the claim value type
  */
 public class ClaimValueWrapper<T> implements ClaimValue<T> {
+    private static Logger log = Logger.getLogger(ClaimValueWrapper.class);
     private String name;
     private T value;
 
     public ClaimValueWrapper(String name) {
-        System.err.printf("ClaimValueWrapper[@%s](%s)\n", Integer.toHexString(hashCode()), name);
+        if(log.isTraceEnabled()) {
+            log.tracef("ClaimValueWrapper[@%s](%s)", Integer.toHexString(hashCode()), name);
+        }
         this.name = name;
     }
     @Override
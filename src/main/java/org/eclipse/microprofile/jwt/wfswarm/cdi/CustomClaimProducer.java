@@ -1,55 +1,44 @@
 package org.eclipse.microprofile.jwt.wfswarm.cdi;
 
-import java.lang.annotation.Annotation;
 import java.util.Optional;
 
+import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.context.Dependent;
 import javax.enterprise.inject.Produces;
 import javax.enterprise.inject.spi.InjectionPoint;
-import javax.json.JsonNumber;
+import javax.inject.Inject;
 
 import org.eclipse.microprofile.jwt.Claim;
-import org.eclipse.microprofile.jwt.Claims;
-import org.eclipse.microprofile.jwt.JsonWebToken;
 
+/**
+ * The producers of the @Claim("") raw and Optional injection sites, which resolve the claim through the
+ * ClaimInjectionDescriptor the MPJWTExtension compiled for the site
+ */
+@ApplicationScoped
 public class CustomClaimProducer {
+    @Inject
+    MPJWTExtension extension;
+
     @Claim("")
     @Dependent
     @Produces
     Object genericClaimProducer(InjectionPoint injectionPoint) {
-        JsonWebToken jwt = MPJWTProducer.getJWTPrincpal();
-        String name = getName(injectionPoint);
-        if (name == null || name.isEmpty() || jwt == null) {
+        TokenClaimValues claimValues = MPJWTProducer.currentClaimValues();
+        ClaimInjectionDescriptor descriptor = extension.getDescriptor(injectionPoint);
+        if (descriptor == null || descriptor.getClaimName().isEmpty() || claimValues == null) {
             return null;
         }
-        Object value = jwt.getClaim(name);
-        return value;
+        return descriptor.getValue(claimValues);
     }
     @Claim("")
     @Dependent
     @Produces
     Optional genericOptionalClaimProducer(InjectionPoint injectionPoint) {
-        JsonWebToken jwt = MPJWTProducer.getJWTPrincpal();
-        String name = getName(injectionPoint);
-        if (name == null || name.isEmpty() || jwt == null) {
+        TokenClaimValues claimValues = MPJWTProducer.currentClaimValues();
+        ClaimInjectionDescriptor descriptor = extension.getDescriptor(injectionPoint);
+        if (descriptor == null || descriptor.getClaimName().isEmpty() || claimValues == null) {
             return null;
         }
-        Object value = jwt.getClaim(name);
-        return Optional.ofNullable(value);
-    }
-    private String getName(InjectionPoint injectionPoint) {
-        for (Annotation qualifier : injectionPoint.getQualifiers()) {
-            if (qualifier.annotationType().equals(Claim.class)) {
-                // Check for a non-default value
-                Claim claim = (Claim) qualifier;
-                String name = claim.standard() == Claims.UNKNOWN ? claim.value() : claim.standard().name();
-                if(name.length() == 0) {
-                    //
-                    name = injectionPoint.getMember().getName();
-                }
-                return name;
-            }
-        }
-        return null;
+        return Optional.ofNullable(descriptor.getValue(claimValues));
     }
 }
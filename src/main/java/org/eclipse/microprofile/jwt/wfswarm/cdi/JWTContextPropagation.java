@@ -0,0 +1,183 @@
+package org.eclipse.microprofile.jwt.wfswarm.cdi;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.microprofile.jwt.JsonWebToken;
+
+/**
+ * Propagates the JsonWebToken of the current request to tasks run on other threads, e.g. the executor that completes
+ * a JAX-RS @Suspended AsyncResponse or a CompletionStage returned by a resource method. The token is captured when
+ * the task is wrapped, installed on the executing thread for the duration of the task, and removed afterwards, so
+ * MPJWTProducer.getJWTPrincpal and the ClaimValue&lt;T&gt; injections, which resolve on getValue, see the caller's
+ * token from within the task. The task shares the claim values already resolved by the request.
+ *
+ * No CDI request context is active on the executing thread, so the task must not use the @RequestScoped
+ * JsonWebToken or raw claim injections; capture what it needs, or read it through the propagated token:
+ *
+ * <pre>
+ * &#64;Inject &#64;Claim("sub") ClaimValue&lt;String&gt; sub;
+ *
+ * ExecutorService executor = JWTContextPropagation.wrap(managedExecutorService);
+ * executor.submit(() -&gt; asyncResponse.resume(MPJWTProducer.getJWTPrincpal().getName() + sub.getValue()));
+ * </pre>
+ */
+public final class JWTContextPropagation {
+    private static final ThreadLocal<TokenClaimValues> propagated = new ThreadLocal<>();
+
+    private JWTContextPropagation() {}
+
+    /**
+     * @return the token claim values installed by a propagating task running on the calling thread, null if there
+     * is none
+     */
+    static TokenClaimValues current() {
+        return propagated.get();
+    }
+
+    /**
+     * Wrap a task so that it runs with the JsonWebToken of the calling request
+     * @param task - the task to wrap
+     * @return the wrapped task, or the task itself if there is no current JsonWebToken
+     */
+    public static Runnable wrap(Runnable task) {
+        TokenClaimValues claimValues = MPJWTProducer.currentClaimValues();
+        if(claimValues == null) {
+            return task;
+        }
+        return wrap(task, claimValues);
+    }
+
+    /**
+     * Wrap a task so that it runs with a given JsonWebToken, e.g. one that was kept from an earlier request
+     * @param task - the task to wrap
+     * @param token - the token to install while the task runs
+     * @return the wrapped task
+     */
+    public static Runnable wrap(Runnable task, JsonWebToken token) {
+        return wrap(task, new TokenClaimValues(token));
+    }
+
+    /**
+     * Wrap a task so that it runs with the JsonWebToken of the calling request
+     * @param task - the task to wrap
+     * @param <V> the task result type
+     * @return the wrapped task, or the task itself if there is no current JsonWebToken
+     */
+    public static <V> Callable<V> wrap(Callable<V> task) {
+        TokenClaimValues claimValues = MPJWTProducer.currentClaimValues();
+        if(claimValues == null) {
+            return task;
+        }
+        return wrap(task, claimValues);
+    }
+
+    /**
+     * Wrap a task so that it runs with a given JsonWebToken, e.g. one that was kept from an earlier request
+     * @param task - the task to wrap
+     * @param token - the token to install while the task runs
+     * @param <V> the task result type
+     * @return the wrapped task
+     */
+    public static <V> Callable<V> wrap(Callable<V> task, JsonWebToken token) {
+        return wrap(task, new TokenClaimValues(token));
+    }
+
+    private static Runnable wrap(Runnable task, TokenClaimValues claimValues) {
+        return () -> {
+            TokenClaimValues previous = propagated.get();
+            propagated.set(claimValues);
+            try {
+                task.run();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    private static <V> Callable<V> wrap(Callable<V> task, TokenClaimValues claimValues) {
+        return () -> {
+            TokenClaimValues previous = propagated.get();
+            propagated.set(claimValues);
+            try {
+                return task.call();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    /**
+     * Wrap an Executor so that every task executed through it runs with the JsonWebToken of the request that
+     * submitted it
+     * @param executor - the executor to delegate to
+     * @return the propagating executor
+     */
+    public static Executor wrap(Executor executor) {
+        return command -> executor.execute(wrap(command));
+    }
+
+    /**
+     * Wrap an ExecutorService, e.g. a ManagedExecutorService, so that every task submitted through it runs with the
+     * JsonWebToken of the request that submitted it
+     * @param executor - the executor service to delegate to
+     * @return the propagating executor service
+     */
+    public static ExecutorService wrap(ExecutorService executor) {
+        return new PropagatingExecutorService(executor);
+    }
+
+    private static void restore(TokenClaimValues previous) {
+        if(previous == null) {
+            propagated.remove();
+        } else {
+            propagated.set(previous);
+        }
+    }
+
+    /**
+     * The submit and invoke methods of AbstractExecutorService all funnel through execute, which captures the
+     * token of the submitting thread.
+     */
+    private static class PropagatingExecutorService extends AbstractExecutorService {
+        private final ExecutorService delegate;
+
+        PropagatingExecutorService(ExecutorService delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            delegate.execute(wrap(command));
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+}
@@ -1,9 +1,7 @@
 package org.eclipse.microprofile.jwt.wfswarm.cdi;
 
-import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.HashSet;
-import java.util.Optional;
 import java.util.Set;
 
 import javax.enterprise.context.spi.CreationalContext;
@@ -11,15 +9,15 @@ import javax.enterprise.inject.spi.InjectionPoint;
 import javax.enterprise.inject.spi.Producer;
 import javax.json.JsonValue;
 
-import org.eclipse.microprofile.jwt.ClaimValue;
+import org.jboss.logging.Logger;
 
 /**
  * A producer for JsonValue injection types
  */
 public class JsonValueProducer implements Producer<JsonValue> {
+    private static Logger log = Logger.getLogger(JsonValueProducer.class);
     private MPJWTExtension.ClaimIP claimIP;
-    private Type type;
-    private Type valueType;
+    private ClaimInjectionDescriptor descriptor;
 
     JsonValueProducer(MPJWTExtension.ClaimIP claimIP) {
         this.claimIP = claimIP;
@@ -31,17 +29,14 @@ public class JsonValueProducer implements Producer<JsonValue> {
         if(types.size() > 1) {
             throw new IllegalStateException(String.format("Multiple injection point types: %s for claim: %s", types, claimIP.getClaim().value()));
         }
-        this.type = types.iterator().next();
-        this.valueType = type;
-        if (type instanceof ParameterizedType) {
-            valueType = ((ParameterizedType) type).getActualTypeArguments()[0];
-        }
+        this.descriptor = ClaimInjectionDescriptor.of(claimIP.getInjectionPoints().iterator().next());
     }
     @Override
     public JsonValue produce(CreationalContext<JsonValue> ctx) {
-        System.out.printf("JsonValueProducer(%s).produce\n", claimIP);
-        JsonValue jsonValue = MPJWTProducer.generalJsonValueProducer(claimIP.getClaimName());
-        return jsonValue;
+        if(log.isTraceEnabled()) {
+            log.tracef("JsonValueProducer(%s).produce", claimIP);
+        }
+        return (JsonValue) descriptor.resolve();
     }
 
     @Override
@@ -0,0 +1,237 @@
+package org.eclipse.microprofile.jwt.wfswarm.cdi;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import javax.json.JsonNumber;
+import javax.json.JsonString;
+
+/**
+ * Immutable JsonString and JsonNumber values created directly from the claim value, without going through a
+ * JsonObjectBuilder. JSON-P 1.0 has no Json.createValue factory for scalars, so these follow the equals, hashCode
+ * and toString contracts of the javax.json interfaces.
+ */
+final class JsonValues {
+    private JsonValues() {}
+
+    static JsonString createValue(String value) {
+        return new StringValue(value);
+    }
+
+    static JsonNumber createValue(long value) {
+        return new LongValue(value);
+    }
+
+    static JsonNumber createValue(double value) {
+        return new DecimalValue(BigDecimal.valueOf(value));
+    }
+
+    private static final class StringValue implements JsonString {
+        private final String value;
+
+        StringValue(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public String getString() {
+            return value;
+        }
+
+        @Override
+        public CharSequence getChars() {
+            return value;
+        }
+
+        @Override
+        public ValueType getValueType() {
+            return ValueType.STRING;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof JsonString && value.equals(((JsonString) obj).getString());
+        }
+
+        @Override
+        public int hashCode() {
+            return value.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder json = new StringBuilder(value.length() + 2);
+            json.append('"');
+            for(int n = 0; n < value.length(); n ++) {
+                char c = value.charAt(n);
+                switch (c) {
+                    case '"':
+                        json.append("\\\"");
+                        break;
+                    case '\\':
+                        json.append("\\\\");
+                        break;
+                    case '\b':
+                        json.append("\\b");
+                        break;
+                    case '\f':
+                        json.append("\\f");
+                        break;
+                    case '\n':
+                        json.append("\\n");
+                        break;
+                    case '\r':
+                        json.append("\\r");
+                        break;
+                    case '\t':
+                        json.append("\\t");
+                        break;
+                    default:
+                        if(c < 0x20) {
+                            json.append(String.format("\\u%04x", (int) c));
+                        } else {
+                            json.append(c);
+                        }
+                }
+            }
+            json.append('"');
+            return json.toString();
+        }
+    }
+
+    /**
+     * The common JsonNumber contract based on the BigDecimal value of the number
+     */
+    private abstract static class NumberValue implements JsonNumber {
+        @Override
+        public ValueType getValueType() {
+            return ValueType.NUMBER;
+        }
+
+        @Override
+        public int intValueExact() {
+            return bigDecimalValue().intValueExact();
+        }
+
+        @Override
+        public long longValueExact() {
+            return bigDecimalValue().longValueExact();
+        }
+
+        @Override
+        public BigInteger bigIntegerValue() {
+            return bigDecimalValue().toBigInteger();
+        }
+
+        @Override
+        public BigInteger bigIntegerValueExact() {
+            return bigDecimalValue().toBigIntegerExact();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof JsonNumber && bigDecimalValue().equals(((JsonNumber) obj).bigDecimalValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return bigDecimalValue().hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return bigDecimalValue().toString();
+        }
+    }
+
+    private static final class LongValue extends NumberValue {
+        private final long value;
+
+        LongValue(long value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean isIntegral() {
+            return true;
+        }
+
+        @Override
+        public int intValue() {
+            return (int) value;
+        }
+
+        @Override
+        public int intValueExact() {
+            return Math.toIntExact(value);
+        }
+
+        @Override
+        public long longValue() {
+            return value;
+        }
+
+        @Override
+        public long longValueExact() {
+            return value;
+        }
+
+        @Override
+        public BigInteger bigIntegerValue() {
+            return BigInteger.valueOf(value);
+        }
+
+        @Override
+        public BigInteger bigIntegerValueExact() {
+            return BigInteger.valueOf(value);
+        }
+
+        @Override
+        public double doubleValue() {
+            return value;
+        }
+
+        @Override
+        public BigDecimal bigDecimalValue() {
+            return BigDecimal.valueOf(value);
+        }
+
+        @Override
+        public String toString() {
+            return Long.toString(value);
+        }
+    }
+
+    private static final class DecimalValue extends NumberValue {
+        private final BigDecimal value;
+
+        DecimalValue(BigDecimal value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean isIntegral() {
+            return value.scale() == 0;
+        }
+
+        @Override
+        public int intValue() {
+            return value.intValue();
+        }
+
+        @Override
+        public long longValue() {
+            return value.longValue();
+        }
+
+        @Override
+        public double doubleValue() {
+            return value.doubleValue();
+        }
+
+        @Override
+        public BigDecimal bigDecimalValue() {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package org.eclipse.microprofile.jwt.wfswarm.cdi;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+import org.eclipse.microprofile.jwt.ClaimValue;
+
+/**
+ * A ClaimValue that resolves its value from the current JsonWebToken each time getValue is called rather than when
+ * it is injected. The lookup goes through the per token claim values, so repeated access does not convert the claim
+ * again, and an injection into a wider scoped bean always sees the claim of the current request.
+ * @param <T> the claim value type
+ */
+public class LazyClaimValue<T> implements ClaimValue<T> {
+    private final String name;
+    private final boolean isOptional;
+    private final Function<Object, Object> converter;
+
+    /**
+     *
+     * @param name - the claim name
+     * @param isOptional - whether the value type is an Optional wrapper of the claim value
+     */
+    public LazyClaimValue(String name, boolean isOptional) {
+        this(name, isOptional, ClaimConverters.IDENTITY);
+    }
+
+    /**
+     *
+     * @param name - the claim name
+     * @param isOptional - whether the value type is an Optional wrapper of the claim value
+     * @param converter - the ClaimConverters converter of the claim value type
+     */
+    LazyClaimValue(String name, boolean isOptional, Function<Object, Object> converter) {
+        this.name = name;
+        this.isOptional = isOptional;
+        this.converter = converter;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public T getValue() {
+        Object value = MPJWTProducer.getValue(name, isOptional, converter);
+        if(isOptional) {
+            value = Optional.ofNullable(value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LazyClaimValue[@%s], name=%s, optional=%s", Integer.toHexString(hashCode()),
+                name, isOptional);
+    }
+}
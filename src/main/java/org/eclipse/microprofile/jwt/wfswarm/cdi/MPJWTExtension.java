@@ -6,9 +6,11 @@ import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.HashMap;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.context.SessionScoped;
@@ -17,6 +19,7 @@ import javax.enterprise.inject.spi.AfterBeanDiscovery;
 import javax.enterprise.inject.spi.AfterDeploymentValidation;
 import javax.enterprise.inject.spi.Annotated;
 import javax.enterprise.inject.spi.AnnotatedMethod;
+import javax.enterprise.inject.spi.AnnotatedParameter;
 import javax.enterprise.inject.spi.AnnotatedType;
 import javax.enterprise.inject.spi.Bean;
 import javax.enterprise.inject.spi.BeanAttributes;
@@ -36,6 +39,7 @@ import javax.json.JsonValue;
 import org.eclipse.microprofile.jwt.Claim;
 import org.eclipse.microprofile.jwt.ClaimValue;
 import org.eclipse.microprofile.jwt.Claims;
+import org.jboss.logging.Logger;
 import org.jboss.weld.bean.ProducerMethod;
 
 /**
@@ -53,17 +57,38 @@ import org.jboss.weld.bean.ProducerMethod;
  * @see org.eclipse.microprofile.jwt.wfswarm.JWTAuthMechanism
  */
 public class MPJWTExtension implements Extension {
+    private static Logger log = Logger.getLogger(MPJWTExtension.class);
     /**
-     * A key for a claim,injection site type pair
+     * A key for a claim,injection site type pair. Two keys are equal if they have the same claim name and type name,
+     * consistent with the ordering, so that the injection sites of a pair share one ClaimIP and producer bean.
      */
     public static class ClaimIPType implements Comparable<ClaimIPType> {
-        private String claimName;
-        private Type ipType;
-
+        private final String claimName;
+        private final Type ipType;
+        private final String typeName;
 
         public ClaimIPType(String claimName, Type ipType) {
             this.claimName = claimName;
             this.ipType = ipType;
+            this.typeName = ipType.getTypeName();
+        }
+
+        /**
+         * Create the key of a @Claim injection site from the claim name the site resolves to, so that empty
+         * @Claim("") sites of differently named fields or parameters have different keys
+         * @param ip - the injection point of the site
+         * @return the key of the site
+         */
+        public static ClaimIPType of(InjectionPoint ip) {
+            ClaimInjectionDescriptor descriptor = ClaimInjectionDescriptor.of(ip);
+            if(descriptor == null || descriptor.getClaimName().isEmpty()) {
+                throw new DeploymentException("@Claim at: "+ip+" has no name or valid standard enum setting");
+            }
+            return new ClaimIPType(descriptor.getClaimName(), ip.getType());
+        }
+
+        public String getClaimName() {
+            return claimName;
         }
 
         /**
@@ -75,10 +100,32 @@ public class MPJWTExtension implements Extension {
         public int compareTo(ClaimIPType o) {
             int compareTo = claimName.compareTo(o.claimName);
             if(compareTo == 0) {
-                compareTo = ipType.getTypeName().compareTo(o.ipType.getTypeName());
+                compareTo = typeName.compareTo(o.typeName);
             }
             return compareTo;
         }
+
+        @Override
+        public boolean equals(Object o) {
+            if(this == o) {
+                return true;
+            }
+            if(!(o instanceof ClaimIPType)) {
+                return false;
+            }
+            ClaimIPType other = (ClaimIPType) o;
+            return claimName.equals(other.claimName) && typeName.equals(other.typeName);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * claimName.hashCode() + typeName.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return claimName + ":" + typeName;
+        }
     }
 
     /**
@@ -174,6 +221,8 @@ public class MPJWTExtension implements Extension {
     private Set<Type> rawTypes = new HashSet<>();
     private Set<Annotation> rawTypeQualifiers = new HashSet<>();
     private Set<Annotation> providerQualifiers = new HashSet<>();
+    /** The compiled @Claim injection sites by member, or member and parameter position */
+    private final ConcurrentHashMap<Object, ClaimInjectionDescriptor> descriptors = new ConcurrentHashMap<>();
 
     /**
      * Register the MPJWTProducer JsonWebToken producer bean
@@ -181,18 +230,57 @@ public class MPJWTExtension implements Extension {
      * @param beanManager cdi bean manager
      */
     public void observeBeforeBeanDiscovery(@Observes BeforeBeanDiscovery bbd, BeanManager beanManager) {
-        System.out.printf("MPJWTExtension(1.0.2), added JWTPrincipalProducer\n");
+        log.debug("MPJWTExtension(1.0.2), added JWTPrincipalProducer");
         bbd.addAnnotatedType(beanManager.createAnnotatedType(MPJWTProducer.class));
         bbd.addAnnotatedType(beanManager.createAnnotatedType(CustomClaimProducer.class));
         bbd.addAnnotatedType(beanManager.createAnnotatedType(RawClaimTypeProducer.class));
     }
 
+    /**
+     * Compile the descriptor of every @Claim injection site, so that the claim producers do not resolve the claim
+     * name and wrapper types of the site on every injection
+     * @param pip - the injection point event information
+     */
+    void compileClaimInjections(@Observes ProcessInjectionPoint<?, ?> pip) {
+        InjectionPoint ip = pip.getInjectionPoint();
+        if (ip.getMember() != null && ip.getAnnotated() != null && ip.getAnnotated().isAnnotationPresent(Claim.class)) {
+            ClaimInjectionDescriptor descriptor = ClaimInjectionDescriptor.of(ip);
+            descriptors.put(siteKey(ip), descriptor);
+            log.debugf("Compiled %s for ip: %s", descriptor, ip);
+        }
+    }
+
+    /**
+     * Get the descriptor of a @Claim injection site
+     * @param ip - the injection point of the site
+     * @return the descriptor compiled for the site, or compiled now for a site that was not processed, e.g. a
+     * programmatic lookup
+     */
+    ClaimInjectionDescriptor getDescriptor(InjectionPoint ip) {
+        ClaimInjectionDescriptor descriptor = ip.getMember() != null ? descriptors.get(siteKey(ip)) : null;
+        if(descriptor == null) {
+            descriptor = ClaimInjectionDescriptor.of(ip);
+        }
+        return descriptor;
+    }
+
+    /**
+     * The key of an injection site, which is the same for the InjectionPoint seen by ProcessInjectionPoint and the
+     * one passed to the producer
+     */
+    private static Object siteKey(InjectionPoint ip) {
+        if(ip.getAnnotated() instanceof AnnotatedParameter) {
+            return Arrays.asList(ip.getMember(), ((AnnotatedParameter<?>) ip.getAnnotated()).getPosition());
+        }
+        return ip.getMember();
+    }
+
     void doProcessProducers(@Observes ProcessProducer pp) {
-        System.out.printf("pp: %s, %s\n", pp.getAnnotatedMember(), pp.getProducer());
+        log.debugf("pp: %s, %s", pp.getAnnotatedMember(), pp.getProducer());
     }
 
     void processClaimValueInjections(@Observes ProcessInjectionPoint pip) {
-        System.out.printf("pipRaw: %s\n", pip.getInjectionPoint());
+        log.debugf("pipRaw: %s", pip.getInjectionPoint());
         InjectionPoint ip = pip.getInjectionPoint();
         if (ip.getAnnotated().isAnnotationPresent(Claim.class) && ip.getType() instanceof Class) {
             Class rawClass = (Class) ip.getType();
@@ -200,7 +288,7 @@ public class MPJWTExtension implements Extension {
                 Claim claim = ip.getAnnotated().getAnnotation(Claim.class);
                 rawTypes.add(ip.getType());
                 rawTypeQualifiers.add(claim);
-                System.out.printf("+++ Added Claim raw type: %s\n", ip.getType());
+                log.debugf("+++ Added Claim raw type: %s", ip.getType());
                 Class declaringClass = ip.getMember().getDeclaringClass();
                 Annotation[] appScoped = declaringClass.getAnnotationsByType(ApplicationScoped.class);
                 Annotation[] sessionScoped = declaringClass.getAnnotationsByType(SessionScoped.class);
@@ -218,26 +306,22 @@ public class MPJWTExtension implements Extension {
      * @param pip - the injection point event information
      */
     void processClaimJsonValueInjections(@Observes ProcessInjectionPoint<?, ? extends JsonValue> pip) {
-        System.out.printf("pip: %s\n", pip.getInjectionPoint());
+        log.debugf("pip: %s", pip.getInjectionPoint());
         final InjectionPoint ip = pip.getInjectionPoint();
         if (ip.getAnnotated().isAnnotationPresent(Claim.class)) {
-            Claim claim = ip.getAnnotated().getAnnotation(Claim.class);
-            if(claim.value().length() == 0 && claim.standard() == Claims.UNKNOWN) {
-                throw new DeploymentException("@Claim at: "+ip+" has no name or valid standard enum setting");
-            }
-            boolean usesEnum = claim.standard() != Claims.UNKNOWN;
-            final String claimName = usesEnum ? claim.standard().name() : claim.value();
-            System.out.printf("Checking JsonValue Claim(%s), ip: %s\n", claimName, ip);
-            ClaimIP claimIP = claims.get(claimName);
+            ClaimIPType key = ClaimIPType.of(ip);
+            final String claimName = key.getClaimName();
+            log.debugf("Checking JsonValue Claim(%s), ip: %s", claimName, ip);
             Type matchType = ip.getType();
-            ClaimIPType key = new ClaimIPType(claimName, matchType);
+            ClaimLiteral claim = new ClaimLiteral(claimName);
+            ClaimIP claimIP = claims.get(key);
             if(claimIP == null) {
                 claimIP = new ClaimIP(matchType, matchType, false, claim);
                 claimIP.setJsonValue(true);
                 claims.put(key, claimIP);
             }
-            claimIP.getInjectionPoints().add(ip);
-            System.out.printf("+++ Added JsonValue Claim(%s) ip: %s\n", claimName, ip);
+            claimIP.getInjectionPoints().add(qualifyByClaimName(pip, claim));
+            log.debugf("+++ Added JsonValue Claim(%s) ip: %s", claimName, ip);
         }
     }
 
@@ -247,17 +331,14 @@ public class MPJWTExtension implements Extension {
      * @param pip - the injection point event information
      */
     void processClaimProviderInjections(@Observes ProcessInjectionPoint<?, Provider> pip) {
-        System.out.printf("pip: %s\n", pip.getInjectionPoint());
+        log.debugf("pip: %s", pip.getInjectionPoint());
         final InjectionPoint ip = pip.getInjectionPoint();
         if (ip.getAnnotated().isAnnotationPresent(Claim.class)) {
             Claim claim = ip.getAnnotated().getAnnotation(Claim.class);
-            if(claim.value().length() == 0 && claim.standard() == Claims.UNKNOWN) {
-                throw new DeploymentException("@Claim at: "+ip+" has no name or valid standard enum setting");
-            }
+            ClaimIPType key = ClaimIPType.of(ip);
             boolean usesEnum = claim.standard() != Claims.UNKNOWN;
-            final String claimName = usesEnum ? claim.standard().name() : claim.value();
-            System.out.printf("Checking Producer Claim(%s), ip: %s\n", claimName, ip);
-            ClaimIP claimIP = claims.get(claimName);
+            final String claimName = key.getClaimName();
+            log.debugf("Checking Producer Claim(%s), ip: %s", claimName, ip);
             Type matchType = ip.getType();
             Type actualType = ((ParameterizedType) matchType).getActualTypeArguments()[0];
             // Don't add Optional as this is handled specially
@@ -268,14 +349,15 @@ public class MPJWTExtension implements Extension {
                 providerQualifiers.add(claim);
             }
             rawTypeQualifiers.add(claim);
-            ClaimIPType key = new ClaimIPType(claimName, actualType);
+            // Keyed by the Provider type so the site cannot share the ClaimIP of a JsonValue site of the actual type
+            ClaimIP claimIP = claims.get(key);
             if(claimIP == null) {
                 claimIP = new ClaimIP(actualType, actualType, false, claim);
                 claimIP.setProviderSite(true);
                 claims.put(key, claimIP);
             }
             claimIP.getInjectionPoints().add(ip);
-            System.out.printf("+++ Added Provider Claim(%s) ip: %s\n", claimName, ip);
+            log.debugf("+++ Added Provider Claim(%s) ip: %s", claimName, ip);
 
 
             /* The ClaimsProviderProducer methods only use the @Claim(standard=...) form of the
@@ -343,18 +425,14 @@ public class MPJWTExtension implements Extension {
      * @param pip - the injection point event information
      */
     void processInjection(@Observes ProcessInjectionPoint<?, ClaimValue> pip) {
-        System.out.printf("processInjection: %s\n", pip.getInjectionPoint());
+        log.debugf("processInjection: %s", pip.getInjectionPoint());
         InjectionPoint ip = pip.getInjectionPoint();
         if (ip.getAnnotated().isAnnotationPresent(Claim.class)) {
-            Claim claim = ip.getAnnotated().getAnnotation(Claim.class);
-            if(claim.value().length() == 0 && claim.standard() == Claims.UNKNOWN) {
-                throw new DeploymentException("@Claim at: "+ip+" has no name or valie standard enum setting");
-            }
-            boolean usesEnum = claim.standard() != Claims.UNKNOWN;
-            final String claimName = usesEnum ? claim.standard().name() : claim.value();
-            System.out.printf("Checking Claim(%s), ip: %s\n", claimName, ip);
-            ClaimIP claimIP = claims.get(claimName);
-            ClaimIPType key = new ClaimIPType(claimName, ip.getType());
+            ClaimIPType key = ClaimIPType.of(ip);
+            final String claimName = key.getClaimName();
+            log.debugf("Checking Claim(%s), ip: %s", claimName, ip);
+            ClaimLiteral claim = new ClaimLiteral(claimName);
+            ClaimIP claimIP = claims.get(key);
             if(claimIP == null) {
                 // Pull out the ClaimValue<T> T type,
                 Type matchType = ip.getType();
@@ -371,11 +449,76 @@ public class MPJWTExtension implements Extension {
                 claimIP = new ClaimIP(matchType, actualType, isOptional, claim);
                 claims.put(key, claimIP);
             }
-            claimIP.getInjectionPoints().add(ip);
-            System.out.printf("+++ Added Claim(%s) ip: %s\n", claimName, ip);
+            claimIP.getInjectionPoints().add(qualifyByClaimName(pip, claim));
+            log.debugf("+++ Added Claim(%s) ip: %s", claimName, ip);
         }
     }
 
+    /**
+     * Replace the @Claim qualifier of a site served by a synthetic producer bean with @Claim(claimName), the
+     * qualifier of that bean. The @Claim(""), @Claim("name") and @Claim(standard=...) sites of a claim/type pair
+     * then resolve to its one bean, and @Claim("") sites of different claims do not resolve to the same qualifier.
+     * @param pip - the injection point event information
+     * @param claim - the @Claim qualifier of the claim name the site resolves to
+     * @return the injection point of the site
+     */
+    private static InjectionPoint qualifyByClaimName(ProcessInjectionPoint<?, ?> pip, Claim claim) {
+        final InjectionPoint ip = pip.getInjectionPoint();
+        if(ip.getQualifiers().contains(claim)) {
+            return ip;
+        }
+        final Set<Annotation> qualifiers = new HashSet<>();
+        for(Annotation qualifier : ip.getQualifiers()) {
+            if(!(qualifier instanceof Claim)) {
+                qualifiers.add(qualifier);
+            }
+        }
+        qualifiers.add(claim);
+        InjectionPoint qualified = new InjectionPoint() {
+            @Override
+            public Type getType() {
+                return ip.getType();
+            }
+
+            @Override
+            public Set<Annotation> getQualifiers() {
+                return qualifiers;
+            }
+
+            @Override
+            public Bean<?> getBean() {
+                return ip.getBean();
+            }
+
+            @Override
+            public Member getMember() {
+                return ip.getMember();
+            }
+
+            @Override
+            public Annotated getAnnotated() {
+                return ip.getAnnotated();
+            }
+
+            @Override
+            public boolean isDelegate() {
+                return ip.isDelegate();
+            }
+
+            @Override
+            public boolean isTransient() {
+                return ip.isTransient();
+            }
+
+            @Override
+            public String toString() {
+                return ip.toString();
+            }
+        };
+        pip.setInjectionPoint(qualified);
+        return qualified;
+    }
+
     /**
      * Replace our xxx BeanAttributes with
      * yyyto properly reflect all of the type locations the producer method applies to.
@@ -383,11 +526,10 @@ public class MPJWTExtension implements Extension {
      * @param pba
      */
     public void addTypeToClaimProducer(@Observes ProcessBeanAttributes pba) {
-        //System.out.printf("addTypeToClaimProducer, checking: %s\n", pba.getAnnotated());
         if (pba.getAnnotated().isAnnotationPresent(Claim.class)) {
             Claim claim = pba.getAnnotated().getAnnotation(Claim.class);
             if(claim.value().length() == 0 && claim.standard() == Claims.UNKNOWN) {
-                System.out.printf("addTypeToClaimProducer: %s\n", pba.getAnnotated());
+                log.debugf("addTypeToClaimProducer: %s", pba.getAnnotated());
                 BeanAttributes delegate = pba.getBeanAttributes();
                 ProducerMethod method = null;
                 if(delegate instanceof ProducerMethod) {
@@ -403,7 +545,7 @@ public class MPJWTExtension implements Extension {
                         rawTypes.add(Object.class);
                     }
                     pba.setBeanAttributes(new ClaimProviderBeanAttributes(delegate, rawTypes, rawTypeQualifiers));
-                    System.out.printf("Setup RawClaimTypeProducer BeanAttributes\n");
+                    log.debug("Setup RawClaimTypeProducer BeanAttributes");
                 } else {
                     /*
                     if(providerTypes.size() == 0) {
@@ -416,7 +558,7 @@ public class MPJWTExtension implements Extension {
         }
     }
     public void afterDeploymentValidation(@Observes AfterDeploymentValidation event, BeanManager beanManager) {
-        System.err.println("afterDeploymentValidation");
+        log.debug("afterDeploymentValidation");
     }
 
     /**
@@ -425,8 +567,16 @@ public class MPJWTExtension implements Extension {
      * @param beanManager - CDI bean manager
      */
     void observesAfterBeanDiscovery(@Observes final AfterBeanDiscovery event, final BeanManager beanManager) {
-        System.out.printf("handleClaimInjections, %s\n", claims);
-        installClaimValueProducerMethodsViaSyntheticBeans(event, beanManager);
+        log.debugf("handleClaimInjections, %s", claims);
+        int beanCount = installClaimValueProducerMethodsViaSyntheticBeans(event, beanManager);
+        int siteCount = 0;
+        for(ClaimIP claimIP : claims.values()) {
+            siteCount += claimIP.getInjectionPoints().size();
+        }
+        if(siteCount > 0) {
+            log.infof("MP-JWT claim injection: %d @Claim ClaimValue/JsonValue/Provider sites, " +
+                    "%d distinct claim/type pairs, %d synthetic producer beans", siteCount, claims.size(), beanCount);
+        }
 
         //installClaimValueProducesViaTemplateType(event, beanManager);
     }
@@ -442,9 +592,9 @@ public class MPJWTExtension implements Extension {
         Bean<ClaimValuesProducer> templateBean = beanManager.createBean(ba, ClaimValuesProducer.class, templateITF);
         for(AnnotatedMethod<? super ClaimValuesProducer> am : templateType.getMethods()) {
             ProducerFactory<ClaimValuesProducer> factory = beanManager.getProducerFactory(am, templateBean);
-            System.out.printf("\tBaseType:%s\n", am.getBaseType());
-            System.out.printf("\tAnnotations:%s\n", am.getAnnotations());
-            System.out.printf("\tIP:%s\n", factory.createProducer(templateBean).getInjectionPoints());
+            log.debugf("\tBaseType:%s", am.getBaseType());
+            log.debugf("\tAnnotations:%s", am.getAnnotations());
+            log.debugf("\tIP:%s", factory.createProducer(templateBean).getInjectionPoints());
         }
 
         // For each @Claim injection point type, add a producer method
@@ -455,23 +605,26 @@ public class MPJWTExtension implements Extension {
             InjectionTargetFactory<ClaimValuesProducer> itf = beanManager.getInjectionTargetFactory(typeForClaim);
             Bean<ClaimValuesProducer> bean = beanManager.createBean(attributes, ClaimValuesProducer.class, itf);
             event.addBean(bean);
-            System.out.printf("Added %s\n", bean);
+            log.debugf("Added %s", bean);
             Set<AnnotatedMethod<? super ClaimValuesProducer>> methods = typeForClaim.getMethods();
             for(AnnotatedMethod<? super ClaimValuesProducer> am : methods) {
                 ProducerFactory<ClaimValuesProducer> factory = beanManager.getProducerFactory(am, bean);
-                System.out.printf("\tBaseType:%s\n", am.getBaseType());
-                System.out.printf("\tAnnotations:%s\n", am.getAnnotations());
-                System.out.printf("\tIP:%s\n", factory.createProducer(bean).getInjectionPoints());
+                log.debugf("\tBaseType:%s", am.getBaseType());
+                log.debugf("\tAnnotations:%s", am.getAnnotations());
+                log.debugf("\tIP:%s", factory.createProducer(bean).getInjectionPoints());
             }
         }
     }
 
     /**
-     * Create a synthetic bean with a custom Producer for the non-Provider injection sites.
+     * Create a synthetic bean with a custom Producer for the non-Provider injection sites, one per distinct
+     * claim/type pair.
      * @param event - AfterBeanDiscovery
      * @param beanManager - CDI bean manager
+     * @return the number of beans added
      */
-    private void installClaimValueProducerMethodsViaSyntheticBeans(final AfterBeanDiscovery event, final BeanManager beanManager) {
+    private int installClaimValueProducerMethodsViaSyntheticBeans(final AfterBeanDiscovery event, final BeanManager beanManager) {
+        int beanCount = 0;
         // For each non-standard @Claim injection point type, add a producer method
         for (final ClaimIP claimIP : claims.values()) {
             /*
@@ -491,7 +644,8 @@ public class MPJWTExtension implements Extension {
                 // Create the producer method bean with the custom producer factory
                 Bean<?> bean = beanManager.createBean(methodAttributes, JsonValueProducer.class, factory);
                 event.addBean(bean);
-                System.out.printf("Added %s\n", bean);
+                beanCount ++;
+                log.debugf("Added %s", bean);
             }
             else if(!claimIP.isProviderSite()) {
                 // Pass in the ClaimIP so the producer knows the actual type
@@ -501,8 +655,10 @@ public class MPJWTExtension implements Extension {
                 // Create the producer method bean with the custom producer factory
                 Bean<?> bean = beanManager.createBean(methodAttributes, ClaimValueProducer.class, factory);
                 event.addBean(bean);
-                System.out.printf("Added %s\n", bean);
+                beanCount ++;
+                log.debugf("Added %s", bean);
             }
         }
+        return beanCount;
     }
 }
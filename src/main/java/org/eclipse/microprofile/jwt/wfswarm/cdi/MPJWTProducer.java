@@ -5,15 +5,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 
 import javax.annotation.PostConstruct;
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.context.Dependent;
-import javax.enterprise.context.Destroyed;
-import javax.enterprise.context.Initialized;
 import javax.enterprise.context.RequestScoped;
 import javax.enterprise.context.spi.CreationalContext;
-import javax.enterprise.event.Observes;
 import javax.enterprise.inject.Produces;
 import javax.enterprise.inject.spi.InjectionPoint;
 import javax.enterprise.inject.spi.Producer;
@@ -25,37 +23,91 @@ import javax.json.JsonObject;
 import javax.json.JsonObjectBuilder;
 import javax.json.JsonValue;
 
+import io.undertow.server.ExchangeCompletionListener;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.servlet.handlers.ServletRequestContext;
+import io.undertow.util.AttachmentKey;
 import org.eclipse.microprofile.jwt.Claim;
 import org.eclipse.microprofile.jwt.ClaimValue;
 import org.eclipse.microprofile.jwt.Claims;
 import org.eclipse.microprofile.jwt.JsonWebToken;
+import org.jboss.logging.Logger;
 
 /**
- * A class that tracks the current validated MP-JWT and associated JsonWebToken via a thread
- * local to provide a @RequestScoped JsonWebToken producer method.
+ * A class that tracks the current validated MP-JWT and associated JsonWebToken via an attachment on the request
+ * exchange to provide a @RequestScoped JsonWebToken producer method. The attachment is installed by the
+ * JWTAuthMechanism and removed when the exchange completes, so no token is retained by the worker threads.
  *
  * It also provides utility methods for access the current JsonWebToken claim values.
  */
 @ApplicationScoped
 public class MPJWTProducer {
-    private static ThreadLocal<JsonWebToken> currentPrincipal = new ThreadLocal<>();
+    private static Logger log = Logger.getLogger(MPJWTProducer.class);
+    /** The exchange attachment holding the authenticated JsonWebToken and its resolved claim values */
+    static final AttachmentKey<TokenClaimValues> JWT_CLAIMS_KEY = AttachmentKey.create(TokenClaimValues.class);
+    private static final ExchangeCompletionListener REMOVE_PRINCIPAL = (exchange, nextListener) -> {
+        exchange.removeAttachment(JWT_CLAIMS_KEY);
+        nextListener.proceed();
+    };
 
-    public static void setJWTPrincipal(JsonWebToken principal) {
-        currentPrincipal.set(principal);
+    /**
+     * Install the authenticated JsonWebToken for the request
+     * @param exchange - the request exchange
+     * @param principal - the authenticated JsonWebToken
+     */
+    public static void setJWTPrincipal(HttpServerExchange exchange, JsonWebToken principal) {
+        setClaimValues(exchange, new TokenClaimValues(principal));
+    }
+
+    /**
+     * Install the authenticated JsonWebToken for the request, reusing the claim values resolved by earlier requests
+     * with the same bearer token
+     * @param exchange - the request exchange
+     * @param principal - the authenticated JsonWebToken
+     * @param shared - the claim values shared by the requests of the deployment, may be null
+     * @param tokenDigest - the TokenCache digest of the bearer token
+     * @param expiresAt - the time in milliseconds until which the claim values of the token may be shared
+     */
+    public static void setJWTPrincipal(HttpServerExchange exchange, JsonWebToken principal, SharedClaimValues shared,
+                                       String tokenDigest, long expiresAt) {
+        TokenClaimValues claimValues = shared != null ? shared.claimValues(principal, tokenDigest, expiresAt)
+                : new TokenClaimValues(principal);
+        setClaimValues(exchange, claimValues);
     }
+
+    private static void setClaimValues(HttpServerExchange exchange, TokenClaimValues claimValues) {
+        if(exchange.putAttachment(JWT_CLAIMS_KEY, claimValues) == null) {
+            exchange.addExchangeCompleteListener(REMOVE_PRINCIPAL);
+        }
+    }
+
+    /**
+     * Get the JsonWebToken of the servlet request associated with the calling thread, or the token propagated to
+     * the calling thread by a JWTContextPropagation wrapped task
+     * @return the authenticated JsonWebToken if there is one, null otherwise
+     */
     public static JsonWebToken getJWTPrincpal() {
-        return currentPrincipal.get();
+        TokenClaimValues claimValues = currentClaimValues();
+        return claimValues != null ? claimValues.getToken() : null;
+    }
+
+    /**
+     * @return the claim values of the current JsonWebToken, null if there is no current token
+     */
+    static TokenClaimValues currentClaimValues() {
+        ServletRequestContext requestContext = ServletRequestContext.current();
+        if(requestContext != null) {
+            TokenClaimValues claimValues = requestContext.getExchange().getAttachment(JWT_CLAIMS_KEY);
+            if(claimValues != null) {
+                return claimValues;
+            }
+        }
+        return JWTContextPropagation.current();
     }
 
     @PostConstruct
     void init() {
-        System.err.println("JWTPrincipalProducer seen");
-    }
-    void observeRequestInitialized(@Observes @Initialized(RequestScoped.class) Object event) {
-        System.err.printf("observeRequestInitialized, event=%s\n", event);
-    }
-    void observeRequestDestroyed(@Observes @Destroyed(RequestScoped.class) Object event) {
-        System.err.printf("observeRequestDestroyed, event=%s\n", event);
+        log.debug("JWTPrincipalProducer seen");
     }
 
     /**
@@ -65,7 +117,7 @@ public class MPJWTProducer {
     @Produces
     @RequestScoped
     JsonWebToken currentPrincipalOrNull() {
-        return currentPrincipal.get();
+        return getJWTPrincpal();
     }
 
     /**
@@ -88,23 +140,64 @@ public class MPJWTProducer {
      * @return a JsonValue wrapper
      */
     static JsonValue generalJsonValueProducer(String name) {
-        Object value = getValue(name, false);
-        JsonValue jsonValue = wrapValue(value);
+        TokenClaimValues claimValues = currentClaimValues();
+        if (claimValues == null) {
+            if(ClaimLookupStats.ENABLED) {
+                ClaimLookupStats.noToken();
+            }
+            return null;
+        }
+        JsonValue jsonValue = claimValues.getJsonValue(name);
+        if(ClaimLookupStats.ENABLED) {
+            ClaimLookupStats.lookup(jsonValue != null);
+        }
         return jsonValue;
     }
 
+    /**
+     * Get a claim value of the current JsonWebToken. The value is resolved once per token and reused by
+     * subsequent lookups.
+     * @param name - name of the claim
+     * @param isOptional - whether the caller treats the claim as optional, only used for logging
+     * @param <T> expected actual type of the claim
+     * @return the claim value, null if there is no current token or the token does not have the claim
+     */
     public static  <T> T getValue(String name, boolean isOptional) {
-        JsonWebToken jwt = getJWTPrincpal();
-        if (jwt == null) {
-            System.out.printf("getValue(%s), null JsonWebToken\n", name);
+        return getValue(name, isOptional, ClaimConverters.IDENTITY);
+    }
+
+    /**
+     * Get a claim value of the current JsonWebToken converted to an injection target type. The value is converted
+     * once per token and reused by subsequent lookups.
+     * @param name - name of the claim
+     * @param isOptional - whether the caller treats the claim as optional, only used for logging
+     * @param converter - the ClaimConverters converter of the target type
+     * @param <T> the target type
+     * @return the converted claim value, null if there is no current token, the token does not have the claim or
+     * the claim cannot be converted
+     */
+    static <T> T getValue(String name, boolean isOptional, Function<Object, Object> converter) {
+        TokenClaimValues claimValues = currentClaimValues();
+        if (claimValues == null) {
+            if(ClaimLookupStats.ENABLED) {
+                ClaimLookupStats.noToken();
+            }
+            if(log.isTraceEnabled()) {
+                log.tracef("getValue(%s), null JsonWebToken", name);
+            }
             return null;
         }
 
-        Optional<T> claimValue = jwt.claim(name);
-        if(!isOptional && !claimValue.isPresent()) {
-            System.err.printf("Failed to find Claim for: %s\n", name);
+        Optional<T> claimValue = Optional.ofNullable((T) claimValues.getConvertedValue(name, converter));
+        if(ClaimLookupStats.ENABLED) {
+            ClaimLookupStats.lookup(claimValue.isPresent());
+        }
+        if(log.isTraceEnabled()) {
+            if(!isOptional && !claimValue.isPresent()) {
+                log.tracef("Failed to find Claim for: %s", name);
+            }
+            log.tracef("getValue(%s), isOptional=%s, claimValue=%s", name, isOptional, claimValue);
         }
-        System.out.printf("getValue(%s), isOptional=%s, claimValue=%s\n", name, isOptional, claimValue);
         return claimValue.orElse(null);
     }
 
@@ -140,23 +233,14 @@ public class MPJWTProducer {
             jsonValue = (JsonValue) value;
         }
         else if(value instanceof String) {
-            jsonValue = Json.createObjectBuilder()
-                    .add("tmp", value.toString())
-                    .build()
-                    .getJsonString("tmp");
+            jsonValue = JsonValues.createValue(value.toString());
         }
         else if(value instanceof Number) {
             Number number = (Number) value;
             if((number instanceof Long) || (number instanceof Integer)) {
-                jsonValue = Json.createObjectBuilder()
-                        .add("tmp", number.longValue())
-                        .build()
-                        .getJsonNumber("tmp");
+                jsonValue = JsonValues.createValue(number.longValue());
             } else {
-                jsonValue = Json.createObjectBuilder()
-                        .add("tmp", number.doubleValue())
-                        .build()
-                        .getJsonNumber("tmp");
+                jsonValue = JsonValues.createValue(number.doubleValue());
             }
         }
         else if(value instanceof Boolean) {
@@ -1,9 +1,7 @@
 package org.eclipse.microprofile.jwt.wfswarm.cdi;
 
-import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.HashSet;
-import java.util.Optional;
 import java.util.Set;
 
 import javax.enterprise.context.RequestScoped;
@@ -11,7 +9,7 @@ import javax.enterprise.context.spi.CreationalContext;
 import javax.enterprise.inject.spi.InjectionPoint;
 import javax.enterprise.inject.spi.Producer;
 
-import org.eclipse.microprofile.jwt.ClaimValue;
+import org.jboss.logging.Logger;
 
 /**
  * This does not work for the non-proxyable types
@@ -19,9 +17,9 @@ import org.eclipse.microprofile.jwt.ClaimValue;
  */
 @RequestScoped
 public class RawClaimProducer<T> implements Producer<T> {
+    private static Logger log = Logger.getLogger(RawClaimProducer.class);
     private MPJWTExtension.ClaimIP claimIP;
-    private Type type;
-    private Type valueType;
+    private ClaimInjectionDescriptor descriptor;
 
     RawClaimProducer(MPJWTExtension.ClaimIP claimIP) {
         this.claimIP = claimIP;
@@ -33,19 +31,14 @@ public class RawClaimProducer<T> implements Producer<T> {
         if(types.size() > 1) {
             throw new IllegalStateException(String.format("Multiple injection point types: %s for claim: %s", types, claimIP.getClaim().value()));
         }
-        this.type = types.iterator().next();
-        this.valueType = type;
-        if (type instanceof ParameterizedType) {
-            valueType = ((ParameterizedType) type).getActualTypeArguments()[0];
-        }
+        this.descriptor = ClaimInjectionDescriptor.of(claimIP.getInjectionPoints().iterator().next());
     }
     @Override
     public T produce(CreationalContext<T> ctx) {
-        System.out.printf("RawClaimProducer(%s).produce\n", claimIP);
-        ClaimValue<Optional<T>> cv = MPJWTProducer.generalClaimValueProducer(claimIP.getClaimName());
-        Optional<T> value = cv.getValue();
-        T returnValue = value.orElse(null);
-        return returnValue;
+        if(log.isTraceEnabled()) {
+            log.tracef("RawClaimProducer(%s).produce", claimIP);
+        }
+        return (T) descriptor.resolve();
     }
 
     @Override
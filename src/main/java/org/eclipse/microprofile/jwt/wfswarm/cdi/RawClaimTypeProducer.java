@@ -1,35 +1,27 @@
 package org.eclipse.microprofile.jwt.wfswarm.cdi;
 
-import java.lang.annotation.Annotation;
-import java.util.Optional;
-
+import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.inject.Produces;
 import javax.enterprise.inject.spi.InjectionPoint;
+import javax.inject.Inject;
 
 import org.eclipse.microprofile.jwt.Claim;
-import org.eclipse.microprofile.jwt.ClaimValue;
-import org.eclipse.microprofile.jwt.Claims;
+import org.jboss.logging.Logger;
 
+@ApplicationScoped
 public class RawClaimTypeProducer {
+    private static Logger log = Logger.getLogger(RawClaimTypeProducer.class);
+
+    @Inject
+    MPJWTExtension extension;
+
     @Produces
     @Claim("")
     public Object getValue(InjectionPoint ip) {
-        System.out.printf("RawClaimTypeProducer(%s).produce\n", ip);
-        String name = getName(ip);
-        ClaimValue<Optional<Object>> cv = MPJWTProducer.generalClaimValueProducer(name);
-        Optional<Object> value = cv.getValue();
-        Object returnValue = value.orElse(null);
-        return returnValue;
-    }
-
-    String getName(InjectionPoint ip) {
-        String name = null;
-        for(Annotation ann : ip.getQualifiers()) {
-            if(ann instanceof Claim) {
-                Claim claim = (Claim) ann;
-                name = claim.standard() == Claims.UNKNOWN ? claim.value() : claim.standard().name();
-            }
+        if(log.isTraceEnabled()) {
+            log.tracef("RawClaimTypeProducer(%s).produce", ip);
         }
-        return name;
+        ClaimInjectionDescriptor descriptor = extension.getDescriptor(ip);
+        return descriptor != null ? descriptor.resolve() : null;
     }
 }
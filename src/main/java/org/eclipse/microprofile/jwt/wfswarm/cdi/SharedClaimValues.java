@@ -0,0 +1,50 @@
+package org.eclipse.microprofile.jwt.wfswarm.cdi;
+
+import org.eclipse.microprofile.jwt.JsonWebToken;
+import org.eclipse.microprofile.jwt.wfswarm.TokenCache;
+
+/**
+ * The resolved claim values shared by the requests of a deployment that present the same bearer token. Only the
+ * value maps are kept, not the JsonWebToken of the request that resolved them. The JWTAuthMechanismFactory creates
+ * one per deployment along with the validated token cache, and it is flushed and closed with that cache.
+ */
+public final class SharedClaimValues {
+    private final TokenCache<TokenClaimValues.ResolvedValues> cache;
+
+    /**
+     * @param maxSize - the maximum number of bearer tokens whose values are kept, must be > 0
+     */
+    public SharedClaimValues(int maxSize) {
+        this.cache = new TokenCache<>(maxSize);
+    }
+
+    /**
+     * Get the claim values of a request, reusing the values resolved by earlier requests with the same bearer token
+     * @param token - the authenticated token of the request
+     * @param tokenDigest - the TokenCache digest of the bearer token
+     * @param expiresAt - the time in milliseconds until which the values may be shared
+     * @return the claim values of the request
+     */
+    TokenClaimValues claimValues(JsonWebToken token, String tokenDigest, long expiresAt) {
+        TokenClaimValues.ResolvedValues resolved = cache.get(tokenDigest);
+        if(resolved == null) {
+            resolved = new TokenClaimValues.ResolvedValues();
+            cache.put(tokenDigest, resolved, expiresAt);
+        }
+        return new TokenClaimValues(token, resolved);
+    }
+
+    /**
+     * @return the number of bearer tokens whose values are kept, including any expired ones not yet evicted
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * Drop the values of every bearer token
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+}
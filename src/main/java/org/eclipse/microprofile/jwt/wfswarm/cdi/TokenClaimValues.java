@@ -0,0 +1,155 @@
+package org.eclipse.microprofile.jwt.wfswarm.cdi;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import javax.json.JsonValue;
+
+import org.eclipse.microprofile.jwt.JsonWebToken;
+
+/**
+ * The claim values of an authenticated JsonWebToken as seen by the claim injection producers. A claim is only
+ * looked up and converted the first time it is used, and the result is shared by all injection points that are
+ * resolved against the same token. The requests that present the same bearer token share the resolved values as
+ * well, so a Set, List or Map claim value is held as an unmodifiable view, and the caller cannot change the value
+ * another request sees.
+ */
+class TokenClaimValues {
+    /** Marker for a claim that is not in the token since ConcurrentHashMap does not allow null values */
+    private static final Object MISSING = new Object();
+
+    private final JsonWebToken token;
+    private final ConcurrentHashMap<String, Object> values;
+    private final ConcurrentHashMap<String, Object> jsonValues;
+    /** The converted claim values by ClaimConverters converter, then claim name */
+    private final ConcurrentHashMap<Function<Object, Object>, ConcurrentHashMap<String, Object>> convertedValues;
+
+    TokenClaimValues(JsonWebToken token) {
+        this(token, new ResolvedValues());
+    }
+
+    /**
+     * Create the claim values for a token that reuse the values already resolved for another instance of the same
+     * bearer token
+     * @param token - the authenticated token of the request
+     * @param resolved - the resolved values of the same bearer token
+     */
+    TokenClaimValues(JsonWebToken token, ResolvedValues resolved) {
+        this.token = token;
+        this.values = resolved.values;
+        this.jsonValues = resolved.jsonValues;
+        this.convertedValues = resolved.convertedValues;
+    }
+
+    /**
+     * The value maps of a bearer token, without the JsonWebToken they were resolved from, which SharedClaimValues
+     * keeps for the later requests with the same token
+     */
+    static final class ResolvedValues {
+        private final ConcurrentHashMap<String, Object> values = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<String, Object> jsonValues = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<Function<Object, Object>, ConcurrentHashMap<String, Object>> convertedValues =
+                new ConcurrentHashMap<>();
+    }
+
+    JsonWebToken getToken() {
+        return token;
+    }
+
+    /**
+     * Get a claim value in the form returned by JsonWebToken#getClaim
+     * @param name - the claim name
+     * @return the claim value, null if the token does not have the claim
+     */
+    Object getValue(String name) {
+        Object value = values.get(name);
+        if(value == null) {
+            value = unmodifiable(token.getClaim(name));
+            if(value == null) {
+                value = MISSING;
+            }
+            Object existing = values.putIfAbsent(name, value);
+            if(existing != null) {
+                value = existing;
+            }
+        }
+        return value == MISSING ? null : value;
+    }
+
+    /**
+     * Get an unmodifiable view of a collection claim value. The JsonValue types are immutable already.
+     */
+    private static Object unmodifiable(Object value) {
+        if(value instanceof JsonValue) {
+            // A JsonArray or JsonObject is also a List or Map
+            return value;
+        }
+        if(value instanceof Set) {
+            return Collections.unmodifiableSet((Set<?>) value);
+        }
+        if(value instanceof List) {
+            return Collections.unmodifiableList((List<?>) value);
+        }
+        if(value instanceof Map) {
+            return Collections.unmodifiableMap((Map<?, ?>) value);
+        }
+        if(value instanceof Collection) {
+            return Collections.unmodifiableCollection((Collection<?>) value);
+        }
+        return value;
+    }
+
+    /**
+     * Get a claim value converted to a JsonValue
+     * @param name - the claim name
+     * @return the claim JsonValue, null if the token does not have the claim
+     */
+    JsonValue getJsonValue(String name) {
+        Object jsonValue = jsonValues.get(name);
+        if(jsonValue == null) {
+            jsonValue = MPJWTProducer.wrapValue(getValue(name));
+            if(jsonValue == null) {
+                jsonValue = MISSING;
+            }
+            Object existing = jsonValues.putIfAbsent(name, jsonValue);
+            if(existing != null) {
+                jsonValue = existing;
+            }
+        }
+        return jsonValue == MISSING ? null : (JsonValue) jsonValue;
+    }
+
+    /**
+     * Get a claim value converted to an injection target type. The conversion is done once per token and converter.
+     * @param name - the claim name
+     * @param converter - the ClaimConverters converter of the target type
+     * @return the converted claim value, null if the token does not have the claim or it cannot be converted
+     */
+    Object getConvertedValue(String name, Function<Object, Object> converter) {
+        if(converter == ClaimConverters.IDENTITY) {
+            return getValue(name);
+        }
+        ConcurrentHashMap<String, Object> converted = convertedValues.get(converter);
+        if(converted == null) {
+            converted = convertedValues.computeIfAbsent(converter, c -> new ConcurrentHashMap<>());
+        }
+        Object value = converted.get(name);
+        if(value == null) {
+            Object claimValue = getValue(name);
+            value = claimValue != null ? converter.apply(claimValue) : null;
+            if(value == null) {
+                value = MISSING;
+            }
+            Object existing = converted.putIfAbsent(name, value);
+            if(existing != null) {
+                value = existing;
+            }
+        }
+        return value == MISSING ? null : value;
+    }
+}
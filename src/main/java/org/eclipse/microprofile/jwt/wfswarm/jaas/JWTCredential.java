@@ -2,18 +2,37 @@ package org.eclipse.microprofile.jwt.wfswarm.jaas;
 
 import io.undertow.security.idm.Credential;
 import org.eclipse.microprofile.jwt.principal.JWTAuthContextInfo;
+import org.eclipse.microprofile.jwt.principal.ParseException;
+import org.eclipse.microprofile.jwt.wfswarm.IssuerContext;
+import org.eclipse.microprofile.jwt.wfswarm.IssuerRegistry;
+import org.eclipse.microprofile.jwt.wfswarm.TokenCache;
+import org.eclipse.microprofile.jwt.wfswarm.TokenValidator;
+import org.eclipse.microprofile.jwt.wfswarm.ValidationResult;
 import org.jose4j.jwt.JwtClaims;
 import org.jose4j.jwt.consumer.JwtConsumer;
 import org.jose4j.jwt.consumer.JwtConsumerBuilder;
 import org.jose4j.jwt.consumer.JwtContext;
 
 /**
- * This is an implementation of the undertow Credential that wraps the bearer token and configured JWTAuthContextInfo
- * needed for validation of the token.
+ * This is an implementation of the undertow Credential that wraps the bearer token and configured TokenValidator
+ * needed for validation of the token, or the IssuerRegistry it is selected from. The token is decoded at most once,
+ * and the resulting JwtContext is used for both the principal name and the validation of the token.
  */
 public class JWTCredential implements Credential {
-    private JWTAuthContextInfo authContextInfo;
+    /** A JwtConsumer that doesn't check signatures or do any validation. It is immutable and shared. */
+    private static final JwtConsumer FIRST_PASS_CONSUMER = new JwtConsumerBuilder()
+            .setSkipAllValidators()
+            .setDisableRequireSignature()
+            .setSkipSignatureVerification()
+            .build();
+
+    private TokenValidator validator;
+    private IssuerRegistry issuers;
+    private IssuerContext issuerContext;
+    private ValidationResult validationResult;
     private String bearerToken;
+    private String tokenDigest;
+    private JwtContext jwtContext;
     private String name;
     private Exception jwtException;
 
@@ -23,12 +42,31 @@ public class JWTCredential implements Credential {
      * @param authContextInfo
      */
     public JWTCredential(String bearerToken, JWTAuthContextInfo authContextInfo) {
+        this(bearerToken, new TokenValidator(authContextInfo, null));
+    }
+
+    /**
+     *
+     * @param bearerToken - the raw bearer token
+     * @param validator - the validator for the token
+     */
+    public JWTCredential(String bearerToken, TokenValidator validator) {
         this.bearerToken = bearerToken;
-        this.authContextInfo = authContextInfo;
+        this.validator = validator;
     }
 
     /**
-     * This just parses the token without validation to extract one of the following in order to obtain
+     *
+     * @param bearerToken - the raw bearer token
+     * @param issuers - the accepted issuers, from which the validator is selected by the token iss
+     */
+    public JWTCredential(String bearerToken, IssuerRegistry issuers) {
+        this.bearerToken = bearerToken;
+        this.issuers = issuers;
+    }
+
+    /**
+     * This uses the unvalidated token parse to extract one of the following in order to obtain
      * the name to be used for the principal:
      * upn
      * preferred_username
@@ -43,35 +81,116 @@ public class JWTCredential implements Credential {
         if(name == null) {
             name = "INVALID_TOKEN_NAME";
             try {
-                // Build a JwtConsumer that doesn't check signatures or do any validation.
-                JwtConsumer firstPassJwtConsumer = new JwtConsumerBuilder()
-                        .setSkipAllValidators()
-                        .setDisableRequireSignature()
-                        .setSkipSignatureVerification()
-                        .build();
-
-                //The first JwtConsumer is basically just used to parse the JWT into a JwtContext object.
-                JwtContext jwtContext = firstPassJwtConsumer.process(bearerToken);
-                JwtClaims claimsSet = jwtContext.getJwtClaims();
+                JwtClaims claimsSet = getJwtContext().getJwtClaims();
                 // We have to determine the unique name to use as the principal name. It comes from upn, preferred_username, sub in that order
-                name = claimsSet.getClaimValue("upn", String.class);
-                if(name == null) {
-                    name = claimsSet.getClaimValue("preferred_username", String.class);
-                    if(name == null) {
-                        name = claimsSet.getSubject();
+                String principalName = claimsSet.getClaimValue("upn", String.class);
+                if(principalName == null) {
+                    principalName = claimsSet.getClaimValue("preferred_username", String.class);
+                    if(principalName == null) {
+                        principalName = claimsSet.getSubject();
                     }
                 }
+                name = principalName;
             } catch (Exception e) {
-                jwtException = e;
+                if(jwtException == null) {
+                    jwtException = e;
+                }
             }
         }
         return name;
     }
+
+    /**
+     * Parse the bearer token into a JwtContext without any signature or claims validation. This is done once, and
+     * the result is reused by the TokenValidator.
+     * @return the unvalidated token context
+     * @throws ParseException - if the token could not be parsed
+     */
+    public JwtContext getJwtContext() throws ParseException {
+        JwtContext context = getJwtContextOrNull();
+        if(context == null) {
+            throw new ParseException("Failed to parse token", jwtException);
+        }
+        return context;
+    }
+
+    /**
+     * Parse the bearer token as {@link #getJwtContext()} does, without throwing if it cannot be parsed
+     * @return the unvalidated token context, null if the token could not be parsed, see {@link #getJwtException()}
+     */
+    public JwtContext getJwtContextOrNull() {
+        if(jwtContext == null && jwtException == null) {
+            try {
+                jwtContext = FIRST_PASS_CONSUMER.process(bearerToken);
+            } catch (Exception e) {
+                jwtException = e;
+            }
+        }
+        return jwtContext;
+    }
+
     public String getBearerToken() {
         return bearerToken;
     }
-    public JWTAuthContextInfo getAuthContextInfo() {
-        return authContextInfo;
+    public JWTAuthContextInfo getAuthContextInfo() throws ParseException {
+        return getValidator().getAuthContextInfo();
+    }
+
+    /**
+     * @return the validator for the token, selected by its issuer if the credential was created with an IssuerRegistry
+     * @throws ParseException - if the token cannot be parsed or its issuer is not accepted
+     */
+    public TokenValidator getValidator() throws ParseException {
+        if(validator == null) {
+            validator = getIssuerContext().getValidator();
+        }
+        return validator;
+    }
+
+    /**
+     * @return the validation context of the token issuer
+     * @throws ParseException - if the token cannot be parsed or its issuer is not accepted
+     */
+    public IssuerContext getIssuerContext() throws ParseException {
+        if(issuerContext == null) {
+            issuerContext = issuers != null ? issuers.select(this) : new IssuerContext(validator, null);
+        }
+        return issuerContext;
+    }
+
+    /**
+     * Validate the token with the validator of its issuer. This is done once, and the result is reused by the
+     * JWTLoginModule after the JWTAuthMechanism has checked it.
+     * @return the validation result
+     */
+    public ValidationResult getValidationResult() {
+        if(validationResult == null) {
+            TokenValidator tokenValidator = validator;
+            if(tokenValidator == null) {
+                IssuerContext issuer = issuers.find(this);
+                if(issuer == null) {
+                    validationResult = getJwtContextOrNull() == null
+                            ? ValidationResult.failure(ValidationResult.Status.MALFORMED, jwtException.getMessage())
+                            : ValidationResult.failure(ValidationResult.Status.WRONG_ISSUER, "Token issuer is not accepted");
+                    return validationResult;
+                }
+                issuerContext = issuer;
+                tokenValidator = issuer.getValidator();
+                validator = tokenValidator;
+            }
+            validationResult = tokenValidator.check(this);
+        }
+        return validationResult;
+    }
+
+    /**
+     * @return the cache key for the bearer token, computed on first use
+     */
+    public String getTokenDigest() {
+        if(tokenDigest == null) {
+            tokenDigest = TokenCache.digest(bearerToken);
+        }
+        return tokenDigest;
     }
 
     public Exception getJwtException() {
@@ -19,7 +19,11 @@
  */
 package org.eclipse.microprofile.jwt.wfswarm.jaas;
 
+import java.io.IOException;
+import java.security.acl.Group;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.security.auth.Subject;
 import javax.security.auth.callback.Callback;
@@ -28,20 +32,48 @@ import javax.security.auth.login.LoginException;
 
 import org.eclipse.microprofile.jwt.JsonWebToken;
 import org.eclipse.microprofile.jwt.principal.JWTCallerPrincipal;
-import org.eclipse.microprofile.jwt.principal.JWTCallerPrincipalFactory;
 import org.eclipse.microprofile.jwt.principal.ParseException;
+import org.eclipse.microprofile.jwt.wfswarm.DeploymentRoleMappers;
+import org.eclipse.microprofile.jwt.wfswarm.RoleMapper;
+import org.eclipse.microprofile.jwt.wfswarm.ValidationResult;
+import org.jboss.logging.Logger;
 import org.jboss.security.SimpleGroup;
 import org.jboss.security.SimplePrincipal;
 import org.jboss.security.auth.callback.SecurityAssociationCallback;
 import org.jboss.security.auth.spi.RoleMappingLoginModule;
 
+/**
+ * A login module that validates the JWTCredential of the JWTAuthMechanism and adds the token groups as roles. The
+ * rolesProperties mapping is read once into a RoleMapper shared by all logins of the deployment, rather than by the
+ * RoleMappingLoginModule on every commit, unless replaceRole=true requests its role replacement. The RoleMapper is
+ * owned by the {@link DeploymentRoleMappers} the JWTAuthMechanismFactory registers for the deployment class loader,
+ * and without one the mapping is left to the RoleMappingLoginModule.
+ */
 public class JWTLoginModule extends RoleMappingLoginModule {
+    private static Logger log = Logger.getLogger(JWTLoginModule.class);
+    /** The maximum number of role principals kept for reuse */
+    private static final int MAX_ROLE_PRINCIPALS = 1024;
+    private static final ConcurrentHashMap<String, SimplePrincipal> rolePrincipals = new ConcurrentHashMap<>();
+
     private JsonWebToken jwtPrincipal;
+    private RoleMapper roleMapper;
 
     @Override
     public void initialize(Subject subject, CallbackHandler callbackHandler, Map<String, ?> sharedState, Map<String, ?> options) {
         super.initialize(subject, callbackHandler, sharedState, options);
-
+        String rolesProperties = (String) options.get("rolesProperties");
+        boolean replaceRole = Boolean.parseBoolean((String) options.get("replaceRole"));
+        // The login runs with the deployment class loader as the context class loader
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        DeploymentRoleMappers roleMappers = DeploymentRoleMappers.forClassLoader(loader);
+        if(rolesProperties != null && !replaceRole && roleMappers != null) {
+            try {
+                roleMapper = roleMappers.get(rolesProperties);
+            } catch (IOException e) {
+                // Leave the mapping to the RoleMappingLoginModule, which reports the failure
+                log.debugf("Failed to load rolesProperties: %s, error=%s", rolesProperties, e.getMessage());
+            }
+        }
     }
 
     @Override
@@ -65,9 +97,10 @@ public class JWTLoginModule extends RoleMappingLoginModule {
     @Override
     public boolean commit() throws LoginException {
         subject.getPrincipals().add(jwtPrincipal);
+        Set<String> roleNames = roleMapper != null ? roleMapper.mapRoles(jwtPrincipal.getGroups()) : jwtPrincipal.getGroups();
         SimpleGroup roles = new SimpleGroup("Roles");
-        for(String name : jwtPrincipal.getGroups()) {
-            roles.addMember(new SimplePrincipal(name));
+        for(String name : roleNames) {
+            roles.addMember(rolePrincipal(name));
         }
         subject.getPrincipals().add(roles);
         sharedState.put("JsonWebToken", jwtPrincipal);
@@ -75,14 +108,42 @@ public class JWTLoginModule extends RoleMappingLoginModule {
     }
 
     /**
-     * Validate the bearer token passed in with the authorization header
+     * The roles of the mapping are added by commit, so there are no additional role sets
+     */
+    @Override
+    protected Group[] getRoleSets() throws LoginException {
+        if(roleMapper == null) {
+            return super.getRoleSets();
+        }
+        return new Group[0];
+    }
+
+    /**
+     * Get the immutable SimplePrincipal for a role name
+     */
+    private static SimplePrincipal rolePrincipal(String name) {
+        SimplePrincipal principal = rolePrincipals.get(name);
+        if(principal == null) {
+            principal = new SimplePrincipal(name);
+            if(rolePrincipals.size() < MAX_ROLE_PRINCIPALS) {
+                rolePrincipals.putIfAbsent(name, principal);
+            }
+        }
+        return principal;
+    }
+
+    /**
+     * Validate the bearer token passed in with the authorization header using the credential TokenValidator. The
+     * JWTAuthMechanism has already validated the token, in which case the credential returns the same result.
      * @param jwtCredential - the input bearer token
      * @return return the validated JWTCallerPrincipal
      * @throws ParseException - thrown on token parse or validation failure
      */
     protected JWTCallerPrincipal validate(JWTCredential jwtCredential) throws ParseException {
-        JWTCallerPrincipalFactory factory = JWTCallerPrincipalFactory.instance();
-        JWTCallerPrincipal callerPrincipal = factory.parse(jwtCredential.getBearerToken(), jwtCredential.getAuthContextInfo());
-        return callerPrincipal;
+        ValidationResult result = jwtCredential.getValidationResult();
+        if(!result.isValid()) {
+            throw new ParseException(result.getReason());
+        }
+        return result.getPrincipal();
     }
 }
@@ -0,0 +1,107 @@
+package org.eclipse.microprofile.jwt.test.jaxrs;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import io.undertow.security.api.AuthenticationMechanism.AuthenticationMechanismOutcome;
+import io.undertow.security.api.SecurityContext;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+import org.eclipse.microprofile.jwt.test.util.TestTokens;
+import org.eclipse.microprofile.jwt.wfswarm.AuthAuditEvent;
+import org.eclipse.microprofile.jwt.wfswarm.AuthAuditor;
+import org.eclipse.microprofile.jwt.wfswarm.IssuerContext;
+import org.eclipse.microprofile.jwt.wfswarm.IssuerRegistry;
+import org.eclipse.microprofile.jwt.wfswarm.JWTAuthMechanism;
+import org.eclipse.microprofile.jwt.wfswarm.RoleMapper;
+import org.eclipse.microprofile.jwt.wfswarm.TokenCache;
+import org.eclipse.microprofile.jwt.wfswarm.TokenValidator;
+import org.jose4j.jwt.JwtClaims;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Validate the AuthAuditor sampling and rate limit, and the events the mechanism passes to the audit listener
+ */
+public class AuthAuditorTest {
+    private static final String ISSUER = "https://server.example.com";
+
+    @Test
+    public void testDisabled() {
+        AuthAuditor auditor = new AuthAuditor(0, 0, event -> Assert.fail("Unexpected event: " + event));
+        for(int n = 0; n < 1000; n ++) {
+            Assert.assertFalse(auditor.sample());
+        }
+        Assert.assertFalse(AuthAuditor.DISABLED.sample());
+    }
+
+    @Test
+    public void testRateLimit() throws Exception {
+        AuthAuditor auditor = new AuthAuditor(1, 5, event -> {});
+        // Start at the beginning of a second so that the attempts fall in one rate limit window
+        Thread.sleep(1000 - System.currentTimeMillis() % 1000);
+        int sampled = 0;
+        for(int n = 0; n < 100; n ++) {
+            if(auditor.sample()) {
+                sampled ++;
+            }
+        }
+        Assert.assertEquals(5, sampled);
+
+        // The next window admits events again
+        Thread.sleep(1000 - System.currentTimeMillis() % 1000);
+        Assert.assertTrue(auditor.sample());
+    }
+
+    @Test
+    public void testNoRateLimit() {
+        AuthAuditor auditor = new AuthAuditor(1, 0, event -> {});
+        for(int n = 0; n < 1000; n ++) {
+            Assert.assertTrue(auditor.sample());
+        }
+    }
+
+    @Test
+    public void testListenerEvents() throws Exception {
+        List<AuthAuditEvent> events = new ArrayList<>();
+        JWTAuthMechanism mechanism = new JWTAuthMechanism(new IssuerRegistry(new IssuerContext(
+                new TokenValidator(TestTokens.contextInfo(ISSUER), null), null)), RoleMapper.identity(), false);
+        mechanism.setAuditor(new AuthAuditor(1, 0, events::add));
+
+        JwtClaims claims = TestTokens.claims(ISSUER, 300);
+        claims.setStringListClaim("groups", "Echoer");
+        String token = TestTokens.sign(claims, TestTokens.privateKey(), null);
+        String expiredToken = TestTokens.signToken(ISSUER, -300);
+        Assert.assertEquals(AuthenticationMechanismOutcome.AUTHENTICATED, authenticate(mechanism, token));
+        Assert.assertEquals(AuthenticationMechanismOutcome.NOT_AUTHENTICATED, authenticate(mechanism, expiredToken));
+        Assert.assertEquals(2, events.size());
+
+        AuthAuditEvent authenticated = events.get(0);
+        Assert.assertEquals(AuthAuditEvent.Outcome.AUTHENTICATED, authenticated.getOutcome());
+        Assert.assertEquals(TestTokens.SUBJECT, authenticated.getCaller());
+        Assert.assertEquals("/endpoint", authenticated.getPath());
+        Assert.assertEquals(new HashSet<>(Arrays.asList("Echoer")), authenticated.getRoles());
+        Assert.assertEquals(AuthAuditor.fingerprint(TokenCache.digest(token)), authenticated.getTokenFingerprint());
+        Assert.assertNull(authenticated.getReason());
+
+        AuthAuditEvent failed = events.get(1);
+        Assert.assertEquals(AuthAuditEvent.Outcome.NOT_AUTHENTICATED, failed.getOutcome());
+        Assert.assertEquals(AuthAuditor.fingerprint(TokenCache.digest(expiredToken)), failed.getTokenFingerprint());
+        Assert.assertEquals(AuthAuditor.FINGERPRINT_LENGTH, failed.getTokenFingerprint().length());
+        Assert.assertTrue(failed.getRoles().isEmpty());
+        Assert.assertNotNull(failed.getReason());
+    }
+
+    private static AuthenticationMechanismOutcome authenticate(JWTAuthMechanism mechanism, String token) {
+        HttpServerExchange exchange = new HttpServerExchange(null);
+        exchange.setRequestPath("/endpoint");
+        exchange.getRequestHeaders().put(Headers.AUTHORIZATION, "Bearer " + token);
+        SecurityContext securityContext = (SecurityContext) Proxy.newProxyInstance(
+                AuthAuditorTest.class.getClassLoader(), new Class<?>[] {SecurityContext.class},
+                (proxy, method, args) -> null);
+        return mechanism.authenticate(exchange, securityContext);
+    }
+}
@@ -0,0 +1,67 @@
+package org.eclipse.microprofile.jwt.test.jaxrs;
+
+import io.undertow.security.api.AuthenticationMechanism.AuthenticationMechanismOutcome;
+import org.eclipse.microprofile.jwt.wfswarm.AuthMetrics;
+import org.eclipse.microprofile.jwt.wfswarm.LatencyHistogram;
+import org.eclipse.microprofile.jwt.wfswarm.TokenCache;
+import org.eclipse.microprofile.jwt.wfswarm.ValidationResult;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Validate the AuthMetrics counters, cache hit ratios and the LatencyHistogram percentile accuracy
+ */
+public class AuthMetricsTest {
+    @Test
+    public void testLatencyPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for(int n = 1; n <= 1000; n ++) {
+            histogram.record(n * 1000L);
+        }
+        Assert.assertEquals(1000, histogram.getCount());
+        Assert.assertEquals(500500, histogram.getMean());
+        Assert.assertEquals(1000000, histogram.getMax());
+        // The buckets are within 12.5% of the recorded values
+        Assert.assertEquals(500000, histogram.getPercentile(50), 500000 * 0.125);
+        Assert.assertEquals(990000, histogram.getPercentile(99), 990000 * 0.125);
+        Assert.assertEquals(1000000, histogram.getPercentile(100));
+    }
+
+    @Test
+    public void testCounters() {
+        AuthMetrics metrics = new AuthMetrics();
+        metrics.outcome(AuthenticationMechanismOutcome.AUTHENTICATED);
+        metrics.outcome(AuthenticationMechanismOutcome.NOT_AUTHENTICATED);
+        metrics.failure(ValidationResult.Status.EXPIRED.name());
+        metrics.outcome(AuthenticationMechanismOutcome.NOT_ATTEMPTED);
+        metrics.outcome(AuthenticationMechanismOutcome.NOT_ATTEMPTED);
+        Assert.assertEquals(1, metrics.getAuthenticatedCount());
+        Assert.assertEquals(1, metrics.getNotAuthenticatedCount());
+        Assert.assertEquals(2, metrics.getNotAttemptedCount());
+        Assert.assertEquals(Long.valueOf(1), metrics.getFailureCounts().get("EXPIRED"));
+
+        TokenCache<String> cache = new TokenCache<>(10);
+        cache.put("digest", "value", Long.MAX_VALUE);
+        cache.get("digest");
+        cache.get("other");
+        metrics.addCache("tokenCache", cache);
+        Assert.assertEquals(0.5, metrics.getCacheHitRatios().get("tokenCache"), 0.0);
+        Assert.assertTrue(metrics.getText().contains("mpjwt_auth_failures_total{reason=\"EXPIRED\"} 1"));
+
+        metrics.reset();
+        Assert.assertEquals(0, metrics.getAuthenticatedCount());
+        Assert.assertTrue(metrics.getFailureCounts().isEmpty());
+        Assert.assertEquals(0, cache.getHitCount());
+        Assert.assertEquals(0, cache.getMissCount());
+        Assert.assertTrue(Double.isNaN(metrics.getCacheHitRatios().get("tokenCache")));
+        Assert.assertTrue(metrics.getText().contains("mpjwt_cache_hits_total{cache=\"tokenCache\"} 0"));
+    }
+
+    @Test
+    public void testDisabled() {
+        AuthMetrics.DISABLED.outcome(AuthenticationMechanismOutcome.AUTHENTICATED);
+        AuthMetrics.DISABLED.record(AuthMetrics.Stage.TOTAL, AuthMetrics.DISABLED.start());
+        Assert.assertEquals(0, AuthMetrics.DISABLED.getAuthenticatedCount());
+        Assert.assertEquals(0, AuthMetrics.DISABLED.getLatency(AuthMetrics.Stage.TOTAL).getCount());
+    }
+}
@@ -0,0 +1,105 @@
+package org.eclipse.microprofile.jwt.test.jaxrs;
+
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonNumber;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+
+import org.eclipse.microprofile.jwt.wfswarm.cdi.ClaimConverters;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Validate the conversion of the claim values to the injection target types
+ */
+public class ClaimConvertersTest {
+    Set<String> groups;
+    List<Long> longs;
+    Set<String> groups2;
+
+    @Test
+    public void testScalars() {
+        JsonNumber number = Json.createArrayBuilder().add(1234).build().getJsonNumber(0);
+        Assert.assertEquals(1234L, ClaimConverters.forType(Long.class).apply(number));
+        Assert.assertEquals(1234L, ClaimConverters.forType(long.class).apply("1234"));
+        Assert.assertEquals(1234, ClaimConverters.forType(Integer.class).apply(1234L));
+        Assert.assertEquals(2.5, ClaimConverters.forType(Double.class).apply("2.5"));
+        Assert.assertEquals(Boolean.TRUE, ClaimConverters.forType(Boolean.class).apply(JsonValue.TRUE));
+        Assert.assertEquals(Boolean.FALSE, ClaimConverters.forType(boolean.class).apply("false"));
+        Assert.assertEquals("1234", ClaimConverters.forType(String.class).apply(1234L));
+        Assert.assertNull(ClaimConverters.forType(Long.class).apply("not a number"));
+    }
+
+    @Test
+    public void testIntegerOverflow() {
+        Function<Object, Object> converter = ClaimConverters.forType(Integer.class);
+        Assert.assertEquals(Integer.MAX_VALUE, converter.apply((long) Integer.MAX_VALUE));
+        Assert.assertEquals(Integer.MIN_VALUE, converter.apply(String.valueOf(Integer.MIN_VALUE)));
+        // A value that does not fit in an int is not truncated
+        Assert.assertNull(converter.apply(Integer.MAX_VALUE + 1L));
+        Assert.assertNull(ClaimConverters.forType(int.class).apply(String.valueOf(Integer.MIN_VALUE - 1L)));
+    }
+
+    @Test
+    public void testFractionalValues() {
+        Function<Object, Object> toLong = ClaimConverters.forType(Long.class);
+        JsonArray numbers = Json.createArrayBuilder().add(1.9).add(new BigDecimal("2.0")).add(3).build();
+        // A fractional value is not truncated
+        Assert.assertNull(toLong.apply(1.9));
+        Assert.assertNull(toLong.apply(1.9f));
+        Assert.assertNull(toLong.apply(new BigDecimal("1.9")));
+        Assert.assertNull(toLong.apply(numbers.getJsonNumber(0)));
+        Assert.assertNull(toLong.apply("1.9"));
+        Assert.assertNull(toLong.apply(Double.NaN));
+        Assert.assertNull(ClaimConverters.forType(Integer.class).apply(1.9));
+        Assert.assertNull(ClaimConverters.forType(Instant.class).apply(1311280970.5));
+        // but an integral value with a zero fraction is converted
+        Assert.assertEquals(2L, toLong.apply(numbers.getJsonNumber(1)));
+        Assert.assertEquals(3L, toLong.apply(numbers.getJsonNumber(2)));
+        Assert.assertEquals(2L, toLong.apply(2.0));
+        Assert.assertEquals(2, ClaimConverters.forType(int.class).apply(new BigDecimal("2.00")));
+        Assert.assertEquals(Instant.ofEpochSecond(1311280970),
+                ClaimConverters.forType(Instant.class).apply(1311280970.0));
+    }
+
+    @Test
+    public void testCollections() throws Exception {
+        Object converted = ClaimConverters.forType(type("groups")).apply(Arrays.asList("Echoer", "Tester"));
+        Assert.assertEquals(new HashSet<>(Arrays.asList("Echoer", "Tester")), converted);
+        converted = ClaimConverters.forType(type("groups")).apply(Json.createArrayBuilder().add("Echoer").build());
+        Assert.assertEquals(new HashSet<>(Arrays.asList("Echoer")), converted);
+        converted = ClaimConverters.forType(type("longs")).apply(Arrays.asList(1, "2", 3L));
+        Assert.assertEquals(Arrays.asList(1L, 2L, 3L), converted);
+        Assert.assertSame(ClaimConverters.forType(type("groups")), ClaimConverters.forType(type("groups2")));
+    }
+
+    @Test
+    public void testJsonAndTime() {
+        Object converted = ClaimConverters.forType(JsonString.class).apply("jdoe");
+        Assert.assertEquals("jdoe", ((JsonString) converted).getString());
+        Assert.assertNull(ClaimConverters.forType(JsonNumber.class).apply("jdoe"));
+
+        Assert.assertEquals(Instant.ofEpochSecond(1311280970), ClaimConverters.forType(Instant.class).apply(1311280970L));
+        Assert.assertEquals(OffsetDateTime.of(2011, 7, 21, 20, 42, 50, 0, ZoneOffset.UTC),
+                ClaimConverters.forType(OffsetDateTime.class).apply(1311280970L));
+
+        Function<Object, Object> identity = ClaimConverters.forType(Object.class);
+        Assert.assertSame(ClaimConverters.IDENTITY, identity);
+    }
+
+    private static Type type(String field) throws NoSuchFieldException {
+        return ClaimConvertersTest.class.getDeclaredField(field).getGenericType();
+    }
+}
@@ -0,0 +1,68 @@
+package org.eclipse.microprofile.jwt.test.jaxrs;
+
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.Optional;
+import java.util.Set;
+
+import org.eclipse.microprofile.jwt.Claim;
+import org.eclipse.microprofile.jwt.ClaimValue;
+import org.eclipse.microprofile.jwt.Claims;
+import org.eclipse.microprofile.jwt.test.util.TestInjectionPoints;
+import org.eclipse.microprofile.jwt.wfswarm.cdi.MPJWTExtension.ClaimIPType;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Validate that the injection sites of a claim/type pair map to one ClaimIPType key
+ */
+public class ClaimIPTypeTest {
+    ClaimValue<String> rawSub;
+    ClaimValue<String> rawSub2;
+    ClaimValue<Optional<String>> optSub;
+    ClaimValue<Set<String>> groups;
+    @Claim("")
+    ClaimValue<String> upn;
+    @Claim("")
+    ClaimValue<String> tenant;
+    @Claim("upn")
+    ClaimValue<String> namedUpn;
+    @Claim(standard = Claims.upn)
+    ClaimValue<String> standardUpn;
+
+    @Test
+    public void testKeyEquality() throws Exception {
+        ClaimIPType sub = new ClaimIPType("sub", type("rawSub"));
+        ClaimIPType sub2 = new ClaimIPType("sub", type("rawSub2"));
+        Assert.assertEquals(sub, sub2);
+        Assert.assertEquals(sub.hashCode(), sub2.hashCode());
+        Assert.assertEquals(0, sub.compareTo(sub2));
+        Assert.assertNotEquals(sub, new ClaimIPType("sub", type("optSub")));
+        Assert.assertNotEquals(sub, new ClaimIPType("iss", type("rawSub")));
+
+        HashMap<ClaimIPType, String> claims = new HashMap<>();
+        claims.put(sub, "first");
+        claims.putIfAbsent(sub2, "second");
+        claims.putIfAbsent(new ClaimIPType("groups", type("groups")), "groups");
+        Assert.assertEquals(2, claims.size());
+        Assert.assertEquals("first", claims.get(new ClaimIPType("sub", type("rawSub"))));
+    }
+
+    @Test
+    public void testEmptyNameSites() throws Exception {
+        // Empty @Claim("") sites are keyed on the claim their field names
+        ClaimIPType upnKey = ClaimIPType.of(TestInjectionPoints.field(ClaimIPTypeTest.class, "upn"));
+        ClaimIPType tenantKey = ClaimIPType.of(TestInjectionPoints.field(ClaimIPTypeTest.class, "tenant"));
+        Assert.assertEquals("upn", upnKey.getClaimName());
+        Assert.assertEquals("tenant", tenantKey.getClaimName());
+        Assert.assertNotEquals(upnKey, tenantKey);
+
+        // and share the key of the sites naming the same claim
+        Assert.assertEquals(upnKey, ClaimIPType.of(TestInjectionPoints.field(ClaimIPTypeTest.class, "namedUpn")));
+        Assert.assertEquals(upnKey, ClaimIPType.of(TestInjectionPoints.field(ClaimIPTypeTest.class, "standardUpn")));
+    }
+
+    private static Type type(String field) throws NoSuchFieldException {
+        return ClaimIPTypeTest.class.getDeclaredField(field).getGenericType();
+    }
+}
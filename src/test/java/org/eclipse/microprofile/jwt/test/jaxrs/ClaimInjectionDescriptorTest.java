@@ -0,0 +1,61 @@
+package org.eclipse.microprofile.jwt.test.jaxrs;
+
+import java.lang.reflect.Method;
+import java.util.Optional;
+
+import javax.enterprise.inject.spi.InjectionPoint;
+
+import org.eclipse.microprofile.jwt.Claim;
+import org.eclipse.microprofile.jwt.ClaimValue;
+import org.eclipse.microprofile.jwt.Claims;
+import org.eclipse.microprofile.jwt.test.util.TestInjectionPoints;
+import org.eclipse.microprofile.jwt.wfswarm.cdi.ClaimInjectionDescriptor;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Validate the claim name and target type a ClaimInjectionDescriptor resolves for field and parameter sites
+ */
+public class ClaimInjectionDescriptorTest {
+    @Claim("")
+    ClaimValue<String> upn;
+    @Claim(standard = Claims.iss)
+    ClaimValue<Optional<String>> issuer;
+
+    void setTenant(@Claim("") ClaimValue<String> tenant, @Claim("") Optional<Long> quota) {
+    }
+
+    @Test
+    public void testEmptyNameOnField() throws Exception {
+        ClaimInjectionDescriptor descriptor = ClaimInjectionDescriptor.of(field("upn"));
+        Assert.assertEquals("upn", descriptor.getClaimName());
+        Assert.assertEquals(String.class, descriptor.getTargetType());
+        Assert.assertFalse(descriptor.isOptional());
+    }
+
+    @Test
+    public void testStandardNameOnField() throws Exception {
+        ClaimInjectionDescriptor descriptor = ClaimInjectionDescriptor.of(field("issuer"));
+        Assert.assertEquals("iss", descriptor.getClaimName());
+        Assert.assertEquals(String.class, descriptor.getTargetType());
+        Assert.assertTrue(descriptor.isOptional());
+    }
+
+    @Test
+    public void testEmptyNameOnParameter() throws Exception {
+        // The claim is named by the parameter, not by the method declaring it
+        Method setTenant = getClass().getDeclaredMethod("setTenant", ClaimValue.class, Optional.class);
+        ClaimInjectionDescriptor tenant = ClaimInjectionDescriptor.of(TestInjectionPoints.parameter(setTenant, 0));
+        Assert.assertEquals("tenant", tenant.getClaimName());
+        Assert.assertEquals(String.class, tenant.getTargetType());
+
+        ClaimInjectionDescriptor quota = ClaimInjectionDescriptor.of(TestInjectionPoints.parameter(setTenant, 1));
+        Assert.assertEquals("quota", quota.getClaimName());
+        Assert.assertEquals(Long.class, quota.getTargetType());
+        Assert.assertTrue(quota.isOptional());
+    }
+
+    private static InjectionPoint field(String name) throws NoSuchFieldException {
+        return TestInjectionPoints.field(ClaimInjectionDescriptorTest.class, name);
+    }
+}
@@ -0,0 +1,120 @@
+package org.eclipse.microprofile.jwt.test.jaxrs;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import io.undertow.security.api.AuthenticationMechanism.AuthenticationMechanismOutcome;
+import io.undertow.security.api.SecurityContext;
+import io.undertow.security.idm.Account;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+import org.eclipse.microprofile.jwt.JsonWebToken;
+import org.eclipse.microprofile.jwt.test.util.TestTokens;
+import org.eclipse.microprofile.jwt.wfswarm.IssuerContext;
+import org.eclipse.microprofile.jwt.wfswarm.IssuerRegistry;
+import org.eclipse.microprofile.jwt.wfswarm.JWTAuthMechanism;
+import org.eclipse.microprofile.jwt.wfswarm.RoleMapper;
+import org.eclipse.microprofile.jwt.wfswarm.TokenValidator;
+import org.jboss.security.SecurityContextAssociation;
+import org.jboss.security.SecurityContextFactory;
+import org.jboss.security.identity.Role;
+import org.jose4j.jwt.JwtClaims;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Validate the direct authentication mode of the JWTAuthMechanism, which maps the token groups to roles in the
+ * mechanism rather than through the security domain login modules, against a stub exchange and security context
+ */
+public class DirectAuthMechanismTest {
+    private static final String ISSUER = "https://server.example.com";
+
+    private IssuerRegistry issuers;
+    private String token;
+    /** The account the mechanism completed the authentication of the stub security context with */
+    private final AtomicReference<Account> account = new AtomicReference<>();
+    private SecurityContext securityContext;
+    private org.jboss.security.SecurityContext jbSC;
+
+    @Before
+    public void setUp() throws Exception {
+        issuers = new IssuerRegistry(new IssuerContext(new TokenValidator(TestTokens.contextInfo(ISSUER), null), null));
+        JwtClaims claims = TestTokens.claims(ISSUER, 300);
+        claims.setStringListClaim("groups", "Echoer", "Tester");
+        token = TestTokens.sign(claims, TestTokens.privateKey(), null);
+        securityContext = (SecurityContext) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {SecurityContext.class}, (proxy, method, args) -> {
+                    if(method.getName().equals("authenticationComplete")) {
+                        account.set((Account) args[0]);
+                    }
+                    return null;
+                });
+        jbSC = SecurityContextFactory.createSecurityContext("other");
+        SecurityContextAssociation.setSecurityContext(jbSC);
+    }
+
+    @After
+    public void tearDown() {
+        SecurityContextAssociation.clearSecurityContext();
+    }
+
+    @Test
+    public void testRoleMapping() throws Exception {
+        Map<String, Set<String>> mappings = new HashMap<>();
+        mappings.put("Echoer", new HashSet<>(Arrays.asList("Echo", "Reader")));
+        JWTAuthMechanism mechanism = new JWTAuthMechanism(issuers, new RoleMapper(mappings), false);
+
+        Assert.assertEquals(AuthenticationMechanismOutcome.AUTHENTICATED, authenticate(mechanism, token));
+        Assert.assertTrue(account.get().getPrincipal() instanceof JsonWebToken);
+        Assert.assertEquals(TestTokens.SUBJECT, account.get().getPrincipal().getName());
+        // The groups are retained as roles, along with the roles mapped from them
+        Assert.assertEquals(new HashSet<>(Arrays.asList("Echoer", "Tester", "Echo", "Reader")),
+                account.get().getRoles());
+    }
+
+    @Test
+    public void testEjbSecurityDisabled() throws Exception {
+        JWTAuthMechanism mechanism = new JWTAuthMechanism(issuers, RoleMapper.identity(), false);
+
+        Assert.assertEquals(AuthenticationMechanismOutcome.AUTHENTICATED, authenticate(mechanism, token));
+        Assert.assertEquals(new HashSet<>(Arrays.asList("Echoer", "Tester")), account.get().getRoles());
+        // The legacy security context is left alone
+        Assert.assertNull(jbSC.getSubjectInfo());
+    }
+
+    @Test
+    public void testEjbSecurityEnabled() throws Exception {
+        JWTAuthMechanism mechanism = new JWTAuthMechanism(issuers, RoleMapper.identity(), true);
+
+        Assert.assertEquals(AuthenticationMechanismOutcome.AUTHENTICATED, authenticate(mechanism, token));
+        Assert.assertTrue(jbSC.getUtil().getSubject().getPrincipals().contains(account.get().getPrincipal()));
+        Set<String> roles = jbSC.getUtil().getRoles().getRoles().stream()
+                .map(Role::getRoleName)
+                .collect(Collectors.toSet());
+        Assert.assertEquals(account.get().getRoles(), roles);
+    }
+
+    @Test
+    public void testInvalidToken() throws Exception {
+        JWTAuthMechanism mechanism = new JWTAuthMechanism(issuers, RoleMapper.identity(), true);
+
+        Assert.assertEquals(AuthenticationMechanismOutcome.NOT_AUTHENTICATED,
+                authenticate(mechanism, TestTokens.signToken(ISSUER, -300)));
+        Assert.assertNull(account.get());
+        Assert.assertNull(jbSC.getSubjectInfo());
+    }
+
+    private AuthenticationMechanismOutcome authenticate(JWTAuthMechanism mechanism, String token) {
+        HttpServerExchange exchange = new HttpServerExchange(null);
+        exchange.getRequestHeaders().put(Headers.AUTHORIZATION, "Bearer " + token);
+        return mechanism.authenticate(exchange, securityContext);
+    }
+}
@@ -0,0 +1,59 @@
+package org.eclipse.microprofile.jwt.test.jaxrs;
+
+import java.util.Arrays;
+
+import org.eclipse.microprofile.jwt.principal.JWTCallerPrincipal;
+import org.eclipse.microprofile.jwt.principal.ParseException;
+import org.eclipse.microprofile.jwt.test.util.TestTokens;
+import org.eclipse.microprofile.jwt.wfswarm.IssuerContext;
+import org.eclipse.microprofile.jwt.wfswarm.IssuerRegistry;
+import org.eclipse.microprofile.jwt.wfswarm.RoleMapper;
+import org.eclipse.microprofile.jwt.wfswarm.TokenValidator;
+import org.eclipse.microprofile.jwt.wfswarm.jaas.JWTCredential;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Validate the selection of the issuer validation context by the token iss
+ */
+public class IssuerRegistryTest {
+    private static final String ISSUER_A = "https://a.example.com";
+    private static final String ISSUER_B = "https://b.example.com";
+
+    private IssuerContext issuerA;
+    private IssuerContext issuerB;
+    private IssuerRegistry registry;
+
+    @Before
+    public void setup() throws Exception {
+        issuerA = new IssuerContext(new TokenValidator(TestTokens.contextInfo(ISSUER_A), null), null);
+        issuerB = new IssuerContext(new TokenValidator(TestTokens.contextInfo(ISSUER_B), null), RoleMapper.identity());
+        registry = new IssuerRegistry(Arrays.asList(issuerA, issuerB));
+    }
+
+    @Test
+    public void testSelectByIssuer() throws Exception {
+        JWTCredential credential = new JWTCredential(signToken(ISSUER_B), registry);
+        Assert.assertSame(issuerB, credential.getIssuerContext());
+        JWTCallerPrincipal principal = credential.getValidator().validate(credential);
+        Assert.assertEquals(ISSUER_B, principal.getIssuer());
+
+        credential = new JWTCredential(signToken(ISSUER_A), registry);
+        Assert.assertSame(issuerA, credential.getIssuerContext());
+    }
+
+    @Test(expected = ParseException.class)
+    public void testUnknownIssuer() throws Exception {
+        new JWTCredential(signToken("https://c.example.com"), registry).getValidator();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateIssuer() {
+        new IssuerRegistry(Arrays.asList(issuerA, issuerA));
+    }
+
+    private static String signToken(String issuer) throws Exception {
+        return TestTokens.signToken(issuer, 300);
+    }
+}
@@ -0,0 +1,117 @@
+package org.eclipse.microprofile.jwt.test.jaxrs;
+
+import java.io.File;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.microprofile.jwt.test.util.TestTokens;
+import org.eclipse.microprofile.jwt.wfswarm.JWKSKeyResolver;
+import org.eclipse.microprofile.jwt.wfswarm.KeyUtils;
+import org.eclipse.microprofile.jwt.wfswarm.TokenValidator;
+import org.eclipse.microprofile.jwt.wfswarm.ValidationResult;
+import org.eclipse.microprofile.jwt.wfswarm.jaas.JWTCredential;
+import org.jose4j.json.JsonUtil;
+import org.jose4j.jwk.JsonWebKey;
+import org.jose4j.jwk.JsonWebKeySet;
+import org.jose4j.jwk.RsaJsonWebKey;
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jws.JsonWebSignature;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Validate the kid lookup of the JWKS key resolver using a local file as the key set location
+ */
+public class JWKSKeyResolverTest {
+    @Test
+    public void testKidLookup() throws Exception {
+        URL jwksURL = JWKSKeyResolver.toURL("jwks.json", getClass().getClassLoader());
+        JWKSKeyResolver resolver = new JWKSKeyResolver(jwksURL, 0, 0);
+        resolver.start();
+        try {
+            PublicKey expected = KeyUtils.readPublicKey("/publicKey.pem");
+            Assert.assertTrue(resolver.getKeyIds().contains("/privateKey.pem"));
+            Assert.assertEquals(expected, resolver.getKey("/privateKey.pem"));
+            // A single key set also applies to tokens without a kid
+            Assert.assertEquals(expected, resolver.getKey(null));
+            Assert.assertNull(resolver.getKey("unknown-kid"));
+        } finally {
+            resolver.close();
+        }
+    }
+
+    @Test
+    public void testKeyUse() throws Exception {
+        JWKSKeyResolver resolver = new JWKSKeyResolver(writeJwks(jwk("sig-key", "sig", null),
+                jwk("enc-key", "enc", null), jwk("any-use-key", null, null)), 0, 0);
+        resolver.start();
+        try {
+            // An encryption key is not a verification key
+            Assert.assertEquals(2, resolver.getKeyIds().size());
+            Assert.assertNotNull(resolver.getKey("sig-key"));
+            Assert.assertNotNull(resolver.getKey("any-use-key"));
+            Assert.assertNull(resolver.getKey("enc-key"));
+        } finally {
+            resolver.close();
+        }
+    }
+
+    @Test
+    public void testKeyAlg() throws Exception {
+        JWKSKeyResolver resolver = new JWKSKeyResolver(writeJwks(jwk("rs256-key", "sig", "RS256"),
+                jwk("ps256-key", "sig", "PS256"), jwk("any-alg-key", "sig", null)), 0, 0);
+        resolver.start();
+        try {
+            Assert.assertNotNull(resolver.findKey(jws("rs256-key", AlgorithmIdentifiers.RSA_USING_SHA256)));
+            Assert.assertNull(resolver.findKey(jws("rs256-key", AlgorithmIdentifiers.RSA_USING_SHA384)));
+            Assert.assertNull(resolver.findKey(jws("ps256-key", AlgorithmIdentifiers.RSA_USING_SHA256)));
+            Assert.assertNotNull(resolver.findKey(jws("any-alg-key", AlgorithmIdentifiers.RSA_USING_SHA384)));
+
+            // A token whose alg does not match the key of its kid is definitively rejected
+            TokenValidator validator = new TokenValidator(TestTokens.contextInfo("https://server.example.com"),
+                    resolver, null);
+            String token = TestTokens.sign(TestTokens.claims("https://server.example.com", 300),
+                    TestTokens.privateKey(), "ps256-key");
+            ValidationResult result = validator.check(new JWTCredential(token, validator));
+            Assert.assertEquals(ValidationResult.Status.BAD_SIGNATURE, result.getStatus());
+            Assert.assertTrue(result.isDefinitive());
+        } finally {
+            resolver.close();
+        }
+    }
+
+    /**
+     * Create the JWK of the /publicKey.pem key
+     */
+    private static Map<String, Object> jwk(String kid, String use, String alg) throws Exception {
+        RsaJsonWebKey jwk = new RsaJsonWebKey(TestTokens.publicKey());
+        jwk.setKeyId(kid);
+        jwk.setUse(use);
+        jwk.setAlgorithm(alg);
+        return jwk.toParams(JsonWebKey.OutputControlLevel.PUBLIC_ONLY);
+    }
+
+    @SafeVarargs
+    private static URL writeJwks(Map<String, Object>... jwks) throws Exception {
+        List<Map<String, Object>> keys = new ArrayList<>();
+        Collections.addAll(keys, jwks);
+        File file = File.createTempFile("jwks", ".json");
+        file.deleteOnExit();
+        String json = JsonUtil.toJson(Collections.singletonMap(JsonWebKeySet.JWK_SET_MEMBER_NAME, keys));
+        Files.write(file.toPath(), json.getBytes(StandardCharsets.UTF_8));
+        return file.toURI().toURL();
+    }
+
+    private static JsonWebSignature jws(String kid, String alg) {
+        JsonWebSignature jws = new JsonWebSignature();
+        jws.setKeyIdHeaderValue(kid);
+        jws.setAlgorithmHeaderValue(alg);
+        return jws;
+    }
+}
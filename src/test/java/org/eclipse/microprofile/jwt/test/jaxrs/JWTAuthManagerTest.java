@@ -0,0 +1,164 @@
+package org.eclipse.microprofile.jwt.test.jaxrs;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+
+import io.undertow.security.api.AuthenticationMechanism.AuthenticationMechanismOutcome;
+import io.undertow.security.api.SecurityContext;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+import org.eclipse.microprofile.jwt.principal.JWTAuthContextInfo;
+import org.eclipse.microprofile.jwt.principal.JWTCallerPrincipal;
+import org.eclipse.microprofile.jwt.test.util.TestTokens;
+import org.eclipse.microprofile.jwt.wfswarm.AuthMetrics;
+import org.eclipse.microprofile.jwt.wfswarm.DeploymentRoleMappers;
+import org.eclipse.microprofile.jwt.wfswarm.IssuerContext;
+import org.eclipse.microprofile.jwt.wfswarm.IssuerRegistry;
+import org.eclipse.microprofile.jwt.wfswarm.JWTAuthManager;
+import org.eclipse.microprofile.jwt.wfswarm.JWTAuthMechanism;
+import org.eclipse.microprofile.jwt.wfswarm.KeyUtils;
+import org.eclipse.microprofile.jwt.wfswarm.RoleMapper;
+import org.eclipse.microprofile.jwt.wfswarm.TokenCache;
+import org.eclipse.microprofile.jwt.wfswarm.TokenValidator;
+import org.eclipse.microprofile.jwt.wfswarm.cdi.SharedClaimValues;
+import org.jose4j.jwt.JwtClaims;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Validate the JWTAuthManager attributes and cache operations
+ */
+public class JWTAuthManagerTest {
+    @Test
+    public void testManager() throws Exception {
+        TokenCache<JWTCallerPrincipal> tokenCache = new TokenCache<>(100);
+        IssuerContext issuer = issuer(tokenCache);
+        JWTAuthMechanism mechanism = new JWTAuthMechanism(new IssuerRegistry(issuer), RoleMapper.identity(), false);
+        TokenCache<String> rejectedTokens = new TokenCache<>(100);
+        mechanism.setRejectedTokenCache(rejectedTokens, 10000);
+        try(URLClassLoader loader = new URLClassLoader(new URL[0], getClass().getClassLoader());
+            DeploymentRoleMappers roleMappers = DeploymentRoleMappers.register(loader)) {
+            JWTAuthManager manager = new JWTAuthManager(Collections.singletonList(issuer), tokenCache, mechanism,
+                    roleMappers, new AuthMetrics());
+
+            Assert.assertArrayEquals(new String[] {"https://server.example.com"}, manager.getIssuers());
+            Assert.assertEquals(1, manager.getKeyIds().get("https://server.example.com").size());
+            Assert.assertEquals(100, manager.getTokenCacheMaxSize());
+
+            rejectedTokens.put("digest", "EXPIRED", Long.MAX_VALUE);
+            Assert.assertEquals(1, manager.getRejectedTokenCacheSize());
+            manager.flushRejectedTokens();
+            Assert.assertEquals(0, manager.getRejectedTokenCacheSize());
+
+            Assert.assertEquals(10, manager.getRejectedTokenTtlSeconds());
+            manager.setRejectedTokenTtlSeconds(60);
+            Assert.assertEquals(60000, mechanism.getRejectedTokenTtlMillis());
+        }
+    }
+
+    @Test
+    public void testFlushSharedClaimValues() throws Exception {
+        TokenCache<JWTCallerPrincipal> tokenCache = new TokenCache<>(100);
+        IssuerContext issuer = issuer(tokenCache);
+        JWTAuthMechanism mechanism = new JWTAuthMechanism(new IssuerRegistry(issuer), RoleMapper.identity(), false);
+        SharedClaimValues sharedClaimValues = new SharedClaimValues(100);
+        mechanism.setSharedClaimValues(sharedClaimValues);
+        try(URLClassLoader loader = new URLClassLoader(new URL[0], getClass().getClassLoader());
+            DeploymentRoleMappers roleMappers = DeploymentRoleMappers.register(loader)) {
+            JWTAuthManager manager = new JWTAuthManager(Collections.singletonList(issuer), tokenCache, mechanism,
+                    roleMappers, new AuthMetrics());
+            JwtClaims claims = TestTokens.claims("https://server.example.com", 300);
+            claims.setStringListClaim("groups", "Echoer");
+            String token = TestTokens.sign(claims, TestTokens.privateKey(), null);
+            SecurityContext securityContext = (SecurityContext) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[] {SecurityContext.class}, (proxy, method, args) -> null);
+            for(int n = 0; n < 2; n ++) {
+                HttpServerExchange exchange = new HttpServerExchange(null);
+                exchange.getRequestHeaders().put(Headers.AUTHORIZATION, "Bearer " + token);
+                Assert.assertEquals(AuthenticationMechanismOutcome.AUTHENTICATED,
+                        mechanism.authenticate(exchange, securityContext));
+            }
+            // The two requests share the claim values of their token
+            Assert.assertEquals(1, sharedClaimValues.size());
+
+            manager.flushTokenCache();
+            Assert.assertEquals(0, tokenCache.size());
+            Assert.assertEquals(0, sharedClaimValues.size());
+        }
+    }
+
+    @Test
+    public void testReloadLoginModuleRoleMappings() throws Exception {
+        File dir = Files.createTempDirectory("roles").toFile();
+        File file = new File(dir, "roles.properties");
+        Files.write(file.toPath(), "group1=Tester\n".getBytes(StandardCharsets.ISO_8859_1));
+        try(URLClassLoader loader = new URLClassLoader(new URL[] {dir.toURI().toURL()}, null);
+            DeploymentRoleMappers roleMappers = DeploymentRoleMappers.register(loader)) {
+            // A JAAS mode mechanism, whose role mapping is only loaded by the JWTLoginModule
+            IssuerContext issuer = issuer(null);
+            JWTAuthManager manager = new JWTAuthManager(Collections.singletonList(issuer), null,
+                    new JWTAuthMechanism(new IssuerRegistry(issuer), null, true), roleMappers, new AuthMetrics());
+            RoleMapper roleMapper = DeploymentRoleMappers.forClassLoader(loader).get("roles.properties");
+            Assert.assertSame(roleMappers, DeploymentRoleMappers.forClassLoader(loader));
+            Set<String> groups = new HashSet<>(Arrays.asList("group1"));
+            Assert.assertTrue(roleMapper.mapRoles(groups).contains("Tester"));
+
+            Files.write(file.toPath(), "group1=Echoer\n".getBytes(StandardCharsets.ISO_8859_1));
+            manager.reloadRoleMappings();
+            Assert.assertTrue(roleMapper.mapRoles(groups).contains("Echoer"));
+        } finally {
+            file.delete();
+            dir.delete();
+        }
+    }
+
+    @Test
+    public void testOpenTypeAttributes() throws Exception {
+        IssuerContext issuer = issuer(null);
+        AuthMetrics metrics = new AuthMetrics();
+        metrics.failure("EXPIRED");
+        try(URLClassLoader loader = new URLClassLoader(new URL[0], getClass().getClassLoader());
+            DeploymentRoleMappers roleMappers = DeploymentRoleMappers.register(loader)) {
+            JWTAuthManager manager = new JWTAuthManager(Collections.singletonList(issuer), null,
+                    new JWTAuthMechanism(new IssuerRegistry(issuer), null, true), roleMappers, metrics);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName managerName = new ObjectName("org.eclipse.microprofile.jwt:type=JWTAuthManager,deployment=test");
+            ObjectName metricsName = new ObjectName("org.eclipse.microprofile.jwt:type=AuthMetrics,deployment=test");
+            server.registerMBean(manager, managerName);
+            server.registerMBean(metrics, metricsName);
+            try {
+                // The map attributes are open types a generic JMX client can read
+                TabularData keyIds = (TabularData) server.getAttribute(managerName, "KeyIds");
+                Assert.assertEquals(1, keyIds.size());
+                TabularData failures = (TabularData) server.getAttribute(managerName, "FailureCounts");
+                Assert.assertEquals(1, failures.size());
+                Assert.assertTrue(server.getAttribute(metricsName, "CacheHitRatios") instanceof TabularData);
+                Assert.assertTrue(server.getAttribute(metricsName, "StageLatencies") instanceof TabularData);
+            } finally {
+                server.unregisterMBean(managerName);
+                server.unregisterMBean(metricsName);
+            }
+        }
+    }
+
+    private static IssuerContext issuer(TokenCache<JWTCallerPrincipal> tokenCache) throws Exception {
+        JWTAuthContextInfo contextInfo = new JWTAuthContextInfo();
+        contextInfo.setIssuedBy("https://server.example.com");
+        contextInfo.setSignerKey((RSAPublicKey) KeyUtils.readPublicKey("/publicKey.pem"));
+        return new IssuerContext(new TokenValidator(contextInfo, tokenCache), null);
+    }
+}
@@ -0,0 +1,38 @@
+package org.eclipse.microprofile.jwt.test.jaxrs;
+
+import io.undertow.servlet.Servlets;
+import io.undertow.servlet.api.DeploymentInfo;
+import org.eclipse.microprofile.jwt.wfswarm.JWTAuthMethodExtension;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Validate the servlet url-pattern matching of the security constraints checked for the metrics path
+ */
+public class JWTAuthMethodExtensionTest {
+    @Test
+    public void testExactAndPrefixPatterns() {
+        Assert.assertFalse(JWTAuthMethodExtension.isConstrained(constrained("/other"), "/metrics"));
+        Assert.assertTrue(JWTAuthMethodExtension.isConstrained(constrained("/metrics"), "/metrics"));
+        Assert.assertTrue(JWTAuthMethodExtension.isConstrained(constrained("/*"), "/metrics"));
+        Assert.assertTrue(JWTAuthMethodExtension.isConstrained(constrained("/admin/*"), "/admin/metrics"));
+        Assert.assertTrue(JWTAuthMethodExtension.isConstrained(constrained("/admin/*"), "/admin"));
+        Assert.assertTrue(JWTAuthMethodExtension.isConstrained(constrained("/admin/*"), "/admin/metrics/*"));
+        // A prefix only matches whole path segments
+        Assert.assertFalse(JWTAuthMethodExtension.isConstrained(constrained("/admin/*"), "/administration"));
+        Assert.assertFalse(JWTAuthMethodExtension.isConstrained(constrained("/admin/metrics/*"), "/admin/*"));
+    }
+
+    @Test
+    public void testExtensionAndDefaultPatterns() {
+        Assert.assertTrue(JWTAuthMethodExtension.isConstrained(constrained("*.txt"), "/metrics.txt"));
+        Assert.assertFalse(JWTAuthMethodExtension.isConstrained(constrained("*.txt"), "/metrics"));
+        Assert.assertTrue(JWTAuthMethodExtension.isConstrained(constrained("/"), "/metrics"));
+    }
+
+    private static DeploymentInfo constrained(String urlPattern) {
+        return new DeploymentInfo().addSecurityConstraint(Servlets.securityConstraint()
+                .addRoleAllowed("Admin")
+                .addWebResourceCollection(Servlets.webResourceCollection().addUrlPattern(urlPattern)));
+    }
+}
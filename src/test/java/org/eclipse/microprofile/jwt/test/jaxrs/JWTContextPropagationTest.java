@@ -0,0 +1,105 @@
+package org.eclipse.microprofile.jwt.test.jaxrs;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.microprofile.jwt.JsonWebToken;
+import org.eclipse.microprofile.jwt.impl.DefaultJWTCallerPrincipal;
+import org.eclipse.microprofile.jwt.wfswarm.cdi.JWTContextPropagation;
+import org.eclipse.microprofile.jwt.wfswarm.cdi.MPJWTProducer;
+import org.jose4j.jwt.JwtClaims;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Validate that a wrapped task sees the propagated JsonWebToken while it runs, and that the token is removed from the
+ * executing thread afterwards
+ */
+public class JWTContextPropagationTest {
+    @Test
+    public void testRunnableSeesToken() {
+        JsonWebToken token = token("jdoe@example.com");
+        AtomicReference<JsonWebToken> seen = new AtomicReference<>();
+        Runnable task = JWTContextPropagation.wrap((Runnable) () -> seen.set(MPJWTProducer.getJWTPrincpal()), token);
+
+        Assert.assertNull(MPJWTProducer.getJWTPrincpal());
+        task.run();
+        Assert.assertSame(token, seen.get());
+        Assert.assertNull(MPJWTProducer.getJWTPrincpal());
+    }
+
+    @Test
+    public void testCallableSeesToken() throws Exception {
+        JsonWebToken token = token("jdoe@example.com");
+        Callable<String> task = JWTContextPropagation.wrap(() -> MPJWTProducer.getJWTPrincpal().getName(), token);
+        Assert.assertEquals("jdoe@example.com", task.call());
+        Assert.assertNull(MPJWTProducer.getJWTPrincpal());
+    }
+
+    @Test
+    public void testTokenIsClearedWhenTaskThrows() {
+        Runnable task = JWTContextPropagation.wrap((Runnable) () -> {
+            throw new IllegalStateException("task failure");
+        }, token("jdoe@example.com"));
+        try {
+            task.run();
+            Assert.fail("The task exception was not propagated");
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("task failure", e.getMessage());
+        }
+        Assert.assertNull(MPJWTProducer.getJWTPrincpal());
+
+        Callable<Object> callable = JWTContextPropagation.wrap(() -> {
+            throw new Exception("call failure");
+        }, token("jdoe@example.com"));
+        try {
+            callable.call();
+            Assert.fail("The call exception was not propagated");
+        } catch (Exception e) {
+            Assert.assertEquals("call failure", e.getMessage());
+        }
+        Assert.assertNull(MPJWTProducer.getJWTPrincpal());
+    }
+
+    @Test
+    public void testNestedTaskRestoresOuterToken() {
+        JsonWebToken outer = token("outer@example.com");
+        JsonWebToken inner = token("inner@example.com");
+        AtomicReference<JsonWebToken> afterInner = new AtomicReference<>();
+        Runnable innerTask = JWTContextPropagation.wrap((Runnable) () -> {}, inner);
+        Runnable outerTask = JWTContextPropagation.wrap((Runnable) () -> {
+            innerTask.run();
+            afterInner.set(MPJWTProducer.getJWTPrincpal());
+        }, outer);
+        outerTask.run();
+        Assert.assertSame(outer, afterInner.get());
+        Assert.assertNull(MPJWTProducer.getJWTPrincpal());
+    }
+
+    @Test
+    public void testExecutorServicePropagatesFromSubmittingTask() throws Exception {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            ExecutorService executor = JWTContextPropagation.wrap(pool);
+            JsonWebToken token = token("jdoe@example.com");
+            // Submit from within a task that runs with the token, as a request thread would
+            Callable<Future<String>> submit = JWTContextPropagation.wrap(
+                    () -> executor.submit(() -> MPJWTProducer.getJWTPrincpal().getName()), token);
+            Assert.assertEquals("jdoe@example.com", submit.call().get());
+            // A task submitted without a token runs without one
+            Assert.assertNull(executor.submit(MPJWTProducer::getJWTPrincpal).get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static JsonWebToken token(String name) {
+        JwtClaims claims = new JwtClaims();
+        claims.setSubject(name);
+        claims.setClaim("upn", name);
+        return new DefaultJWTCallerPrincipal("token", "JWT", claims, name);
+    }
+}
@@ -0,0 +1,105 @@
+package org.eclipse.microprofile.jwt.test.jaxrs;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.security.Principal;
+import java.security.acl.Group;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.security.auth.Subject;
+import javax.security.auth.callback.Callback;
+import javax.security.auth.callback.CallbackHandler;
+
+import org.eclipse.microprofile.jwt.test.util.TestTokens;
+import org.eclipse.microprofile.jwt.wfswarm.DeploymentRoleMappers;
+import org.eclipse.microprofile.jwt.wfswarm.TokenValidator;
+import org.eclipse.microprofile.jwt.wfswarm.jaas.JWTCredential;
+import org.eclipse.microprofile.jwt.wfswarm.jaas.JWTLoginModule;
+import org.jboss.security.auth.callback.SecurityAssociationCallback;
+import org.jose4j.jwt.JwtClaims;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Validate the role mapping of the JWTLoginModule through the role mappings of its deployment
+ */
+public class JWTLoginModuleTest {
+    private static final String ISSUER = "https://server.example.com";
+
+    @Test
+    public void testDeploymentRoleMapping() throws Exception {
+        try(URLClassLoader loader = new URLClassLoader(new URL[0], getClass().getClassLoader())) {
+            DeploymentRoleMappers roleMappers = DeploymentRoleMappers.register(loader);
+            try {
+                Set<String> roles = login(loader, "group1");
+                Assert.assertTrue(roles.toString(),
+                        roles.containsAll(Arrays.asList("group1", "Tester", "Group1MappedRole")));
+                // The login used the mapping owned by the deployment
+                Assert.assertEquals(1, roleMappers.getRoleMappers().size());
+                login(loader, "group2");
+                Assert.assertEquals(1, roleMappers.getRoleMappers().size());
+            } finally {
+                roleMappers.close();
+            }
+        }
+    }
+
+    @Test
+    public void testUnmappedGroups() throws Exception {
+        try(URLClassLoader loader = new URLClassLoader(new URL[0], getClass().getClassLoader())) {
+            DeploymentRoleMappers roleMappers = DeploymentRoleMappers.register(loader);
+            try {
+                Assert.assertEquals(Collections.singleton("group3"), login(loader, "group3"));
+            } finally {
+                roleMappers.close();
+            }
+        }
+    }
+
+    /**
+     * Login with a token carrying the groups, using the loader as the deployment class loader
+     * @return the role names of the Roles group of the Subject
+     */
+    private static Set<String> login(ClassLoader loader, String... groups) throws Exception {
+        JwtClaims claims = TestTokens.claims(ISSUER, 300);
+        claims.setStringListClaim("groups", groups);
+        String token = TestTokens.sign(claims, TestTokens.privateKey(), null);
+        JWTCredential credential = new JWTCredential(token, new TokenValidator(TestTokens.contextInfo(ISSUER), null));
+        CallbackHandler callbackHandler = (Callback[] callbacks) -> {
+            for(Callback callback : callbacks) {
+                if(callback instanceof SecurityAssociationCallback) {
+                    ((SecurityAssociationCallback) callback).setCredential(credential);
+                }
+            }
+        };
+        Map<String, Object> options = new HashMap<>();
+        options.put("rolesProperties", "jwt-roles.properties");
+
+        Subject subject = new Subject();
+        ClassLoader tccl = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(loader);
+        try {
+            JWTLoginModule loginModule = new JWTLoginModule();
+            loginModule.initialize(subject, callbackHandler, new HashMap<String, Object>(), options);
+            Assert.assertTrue(loginModule.login());
+            Assert.assertTrue(loginModule.commit());
+        } finally {
+            Thread.currentThread().setContextClassLoader(tccl);
+        }
+
+        Set<String> roles = new HashSet<>();
+        for(Group group : subject.getPrincipals(Group.class)) {
+            if("Roles".equals(group.getName())) {
+                for(Principal role : Collections.list(group.members())) {
+                    roles.add(role.getName());
+                }
+            }
+        }
+        return roles;
+    }
+}
@@ -0,0 +1,166 @@
+package org.eclipse.microprofile.jwt.test.jaxrs;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+import org.eclipse.microprofile.jwt.wfswarm.KeyUtils;
+import org.eclipse.microprofile.jwt.wfswarm.SignatureAlgorithms;
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Validate the PEM decoding, its key type detection and the JWS algorithm selected for a key
+ */
+public class KeyAlgorithmTest {
+    @Test
+    public void testRSAPublicKey() throws Exception {
+        PublicKey publicKey = KeyUtils.readPublicKey("/publicKey.pem");
+        Assert.assertEquals("RSA", publicKey.getAlgorithm());
+        Assert.assertArrayEquals(new String[] {AlgorithmIdentifiers.RSA_USING_SHA256}, SignatureAlgorithms.forKey(publicKey));
+    }
+
+    @Test
+    public void testECPublicKey() throws Exception {
+        assertECAlgorithm("secp256r1", AlgorithmIdentifiers.ECDSA_USING_P256_CURVE_AND_SHA256);
+        assertECAlgorithm("secp384r1", AlgorithmIdentifiers.ECDSA_USING_P384_CURVE_AND_SHA384);
+    }
+
+    @Test
+    public void testSingleLinePEM() throws Exception {
+        // The form of a signerPubKey property after the WFLY-9135 space to '+' workaround
+        PublicKey expected = KeyUtils.readPublicKey("/publicKey.pem");
+        String pem = toPEM("PUBLIC KEY", expected.getEncoded()).replace("\n", "").replace(' ', '+');
+        PublicKey publicKey = KeyUtils.decodePublicKey(pem);
+        Assert.assertEquals(expected, publicKey);
+        Assert.assertSame(publicKey, KeyUtils.decodePublicKey(pem));
+    }
+
+    @Test
+    public void testMultipleBlocks() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        PublicKey rsaKey = generator.generateKeyPair().getPublic();
+        generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        PublicKey ecKey = generator.generateKeyPair().getPublic();
+        String pem = toPEM("PUBLIC KEY", rsaKey.getEncoded()) + toPEM("PUBLIC KEY", ecKey.getEncoded());
+
+        Assert.assertEquals(rsaKey, KeyUtils.decodePublicKey(pem));
+        List<PublicKey> keys = KeyUtils.decodePublicKeys(pem);
+        Assert.assertEquals(2, keys.size());
+        Assert.assertEquals(rsaKey, keys.get(0));
+        Assert.assertEquals(ecKey, keys.get(1));
+    }
+
+    @Test
+    public void testPKCS1PublicKey() throws Exception {
+        // The fixtures were generated from the same key with openssl rsa -RSAPublicKey_out and -pubout
+        PublicKey expected = KeyUtils.readPublicKey("/rsa-x509-public.pem");
+        PublicKey publicKey = KeyUtils.readPublicKey("/rsa-pkcs1-public.pem");
+        Assert.assertEquals("RSA", publicKey.getAlgorithm());
+        Assert.assertEquals(expected, publicKey);
+        Assert.assertArrayEquals(expected.getEncoded(), publicKey.getEncoded());
+    }
+
+    @Test
+    public void testPKCS1PrivateKey() throws Exception {
+        // The fixtures were generated from the same key with openssl rsa -traditional and openssl genpkey
+        PrivateKey expected = KeyUtils.readPrivateKey("/rsa-pkcs8-private.pem");
+        PrivateKey privateKey = KeyUtils.readPrivateKey("/rsa-pkcs1-private.pem");
+        Assert.assertEquals("RSA", privateKey.getAlgorithm());
+        Assert.assertArrayEquals(expected.getEncoded(), privateKey.getEncoded());
+        assertKeyPair(KeyUtils.readPublicKey("/rsa-x509-public.pem"), privateKey);
+    }
+
+    @Test
+    public void testCertificatePublicKey() throws Exception {
+        // A self signed openssl req -x509 certificate of the same key
+        PublicKey publicKey = KeyUtils.readPublicKey("/rsa-certificate.pem");
+        Assert.assertEquals(KeyUtils.readPublicKey("/rsa-x509-public.pem"), publicKey);
+        assertKeyPair(publicKey, KeyUtils.readPrivateKey("/rsa-pkcs1-private.pem"));
+    }
+
+    @Test
+    public void testJDKEncodedPKCS1RoundTrip() throws Exception {
+        // Relabel the PKCS#1 content of JDK encoded keys, which sits at the end of the X.509 and PKCS#8 encodings
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keyPair = generator.generateKeyPair();
+        byte[] pkcs1Public = pkcs1(keyPair.getPublic().getEncoded(), true);
+        byte[] pkcs1Private = pkcs1(keyPair.getPrivate().getEncoded(), false);
+        Assert.assertEquals(keyPair.getPublic(), KeyUtils.decodePublicKey(toPEM("RSA PUBLIC KEY", pkcs1Public)));
+        Assert.assertArrayEquals(keyPair.getPrivate().getEncoded(),
+                KeyUtils.decodePrivateKey(toPEM("RSA PRIVATE KEY", pkcs1Private)).getEncoded());
+    }
+
+    /**
+     * Extract the PKCS#1 key from the BIT STRING of a X.509 SubjectPublicKeyInfo, or the OCTET STRING of a PKCS#8
+     * PrivateKeyInfo, which are the last element of either
+     */
+    private static byte[] pkcs1(byte[] encoded, boolean publicKey) {
+        // SEQUENCE { [version INTEGER,] AlgorithmIdentifier SEQUENCE, BIT STRING / OCTET STRING }
+        int offset = headerLength(encoded, 0);
+        if(!publicKey) {
+            offset += elementLength(encoded, offset);
+        }
+        offset += elementLength(encoded, offset);
+        int content = offset + headerLength(encoded, offset);
+        if(publicKey) {
+            // Skip the unused bits byte of the BIT STRING
+            content ++;
+        }
+        return Arrays.copyOfRange(encoded, content, encoded.length);
+    }
+
+    private static int headerLength(byte[] der, int offset) {
+        int length = der[offset + 1] & 0xff;
+        return (length & 0x80) != 0 ? 2 + (length & 0x7f) : 2;
+    }
+
+    private static int elementLength(byte[] der, int offset) {
+        int length = der[offset + 1] & 0xff;
+        if((length & 0x80) != 0) {
+            int count = length & 0x7f;
+            length = 0;
+            for(int n = 0; n < count; n ++) {
+                length = (length << 8) | (der[offset + 2 + n] & 0xff);
+            }
+        }
+        return headerLength(der, offset) + length;
+    }
+
+    private static void assertKeyPair(PublicKey publicKey, PrivateKey privateKey) throws Exception {
+        Signature signer = Signature.getInstance("SHA256withRSA");
+        signer.initSign(privateKey);
+        signer.update(new byte[] {1, 2, 3});
+        byte[] signature = signer.sign();
+        Signature verifier = Signature.getInstance("SHA256withRSA");
+        verifier.initVerify(publicKey);
+        verifier.update(new byte[] {1, 2, 3});
+        Assert.assertTrue(verifier.verify(signature));
+    }
+
+    private static String toPEM(String label, byte[] der) {
+        return "-----BEGIN " + label + "-----\n"
+                + Base64.getMimeEncoder().encodeToString(der)
+                + "\n-----END " + label + "-----\n";
+    }
+
+    private static void assertECAlgorithm(String curve, String expectedAlg) throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec(curve));
+        PublicKey expected = generator.generateKeyPair().getPublic();
+        String pem = toPEM("PUBLIC KEY", expected.getEncoded());
+        PublicKey publicKey = KeyUtils.decodePublicKey(pem);
+        Assert.assertEquals(expected, publicKey);
+        Assert.assertArrayEquals(new String[] {expectedAlg}, SignatureAlgorithms.forKey(publicKey));
+    }
+}
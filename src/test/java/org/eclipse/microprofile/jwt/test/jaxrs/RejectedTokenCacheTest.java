@@ -0,0 +1,148 @@
+package org.eclipse.microprofile.jwt.test.jaxrs;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.security.Key;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.undertow.security.api.AuthenticationMechanism.AuthenticationMechanismOutcome;
+import io.undertow.security.api.SecurityContext;
+import io.undertow.security.idm.IdentityManager;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+import org.eclipse.microprofile.jwt.principal.JWTAuthContextInfo;
+import org.eclipse.microprofile.jwt.test.util.TestTokens;
+import org.eclipse.microprofile.jwt.wfswarm.AuthMetrics;
+import org.eclipse.microprofile.jwt.wfswarm.IssuerContext;
+import org.eclipse.microprofile.jwt.wfswarm.IssuerRegistry;
+import org.eclipse.microprofile.jwt.wfswarm.JWTAuthMechanism;
+import org.eclipse.microprofile.jwt.wfswarm.RoleMapper;
+import org.eclipse.microprofile.jwt.wfswarm.TokenCache;
+import org.eclipse.microprofile.jwt.wfswarm.TokenValidator;
+import org.jose4j.jwt.JwtClaims;
+import org.jose4j.lang.UnresolvableKeyException;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Validate that the JWTAuthMechanism remembers the tokens that definitively failed validation, and only those
+ */
+public class RejectedTokenCacheTest {
+    private static final String ISSUER = "https://server.example.com";
+
+    private TokenCache<String> rejectedTokens;
+    private AuthMetrics metrics;
+
+    @Before
+    public void setup() {
+        rejectedTokens = new TokenCache<>(100);
+        metrics = new AuthMetrics();
+    }
+
+    @Test
+    public void testCacheHit() throws Exception {
+        JWTAuthMechanism mechanism = mechanism(validator(), RoleMapper.identity(), 60000);
+        String token = TestTokens.signToken(ISSUER, -300);
+
+        Assert.assertEquals(AuthenticationMechanismOutcome.NOT_AUTHENTICATED, authenticate(mechanism, token, null));
+        // Only the status is kept, not the failure message
+        Assert.assertEquals("EXPIRED", rejectedTokens.get(TokenCache.digest(token)));
+
+        Assert.assertEquals(AuthenticationMechanismOutcome.NOT_AUTHENTICATED, authenticate(mechanism, token, null));
+        Assert.assertEquals(Long.valueOf(1), metrics.getFailureCounts().get("EXPIRED"));
+        Assert.assertEquals(Long.valueOf(1), metrics.getFailureCounts().get(AuthMetrics.CACHED_REJECTION));
+    }
+
+    @Test
+    public void testTtlExpiry() throws Exception {
+        JWTAuthMechanism mechanism = mechanism(validator(), RoleMapper.identity(), 50);
+        String token = TestTokens.signToken("https://other.example.com", 300);
+
+        Assert.assertEquals(AuthenticationMechanismOutcome.NOT_AUTHENTICATED, authenticate(mechanism, token, null));
+        Assert.assertEquals(1, rejectedTokens.size());
+        Thread.sleep(100);
+        // The rejection has expired, so the token is validated again
+        Assert.assertEquals(AuthenticationMechanismOutcome.NOT_AUTHENTICATED, authenticate(mechanism, token, null));
+        Assert.assertEquals(Long.valueOf(2), metrics.getFailureCounts().get("WRONG_ISSUER"));
+        Assert.assertNull(metrics.getFailureCounts().get(AuthMetrics.CACHED_REJECTION));
+    }
+
+    @Test
+    public void testUnknownKeyIsNotCached() throws Exception {
+        // A key set that does not publish the signing key yet
+        AtomicReference<Key> publishedKey = new AtomicReference<>();
+        TokenValidator validator = new TokenValidator(contextInfo(), (jws, nestingContext) -> {
+            Key key = publishedKey.get();
+            if(key == null) {
+                throw new UnresolvableKeyException("No key for kid: " + jws.getKeyIdHeaderValue());
+            }
+            return key;
+        }, null);
+        JWTAuthMechanism mechanism = mechanism(validator, RoleMapper.identity(), 60000);
+        JwtClaims claims = TestTokens.claims(ISSUER, 300);
+        claims.setStringListClaim("groups", "Echoer");
+        String token = TestTokens.sign(claims, TestTokens.privateKey(), null);
+        SecurityContext securityContext = proxy(SecurityContext.class, (proxy, method, args) -> null);
+
+        Assert.assertEquals(AuthenticationMechanismOutcome.NOT_AUTHENTICATED,
+                authenticate(mechanism, token, securityContext));
+        Assert.assertEquals(Long.valueOf(1), metrics.getFailureCounts().get("BAD_SIGNATURE"));
+        Assert.assertEquals(0, rejectedTokens.size());
+
+        // Once the key is published the same token is accepted
+        publishedKey.set(TestTokens.publicKey());
+        Assert.assertEquals(AuthenticationMechanismOutcome.AUTHENTICATED,
+                authenticate(mechanism, token, securityContext));
+        Assert.assertNull(metrics.getFailureCounts().get(AuthMetrics.CACHED_REJECTION));
+    }
+
+    @Test
+    public void testLoginErrorIsNotCached() throws Exception {
+        // Authenticate through an IdentityManager whose login module stack fails
+        JWTAuthMechanism mechanism = mechanism(validator(), null, 60000);
+        IdentityManager identityManager = proxy(IdentityManager.class, (proxy, method, args) -> {
+            throw new IllegalStateException("Security domain is not available");
+        });
+        SecurityContext securityContext = proxy(SecurityContext.class, (proxy, method, args) ->
+                method.getName().equals("getIdentityManager") ? identityManager : null);
+        String token = TestTokens.signToken(ISSUER, 300);
+
+        Assert.assertEquals(AuthenticationMechanismOutcome.NOT_AUTHENTICATED,
+                authenticate(mechanism, token, securityContext));
+        Assert.assertEquals(AuthenticationMechanismOutcome.NOT_AUTHENTICATED,
+                authenticate(mechanism, token, securityContext));
+        Assert.assertEquals(Long.valueOf(2), metrics.getFailureCounts().get(AuthMetrics.LOGIN_ERROR));
+        Assert.assertEquals(0, rejectedTokens.size());
+    }
+
+    private static JWTAuthContextInfo contextInfo() throws Exception {
+        JWTAuthContextInfo contextInfo = TestTokens.contextInfo(ISSUER);
+        contextInfo.setExpGracePeriodSecs(60);
+        return contextInfo;
+    }
+
+    private static TokenValidator validator() throws Exception {
+        return new TokenValidator(contextInfo(), null);
+    }
+
+    private JWTAuthMechanism mechanism(TokenValidator validator, RoleMapper roleMapper, long ttlMillis) {
+        JWTAuthMechanism mechanism = new JWTAuthMechanism(new IssuerRegistry(new IssuerContext(validator, null)),
+                roleMapper, false);
+        mechanism.setRejectedTokenCache(rejectedTokens, ttlMillis);
+        mechanism.setMetrics(metrics);
+        return mechanism;
+    }
+
+    private static AuthenticationMechanismOutcome authenticate(JWTAuthMechanism mechanism, String token,
+                                                               SecurityContext securityContext) {
+        HttpServerExchange exchange = new HttpServerExchange(null);
+        exchange.getRequestHeaders().put(Headers.AUTHORIZATION, "Bearer " + token);
+        return mechanism.authenticate(exchange, securityContext);
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(RejectedTokenCacheTest.class.getClassLoader(), new Class<?>[] {type},
+                handler));
+    }
+}
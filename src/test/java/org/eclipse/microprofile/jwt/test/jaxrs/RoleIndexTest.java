@@ -0,0 +1,40 @@
+package org.eclipse.microprofile.jwt.test.jaxrs;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.eclipse.microprofile.jwt.wfswarm.RoleIndex;
+import org.eclipse.microprofile.jwt.wfswarm.RoleSet;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Validate the bitset backed caller role sets of a RoleIndex
+ */
+public class RoleIndexTest {
+    @Test
+    public void testRoleSet() {
+        RoleIndex index = new RoleIndex(Arrays.asList("Echoer", "Tester", "Admin"));
+        Set<String> roles = new HashSet<>(Arrays.asList("Echoer", "Tester", "group1"));
+        RoleSet roleSet = index.toRoleSet(roles);
+        Assert.assertEquals(roles, roleSet);
+        Assert.assertEquals(roles.hashCode(), roleSet.hashCode());
+        Assert.assertEquals(3, roleSet.size());
+        Assert.assertTrue(roleSet.contains("Tester"));
+        Assert.assertTrue(roleSet.contains("group1"));
+        Assert.assertFalse(roleSet.contains("Admin"));
+        Assert.assertFalse(roleSet.contains("group2"));
+        Assert.assertTrue(roleSet.contains(index.indexOf("Echoer")));
+        Assert.assertFalse(roleSet.contains(index.indexOf("Admin")));
+        // An equal roles set returns the memoized RoleSet
+        Assert.assertSame(roleSet, index.toRoleSet(new HashSet<>(roles)));
+        Assert.assertSame(roleSet, index.toRoleSet(roleSet));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testImmutable() {
+        RoleIndex index = new RoleIndex(Arrays.asList("Echoer"));
+        index.toRoleSet(new HashSet<>(Arrays.asList("Echoer"))).add("Tester");
+    }
+}
@@ -0,0 +1,98 @@
+package org.eclipse.microprofile.jwt.test.jaxrs;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.eclipse.microprofile.jwt.wfswarm.DeploymentRoleMappers;
+import org.eclipse.microprofile.jwt.wfswarm.RoleMapper;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Validate the group to role expansion of the RoleMapper, its memoization, reloading and file watch, and the
+ * ownership of the mappings by the deployment
+ */
+public class RoleMapperTest {
+    @Test
+    public void testMapRoles() throws Exception {
+        RoleMapper roleMapper = RoleMapper.load("jwt-roles.properties", getClass().getClassLoader());
+        Set<String> groups = new HashSet<>(Arrays.asList("group1", "group3"));
+        Set<String> roles = roleMapper.mapRoles(groups);
+        Assert.assertEquals(new HashSet<>(Arrays.asList("group1", "group3", "Tester", "Group1MappedRole")), roles);
+        // An equal groups set returns the memoized roles
+        Assert.assertSame(roles, roleMapper.mapRoles(new HashSet<>(groups)));
+    }
+
+    @Test
+    public void testReload() throws Exception {
+        File dir = Files.createTempDirectory("roles").toFile();
+        File file = new File(dir, "roles.properties");
+        Files.write(file.toPath(), "group1=Tester\n".getBytes(StandardCharsets.ISO_8859_1));
+        try(URLClassLoader loader = new URLClassLoader(new URL[] {dir.toURI().toURL()}, null);
+            RoleMapper roleMapper = RoleMapper.load("roles.properties", loader)) {
+            Set<String> groups = new HashSet<>(Arrays.asList("group1"));
+            Assert.assertTrue(roleMapper.mapRoles(groups).contains("Tester"));
+
+            Files.write(file.toPath(), "group1=Echoer\n".getBytes(StandardCharsets.ISO_8859_1));
+            roleMapper.reload();
+            Set<String> roles = roleMapper.mapRoles(groups);
+            Assert.assertTrue(roles.contains("Echoer"));
+            Assert.assertFalse(roles.contains("Tester"));
+        } finally {
+            file.delete();
+            dir.delete();
+        }
+    }
+
+    @Test
+    public void testWatch() throws Exception {
+        File dir = Files.createTempDirectory("roles").toFile();
+        File file = new File(dir, "roles.properties");
+        Files.write(file.toPath(), "group1=Tester\n".getBytes(StandardCharsets.ISO_8859_1));
+        try(URLClassLoader loader = new URLClassLoader(new URL[] {dir.toURI().toURL()}, null);
+            RoleMapper roleMapper = RoleMapper.load("roles.properties", loader)) {
+            roleMapper.watch();
+            Set<String> groups = new HashSet<>(Arrays.asList("group1"));
+            Assert.assertTrue(roleMapper.mapRoles(groups).contains("Tester"));
+
+            // The modification is picked up by the watch thread without a reload call
+            Files.write(file.toPath(), "group1=Echoer\n".getBytes(StandardCharsets.ISO_8859_1));
+            long deadline = System.currentTimeMillis() + 30000;
+            while(!roleMapper.mapRoles(groups).contains("Echoer") && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            Set<String> roles = roleMapper.mapRoles(groups);
+            Assert.assertTrue(roles.contains("Echoer"));
+            Assert.assertFalse(roles.contains("Tester"));
+        } finally {
+            file.delete();
+            dir.delete();
+        }
+    }
+
+    @Test
+    public void testDeploymentRoleMappers() throws Exception {
+        try(URLClassLoader loader = new URLClassLoader(new URL[0], getClass().getClassLoader())) {
+            Assert.assertNull(DeploymentRoleMappers.forClassLoader(loader));
+            DeploymentRoleMappers roleMappers = DeploymentRoleMappers.register(loader);
+            Assert.assertSame(roleMappers, DeploymentRoleMappers.forClassLoader(loader));
+            Assert.assertSame(roleMappers, DeploymentRoleMappers.register(loader));
+
+            // A resource is loaded once per deployment
+            RoleMapper roleMapper = roleMappers.get("jwt-roles.properties");
+            Assert.assertSame(roleMapper, roleMappers.get("jwt-roles.properties"));
+            Assert.assertEquals(1, roleMappers.getRoleMappers().size());
+
+            // Undeploy releases the mappings and the registration
+            roleMappers.close();
+            Assert.assertNull(DeploymentRoleMappers.forClassLoader(loader));
+            Assert.assertTrue(roleMappers.getRoleMappers().isEmpty());
+        }
+    }
+}
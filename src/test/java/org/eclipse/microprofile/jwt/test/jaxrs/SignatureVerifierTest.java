@@ -0,0 +1,153 @@
+package org.eclipse.microprofile.jwt.test.jaxrs;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Arrays;
+import java.util.Base64;
+
+import org.eclipse.microprofile.jwt.principal.ParseException;
+import org.eclipse.microprofile.jwt.wfswarm.KeyUtils;
+import org.eclipse.microprofile.jwt.wfswarm.SignatureAlgorithms;
+import org.eclipse.microprofile.jwt.wfswarm.SignatureVerifier;
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jws.JsonWebSignature;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+/**
+ * Validate the pooled signature verification against tokens signed by jose4j
+ */
+public class SignatureVerifierTest {
+    private static final String[] ALGORITHMS = {
+            AlgorithmIdentifiers.RSA_USING_SHA256,
+            AlgorithmIdentifiers.ECDSA_USING_P256_CURVE_AND_SHA256
+    };
+
+    @Test
+    public void testRS256() throws Exception {
+        PublicKey publicKey = KeyUtils.readPublicKey("/publicKey.pem");
+        PrivateKey privateKey = KeyUtils.readPrivateKey("/privateKey.pem");
+        assertVerifies(AlgorithmIdentifiers.RSA_USING_SHA256, publicKey, privateKey);
+    }
+
+    @Test
+    public void testES256() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        KeyPair keyPair = generator.generateKeyPair();
+        assertVerifies(AlgorithmIdentifiers.ECDSA_USING_P256_CURVE_AND_SHA256, keyPair.getPublic(), keyPair.getPrivate());
+    }
+
+    @Test
+    public void testEdDSA() throws Exception {
+        // Ed25519 needs JDK 15 unless it comes from an installed provider
+        Assume.assumeTrue(SignatureVerifier.isSupported(SignatureAlgorithms.EDDSA, null));
+        KeyPair keyPair = KeyPairGenerator.getInstance(SignatureAlgorithms.ED25519).generateKeyPair();
+        // The raw key of an OKP JWK decodes to the same key
+        byte[] encoded = keyPair.getPublic().getEncoded();
+        PublicKey publicKey = KeyUtils.decodeEd25519PublicKey(Arrays.copyOfRange(encoded, encoded.length - 32,
+                encoded.length));
+        Assert.assertEquals(keyPair.getPublic(), publicKey);
+        Assert.assertArrayEquals(new String[] {SignatureAlgorithms.EDDSA}, SignatureAlgorithms.forKey(publicKey));
+
+        SignatureVerifier verifier = new SignatureVerifier(new String[] {SignatureAlgorithms.EDDSA}, null);
+        String token = signEdDSA(keyPair.getPrivate(), "{\"sub\":\"jdoe\"}");
+        for(int n = 0; n < 3; n ++) {
+            verifier.verify(SignatureAlgorithms.EDDSA, publicKey, token);
+        }
+        String tampered = signEdDSA(keyPair.getPrivate(), "{\"sub\":\"asmith\"}");
+        tampered = token.substring(0, token.lastIndexOf('.')) + tampered.substring(tampered.lastIndexOf('.'));
+        Assert.assertNotNull(verifier.check(SignatureAlgorithms.EDDSA, publicKey, tampered));
+        // An EdDSA token is not verified with an RSA key
+        PublicKey rsaKey = KeyUtils.readPublicKey("/publicKey.pem");
+        Assert.assertNotNull(verifier.check(SignatureAlgorithms.EDDSA, rsaKey, token));
+    }
+
+    @Test(expected = ParseException.class)
+    public void testAlgorithmNotAccepted() throws Exception {
+        PublicKey publicKey = KeyUtils.readPublicKey("/publicKey.pem");
+        PrivateKey privateKey = KeyUtils.readPrivateKey("/privateKey.pem");
+        String token = sign(AlgorithmIdentifiers.RSA_USING_SHA384, privateKey, "{\"sub\":\"jdoe\"}");
+        new SignatureVerifier(ALGORITHMS, null).verify(AlgorithmIdentifiers.RSA_USING_SHA384, publicKey, token);
+    }
+
+    @Test(expected = ParseException.class)
+    public void testKeyDoesNotMatchAlgorithm() throws Exception {
+        PrivateKey privateKey = KeyUtils.readPrivateKey("/privateKey.pem");
+        String token = sign(AlgorithmIdentifiers.RSA_USING_SHA256, privateKey, "{\"sub\":\"jdoe\"}");
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        PublicKey ecKey = generator.generateKeyPair().getPublic();
+        new SignatureVerifier(ALGORITHMS, null).verify(AlgorithmIdentifiers.RSA_USING_SHA256, ecKey, token);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownProvider() {
+        new SignatureVerifier(ALGORITHMS, "NoSuchProvider");
+    }
+
+    @Test
+    public void testAlgorithmMissingFromProvider() {
+        // SunRsaSign has no ECDSA Signature, which must be reported when the verifier is created
+        try {
+            new SignatureVerifier(ALGORITHMS, "SunRsaSign");
+            Assert.fail("ES256 was accepted for a provider without ECDSA");
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains(AlgorithmIdentifiers.ECDSA_USING_P256_CURVE_AND_SHA256));
+        }
+        Assert.assertFalse(SignatureVerifier.isSupported(AlgorithmIdentifiers.ECDSA_USING_P256_CURVE_AND_SHA256, "SunRsaSign"));
+        Assert.assertTrue(SignatureVerifier.isSupported(AlgorithmIdentifiers.RSA_USING_SHA256, "SunRsaSign"));
+    }
+
+    @Test
+    public void testJwksDefaultsAreSupported() {
+        String[] defaults = SignatureAlgorithms.jwksDefaults(null);
+        Assert.assertTrue(Arrays.asList(defaults).contains(AlgorithmIdentifiers.RSA_USING_SHA256));
+        // Every remaining default must be verifiable on the running JVM
+        new SignatureVerifier(defaults, null);
+    }
+
+    private static void assertVerifies(String alg, PublicKey publicKey, PrivateKey privateKey) throws Exception {
+        SignatureVerifier verifier = new SignatureVerifier(ALGORITHMS, null);
+        // Repeat so that the pooled, already initialized Signature is exercised
+        for(int n = 0; n < 3; n ++) {
+            String token = sign(alg, privateKey, "{\"sub\":\"jdoe\",\"jti\":\"" + n + "\"}");
+            verifier.verify(alg, publicKey, token);
+            String tampered = sign(alg, privateKey, "{\"sub\":\"jdoe\"}");
+            tampered = tampered.substring(0, tampered.indexOf('.') + 1) + token.substring(token.indexOf('.') + 1, token.lastIndexOf('.'))
+                    + tampered.substring(tampered.lastIndexOf('.'));
+            try {
+                verifier.verify(alg, publicKey, tampered);
+                Assert.fail("Tampered token was accepted");
+            } catch (ParseException expected) {
+                // expected
+            }
+        }
+    }
+
+    /**
+     * Sign an EdDSA token with the JCA Signature, since jose4j does not sign EdDSA
+     */
+    private static String signEdDSA(PrivateKey key, String payload) throws Exception {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String signingInput = encoder.encodeToString("{\"alg\":\"EdDSA\"}".getBytes("UTF-8")) + '.'
+                + encoder.encodeToString(payload.getBytes("UTF-8"));
+        Signature signature = Signature.getInstance(SignatureAlgorithms.ED25519);
+        signature.initSign(key);
+        signature.update(signingInput.getBytes("US-ASCII"));
+        return signingInput + '.' + encoder.encodeToString(signature.sign());
+    }
+
+    private static String sign(String alg, PrivateKey key, String payload) throws Exception {
+        JsonWebSignature jws = new JsonWebSignature();
+        jws.setPayload(payload);
+        jws.setAlgorithmHeaderValue(alg);
+        jws.setKey(key);
+        return jws.getCompactSerialization();
+    }
+}
@@ -0,0 +1,42 @@
+package org.eclipse.microprofile.jwt.test.jaxrs;
+
+import org.eclipse.microprofile.jwt.wfswarm.TokenCache;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Validate the expiration and size bounds of the validated token cache
+ */
+public class TokenCacheTest {
+    @Test
+    public void testDigestIsStable() {
+        String digest = TokenCache.digest("header.payload.signature");
+        Assert.assertEquals(digest, TokenCache.digest("header.payload.signature"));
+        Assert.assertNotEquals(digest, TokenCache.digest("header.payload.signaturf"));
+    }
+
+    @Test
+    public void testExpiredEntriesAreNotReturned() {
+        TokenCache<String> cache = new TokenCache<>(10);
+        long now = System.currentTimeMillis();
+        cache.put("live", "value", now + 60000);
+        cache.put("expired", "value", now - 1);
+        Assert.assertEquals("value", cache.get("live"));
+        Assert.assertNull(cache.get("expired"));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() {
+        TokenCache<String> cache = new TokenCache<>(2);
+        long expiresAt = System.currentTimeMillis() + 60000;
+        cache.put("a", "A", expiresAt);
+        cache.put("b", "B", expiresAt);
+        // Touch a so that b is the eldest entry
+        Assert.assertEquals("A", cache.get("a"));
+        cache.put("c", "C", expiresAt);
+        Assert.assertEquals(2, cache.size());
+        Assert.assertEquals("A", cache.get("a"));
+        Assert.assertNull(cache.get("b"));
+        Assert.assertEquals("C", cache.get("c"));
+    }
+}
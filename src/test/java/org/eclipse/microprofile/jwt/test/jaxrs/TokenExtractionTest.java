@@ -0,0 +1,108 @@
+package org.eclipse.microprofile.jwt.test.jaxrs;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import io.undertow.server.handlers.Cookie;
+import io.undertow.server.handlers.CookieImpl;
+import io.undertow.util.HeaderMap;
+import io.undertow.util.Headers;
+import io.undertow.util.HttpString;
+import org.eclipse.microprofile.jwt.test.util.TestTokens;
+import org.eclipse.microprofile.jwt.wfswarm.JWTAuthMechanism;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Validate where the JWTAuthMechanism takes the token of a request from
+ */
+public class TokenExtractionTest {
+    /** The cookies of a request that must not need them */
+    private static final Supplier<Map<String, Cookie>> NO_COOKIES = () -> {
+        throw new AssertionError("The request cookies were parsed");
+    };
+
+    private JWTAuthMechanism mechanism;
+
+    @Before
+    public void setup() throws Exception {
+        mechanism = new JWTAuthMechanism(TestTokens.contextInfo("https://server.example.com"));
+    }
+
+    @Test
+    public void testBearerScheme() {
+        Assert.assertEquals("token", extract(Headers.AUTHORIZATION, "Bearer token"));
+        // The scheme is case insensitive
+        Assert.assertEquals("token", extract(Headers.AUTHORIZATION, "bearer token"));
+        Assert.assertEquals("token", extract(Headers.AUTHORIZATION, "BEARER token"));
+    }
+
+    @Test
+    public void testMissingOrShortScheme() {
+        Assert.assertNull(mechanism.extractToken(new HeaderMap(), NO_COOKIES));
+        Assert.assertNull(extract(Headers.AUTHORIZATION, "Basic dXNlcjpwYXNz"));
+        Assert.assertNull(extract(Headers.AUTHORIZATION, "token"));
+        Assert.assertNull(extract(Headers.AUTHORIZATION, "Bearer"));
+        Assert.assertNull(extract(Headers.AUTHORIZATION, "Bearer "));
+        Assert.assertNull(extract(Headers.AUTHORIZATION, "Bear"));
+        Assert.assertNull(extract(Headers.AUTHORIZATION, ""));
+    }
+
+    @Test
+    public void testBearerValueAfterOtherScheme() {
+        HeaderMap headers = new HeaderMap();
+        headers.add(Headers.AUTHORIZATION, "Basic dXNlcjpwYXNz");
+        headers.add(Headers.AUTHORIZATION, "Bearer token");
+        Assert.assertEquals("token", mechanism.extractToken(headers, NO_COOKIES));
+    }
+
+    @Test
+    public void testCustomHeader() {
+        mechanism.setTokenLocation("X-Auth-Token", null);
+        HttpString header = new HttpString("X-Auth-Token");
+        // The scheme is optional in a custom header
+        Assert.assertEquals("token", extract(header, "token"));
+        Assert.assertEquals("token", extract(header, "Bearer token"));
+        Assert.assertNull(extract(header, ""));
+        // The Authorization header is no longer checked
+        Assert.assertNull(extract(Headers.AUTHORIZATION, "Bearer token"));
+    }
+
+    @Test
+    public void testCookieFallback() {
+        mechanism.setTokenLocation(null, "access_token");
+        Supplier<Map<String, Cookie>> cookies = cookies("access_token", "cookie-token");
+
+        // The header takes precedence, without parsing the cookies
+        HeaderMap headers = new HeaderMap();
+        headers.put(Headers.AUTHORIZATION, "Bearer header-token");
+        Assert.assertEquals("header-token", mechanism.extractToken(headers, NO_COOKIES));
+
+        // The cookie is used without a header token, including a header with another scheme
+        Assert.assertEquals("cookie-token", mechanism.extractToken(new HeaderMap(), cookies));
+        headers.put(Headers.AUTHORIZATION, "Basic dXNlcjpwYXNz");
+        Assert.assertEquals("cookie-token", mechanism.extractToken(headers, cookies));
+
+        // Other or empty cookies carry no token
+        Assert.assertNull(mechanism.extractToken(new HeaderMap(), cookies("session", "cookie-token")));
+        Assert.assertNull(mechanism.extractToken(new HeaderMap(), cookies("access_token", "")));
+    }
+
+    @Test
+    public void testCookieNotCheckedByDefault() {
+        Assert.assertNull(mechanism.extractToken(new HeaderMap(), cookies("access_token", "cookie-token")));
+    }
+
+    private String extract(HttpString header, String value) {
+        HeaderMap headers = new HeaderMap();
+        headers.put(header, value);
+        return mechanism.extractToken(headers, NO_COOKIES);
+    }
+
+    private static Supplier<Map<String, Cookie>> cookies(String name, String value) {
+        Map<String, Cookie> cookies = Collections.<String, Cookie>singletonMap(name, new CookieImpl(name, value));
+        return () -> cookies;
+    }
+}
@@ -0,0 +1,74 @@
+package org.eclipse.microprofile.jwt.test.jaxrs;
+
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+
+import org.eclipse.microprofile.jwt.principal.JWTAuthContextInfo;
+import org.eclipse.microprofile.jwt.test.util.TestTokens;
+import org.eclipse.microprofile.jwt.wfswarm.TokenValidator;
+import org.eclipse.microprofile.jwt.wfswarm.ValidationResult;
+import org.eclipse.microprofile.jwt.wfswarm.jaas.JWTCredential;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Validate the ValidationResult status of the common token failures
+ */
+public class TokenValidatorTest {
+    private static final String ISSUER = "https://server.example.com";
+
+    private PrivateKey privateKey;
+    private TokenValidator validator;
+
+    @Before
+    public void setup() throws Exception {
+        privateKey = TestTokens.privateKey();
+        JWTAuthContextInfo contextInfo = TestTokens.contextInfo(ISSUER);
+        contextInfo.setExpGracePeriodSecs(60);
+        validator = new TokenValidator(contextInfo, null);
+    }
+
+    @Test
+    public void testValid() throws Exception {
+        ValidationResult result = check(signToken(ISSUER, 300, privateKey));
+        Assert.assertEquals(result.getReason(), ValidationResult.Status.VALID, result.getStatus());
+        Assert.assertEquals("jdoe", result.getPrincipal().getName());
+    }
+
+    @Test
+    public void testExpired() throws Exception {
+        ValidationResult result = check(signToken(ISSUER, -300, privateKey));
+        Assert.assertEquals(ValidationResult.Status.EXPIRED, result.getStatus());
+        Assert.assertNull(result.getPrincipal());
+    }
+
+    @Test
+    public void testWrongIssuer() throws Exception {
+        ValidationResult result = check(signToken("https://other.example.com", 300, privateKey));
+        Assert.assertEquals(ValidationResult.Status.WRONG_ISSUER, result.getStatus());
+    }
+
+    @Test
+    public void testBadSignature() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        PrivateKey otherKey = generator.generateKeyPair().getPrivate();
+        ValidationResult result = check(signToken(ISSUER, 300, otherKey));
+        Assert.assertEquals(ValidationResult.Status.BAD_SIGNATURE, result.getStatus());
+    }
+
+    @Test
+    public void testMalformed() {
+        ValidationResult result = check("not.a.token");
+        Assert.assertEquals(ValidationResult.Status.MALFORMED, result.getStatus());
+    }
+
+    private ValidationResult check(String token) {
+        return validator.check(new JWTCredential(token, validator));
+    }
+
+    private static String signToken(String issuer, int expiresInSecs, PrivateKey key) throws Exception {
+        return TestTokens.sign(TestTokens.claims(issuer, expiresInSecs), key, null);
+    }
+}
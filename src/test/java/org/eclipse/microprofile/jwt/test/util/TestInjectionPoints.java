@@ -0,0 +1,97 @@
+package org.eclipse.microprofile.jwt.test.util;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.Type;
+import java.util.Collections;
+
+import javax.enterprise.inject.spi.AnnotatedField;
+import javax.enterprise.inject.spi.AnnotatedMethod;
+import javax.enterprise.inject.spi.AnnotatedParameter;
+import javax.enterprise.inject.spi.InjectionPoint;
+
+/**
+ * The InjectionPoints of fields and method parameters, as the CDI container would pass them to the extension,
+ * for the unit tests of the @Claim injection site handling. Only the type, member and annotations of a site
+ * are available.
+ */
+public final class TestInjectionPoints {
+    private TestInjectionPoints() {}
+
+    /**
+     * @param type - the class declaring the field
+     * @param name - the field name
+     * @return the injection point of the field
+     * @throws NoSuchFieldException - if the class does not declare the field
+     */
+    public static InjectionPoint field(Class<?> type, String name) throws NoSuchFieldException {
+        Field field = type.getDeclaredField(name);
+        AnnotatedField<?> annotated = proxy(AnnotatedField.class, (proxy, method, args) -> {
+            switch(method.getName()) {
+                case "isAnnotationPresent":
+                    return field.isAnnotationPresent((Class) args[0]);
+                case "getAnnotation":
+                    return field.getAnnotation((Class) args[0]);
+                case "getJavaMember":
+                    return field;
+                default:
+                    return null;
+            }
+        });
+        return injectionPoint(field.getGenericType(), field, annotated);
+    }
+
+    /**
+     * @param method - the method declaring the parameter
+     * @param position - the parameter position
+     * @return the injection point of the method parameter
+     */
+    public static InjectionPoint parameter(Method method, int position) {
+        Parameter parameter = method.getParameters()[position];
+        AnnotatedMethod<?> callable = proxy(AnnotatedMethod.class, (proxy, m, args) ->
+                m.getName().equals("getJavaMember") ? method : null);
+        AnnotatedParameter<?> annotated = proxy(AnnotatedParameter.class, (proxy, m, args) -> {
+            switch(m.getName()) {
+                case "isAnnotationPresent":
+                    return parameter.isAnnotationPresent((Class) args[0]);
+                case "getAnnotation":
+                    return parameter.getAnnotation((Class) args[0]);
+                case "getPosition":
+                    return position;
+                case "getDeclaringCallable":
+                    return callable;
+                default:
+                    return null;
+            }
+        });
+        return injectionPoint(parameter.getParameterizedType(), method, annotated);
+    }
+
+    private static InjectionPoint injectionPoint(Type type, Member member, Object annotated) {
+        return proxy(InjectionPoint.class, (proxy, method, args) -> {
+            switch(method.getName()) {
+                case "getType":
+                    return type;
+                case "getMember":
+                    return member;
+                case "getAnnotated":
+                    return annotated;
+                case "getQualifiers":
+                    return Collections.emptySet();
+                case "toString":
+                    return member.toString();
+                default:
+                    return null;
+            }
+        });
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(TestInjectionPoints.class.getClassLoader(), new Class<?>[] {type},
+                handler));
+    }
+}
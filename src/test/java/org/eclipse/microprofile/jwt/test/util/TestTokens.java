@@ -0,0 +1,97 @@
+package org.eclipse.microprofile.jwt.test.util;
+
+import java.security.PrivateKey;
+import java.security.interfaces.RSAPublicKey;
+
+import org.eclipse.microprofile.jwt.principal.JWTAuthContextInfo;
+import org.eclipse.microprofile.jwt.wfswarm.KeyUtils;
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jwt.JwtClaims;
+import org.jose4j.jwt.NumericDate;
+
+/**
+ * The signed token fixtures shared by the unit tests and the benchmarks. Tokens are RS256 signed with the
+ * /privateKey.pem key of the TCK tests unless another key is given, and validated with its /publicKey.pem pair.
+ */
+public final class TestTokens {
+    /** The subject and upn of the tokens from {@link #claims(String, long)} */
+    public static final String SUBJECT = "jdoe";
+
+    private TestTokens() {}
+
+    /**
+     * @return the /privateKey.pem signing key
+     * @throws Exception - on failure to read the key
+     */
+    public static PrivateKey privateKey() throws Exception {
+        return KeyUtils.readPrivateKey("/privateKey.pem");
+    }
+
+    /**
+     * @return the /publicKey.pem verification key
+     * @throws Exception - on failure to read the key
+     */
+    public static RSAPublicKey publicKey() throws Exception {
+        return (RSAPublicKey) KeyUtils.readPublicKey("/publicKey.pem");
+    }
+
+    /**
+     * Create the validation information for tokens of an issuer that are signed with the /privateKey.pem key
+     * @param issuer - the expected iss
+     * @return the validation information
+     * @throws Exception - on failure to read the verification key
+     */
+    public static JWTAuthContextInfo contextInfo(String issuer) throws Exception {
+        JWTAuthContextInfo contextInfo = new JWTAuthContextInfo();
+        contextInfo.setIssuedBy(issuer);
+        contextInfo.setSignerKey(publicKey());
+        return contextInfo;
+    }
+
+    /**
+     * Create the minimal claims of a token for the jdoe subject
+     * @param issuer - the token iss
+     * @param expiresInSecs - the exp relative to now, negative for an expired token
+     * @return the claims
+     */
+    public static JwtClaims claims(String issuer, long expiresInSecs) {
+        JwtClaims claims = new JwtClaims();
+        claims.setIssuer(issuer);
+        claims.setSubject(SUBJECT);
+        claims.setClaim("upn", SUBJECT);
+        claims.setExpirationTime(NumericDate.fromSeconds(System.currentTimeMillis() / 1000 + expiresInSecs));
+        return claims;
+    }
+
+    /**
+     * Sign the minimal claims of a token with the /privateKey.pem key
+     * @param issuer - the token iss
+     * @param expiresInSecs - the exp relative to now, negative for an expired token
+     * @return the compact serialization of the signed token
+     * @throws Exception - on failure to sign the token
+     */
+    public static String signToken(String issuer, long expiresInSecs) throws Exception {
+        return sign(claims(issuer, expiresInSecs), privateKey(), null);
+    }
+
+    /**
+     * Sign a token with RS256
+     * @param claims - the token claims
+     * @param key - the signing key
+     * @param keyId - the kid header, null for none
+     * @return the compact serialization of the signed token
+     * @throws Exception - on failure to sign the token
+     */
+    public static String sign(JwtClaims claims, PrivateKey key, String keyId) throws Exception {
+        JsonWebSignature jws = new JsonWebSignature();
+        jws.setPayload(claims.toJson());
+        jws.setKey(key);
+        if(keyId != null) {
+            jws.setKeyIdHeaderValue(keyId);
+        }
+        jws.setHeader("typ", "JWT");
+        jws.setAlgorithmHeaderValue(AlgorithmIdentifiers.RSA_USING_SHA256);
+        return jws.getCompactSerialization();
+    }
+}
@@ -0,0 +1,67 @@
+package org.eclipse.microprofile.jwt.wfswarm.cdi;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.microprofile.jwt.JsonWebToken;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Validate that the requests presenting the same bearer token share the resolved claim values of their deployment
+ */
+public class SharedClaimValuesTest {
+    private static final String DIGEST = "digest";
+
+    @Test
+    public void testSharedAcrossRequests() {
+        SharedClaimValues shared = new SharedClaimValues(10);
+        long expiresAt = System.currentTimeMillis() + 60000;
+        AtomicInteger firstLookups = new AtomicInteger();
+        AtomicInteger secondLookups = new AtomicInteger();
+
+        TokenClaimValues first = shared.claimValues(token(firstLookups), DIGEST, expiresAt);
+        Assert.assertEquals("jdoe", first.getValue("upn"));
+        TokenClaimValues second = shared.claimValues(token(secondLookups), DIGEST, expiresAt);
+        Assert.assertEquals("jdoe", second.getValue("upn"));
+        // The second request reads the value the first one resolved, but keeps its own token
+        Assert.assertEquals(1, firstLookups.get());
+        Assert.assertEquals(0, secondLookups.get());
+        Assert.assertNotSame(first.getToken(), second.getToken());
+        Assert.assertEquals(1, shared.size());
+    }
+
+    @Test
+    public void testFlush() {
+        SharedClaimValues shared = new SharedClaimValues(10);
+        long expiresAt = System.currentTimeMillis() + 60000;
+        shared.claimValues(token(new AtomicInteger()), DIGEST, expiresAt).getValue("upn");
+
+        shared.invalidateAll();
+        Assert.assertEquals(0, shared.size());
+        AtomicInteger lookups = new AtomicInteger();
+        Assert.assertEquals("jdoe", shared.claimValues(token(lookups), DIGEST, expiresAt).getValue("upn"));
+        Assert.assertEquals(1, lookups.get());
+    }
+
+    @Test
+    public void testExpiredTokenIsNotShared() {
+        SharedClaimValues shared = new SharedClaimValues(10);
+        shared.claimValues(token(new AtomicInteger()), DIGEST, System.currentTimeMillis() - 1000);
+        Assert.assertEquals(0, shared.size());
+    }
+
+    /**
+     * A token with a upn claim that counts the claim lookups
+     */
+    private static JsonWebToken token(AtomicInteger lookups) {
+        return (JsonWebToken) Proxy.newProxyInstance(SharedClaimValuesTest.class.getClassLoader(),
+                new Class<?>[] {JsonWebToken.class}, (proxy, method, args) -> {
+                    if(method.getName().equals("getClaim")) {
+                        lookups.incrementAndGet();
+                        return "upn".equals(args[0]) ? "jdoe" : null;
+                    }
+                    return null;
+                });
+    }
+}
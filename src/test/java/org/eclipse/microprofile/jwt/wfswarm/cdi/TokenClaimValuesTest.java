@@ -0,0 +1,135 @@
+package org.eclipse.microprofile.jwt.wfswarm.cdi;
+
+import java.lang.reflect.Proxy;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import javax.json.JsonString;
+
+import org.eclipse.microprofile.jwt.JsonWebToken;
+import org.eclipse.microprofile.jwt.test.util.TestTokens;
+import org.eclipse.microprofile.jwt.wfswarm.TokenValidator;
+import org.eclipse.microprofile.jwt.wfswarm.jaas.JWTCredential;
+import org.jose4j.jwt.JwtClaims;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Validate that the claim values of a token are resolved and converted once, and that a LazyClaimValue held by a
+ * wider scoped bean resolves the claim of the current token on each access
+ */
+public class TokenClaimValuesTest {
+    private static final String ISSUER = "https://server.example.com";
+
+    private TokenValidator validator;
+
+    @Before
+    public void setup() throws Exception {
+        validator = new TokenValidator(TestTokens.contextInfo(ISSUER), null);
+    }
+
+    @Test
+    public void testValueResolvedOnce() throws Exception {
+        AtomicInteger lookups = new AtomicInteger();
+        TokenClaimValues claimValues = new TokenClaimValues(counting(token("jdoe"), lookups));
+
+        Assert.assertEquals("jdoe", claimValues.getValue("upn"));
+        Assert.assertEquals("jdoe", claimValues.getValue("upn"));
+        Assert.assertEquals("jdoe", ((JsonString) claimValues.getJsonValue("upn")).getString());
+        Assert.assertEquals(1, lookups.get());
+    }
+
+    @Test
+    public void testConvertedOncePerConverter() throws Exception {
+        TokenClaimValues claimValues = new TokenClaimValues(token("jdoe"));
+        AtomicInteger conversions = new AtomicInteger();
+        Function<Object, Object> length = countingConverter(value -> ((String) value).length(), conversions);
+        AtomicInteger otherConversions = new AtomicInteger();
+        Function<Object, Object> upperCase = countingConverter(value -> ((String) value).toUpperCase(),
+                otherConversions);
+
+        for(int n = 0; n < 3; n ++) {
+            Assert.assertEquals(4, claimValues.getConvertedValue("upn", length));
+            Assert.assertEquals("JDOE", claimValues.getConvertedValue("upn", upperCase));
+        }
+        Assert.assertEquals(1, conversions.get());
+        Assert.assertEquals(1, otherConversions.get());
+        // The identity converter reads the claim value itself
+        Assert.assertEquals("jdoe", claimValues.getConvertedValue("upn", ClaimConverters.IDENTITY));
+    }
+
+    @Test
+    public void testMissingClaim() throws Exception {
+        AtomicInteger lookups = new AtomicInteger();
+        TokenClaimValues claimValues = new TokenClaimValues(counting(token("jdoe"), lookups));
+        AtomicInteger conversions = new AtomicInteger();
+        Function<Object, Object> converter = countingConverter(value -> value, conversions);
+
+        for(int n = 0; n < 3; n ++) {
+            Assert.assertNull(claimValues.getValue("tenant"));
+            Assert.assertNull(claimValues.getJsonValue("tenant"));
+            Assert.assertNull(claimValues.getConvertedValue("tenant", converter));
+        }
+        // The absence of the claim is remembered, and an absent claim is never converted
+        Assert.assertEquals(1, lookups.get());
+        Assert.assertEquals(0, conversions.get());
+
+        // A value the converter rejects is remembered as missing as well
+        AtomicInteger rejections = new AtomicInteger();
+        Function<Object, Object> rejecting = countingConverter(value -> null, rejections);
+        Assert.assertNull(claimValues.getConvertedValue("upn", rejecting));
+        Assert.assertNull(claimValues.getConvertedValue("upn", rejecting));
+        Assert.assertEquals(1, rejections.get());
+    }
+
+    @Test
+    public void testLazyValueInWiderScope() throws Exception {
+        // The ClaimValue of an application scoped bean, created once and used by the requests of different callers
+        AtomicInteger conversions = new AtomicInteger();
+        LazyClaimValue<String> upn = new LazyClaimValue<>("upn", false, countingConverter(value -> value, conversions));
+        LazyClaimValue<Optional<String>> tenant = new LazyClaimValue<>("tenant", true);
+
+        Assert.assertNull(upn.getValue());
+        Callable<String> first = () -> upn.getValue() + upn.getValue();
+        Assert.assertEquals("jdoejdoe", JWTContextPropagation.wrap(first, token("jdoe")).call());
+        Callable<String> second = () -> upn.getValue();
+        Assert.assertEquals("asmith", JWTContextPropagation.wrap(second, token("asmith")).call());
+        // Each token converts its value once
+        Assert.assertEquals(2, conversions.get());
+
+        Callable<Optional<String>> missing = tenant::getValue;
+        Assert.assertEquals(Optional.empty(), JWTContextPropagation.wrap(missing, token("jdoe")).call());
+        Assert.assertNull(upn.getValue());
+    }
+
+    private JsonWebToken token(String upn) throws Exception {
+        JwtClaims claims = TestTokens.claims(ISSUER, 300);
+        claims.setClaim("upn", upn);
+        String token = TestTokens.sign(claims, TestTokens.privateKey(), null);
+        return validator.validate(new JWTCredential(token, validator));
+    }
+
+    /**
+     * Wrap a token so that its claim lookups are counted
+     */
+    private static JsonWebToken counting(JsonWebToken token, AtomicInteger lookups) {
+        return (JsonWebToken) Proxy.newProxyInstance(TokenClaimValuesTest.class.getClassLoader(),
+                new Class<?>[] {JsonWebToken.class}, (proxy, method, args) -> {
+                    if(method.getName().equals("getClaim")) {
+                        lookups.incrementAndGet();
+                    }
+                    return method.invoke(token, args);
+                });
+    }
+
+    private static Function<Object, Object> countingConverter(Function<Object, Object> converter,
+                                                              AtomicInteger conversions) {
+        return value -> {
+            conversions.incrementAndGet();
+            return converter.apply(value);
+        };
+    }
+}